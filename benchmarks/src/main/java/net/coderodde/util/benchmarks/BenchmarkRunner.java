@@ -0,0 +1,32 @@
+package net.coderodde.util.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so that the allocation 
+ * rate is reported next to the throughput. The usual JMH command line 
+ * options apply; for example, 
+ * <pre>
+ * java -jar target/benchmarks.jar IntSortBenchmark -p workload=RANDOM,RUNNY -p size=1000000
+ * </pre>
+ * runs only the {@code int} sorts of two families at one size. The size 
+ * {@code 100000000} needs several gigabytes of heap for the {@code Integer}
+ * arrays.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) 
+            throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.util.AdaptiveMergesort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the sorts of {@code Integer} arrays. Every invocation copies the 
+ * generated input into a working array before sorting it; the {@code copy}
+ * benchmark measures that copy alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class ObjectSortBenchmark {
+
+    private static final long SEED = 13L;
+
+    @Param
+    private Workload workload;
+
+    @Param({ "100", "10000", "1000000", "100000000" })
+    private int size;
+
+    private Integer[] input;
+    private Integer[] array;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        input = workload.generateBoxed(size, new Random(SEED));
+        array = new Integer[size];
+    }
+
+    @Benchmark
+    public Integer[] copy() {
+        System.arraycopy(input, 0, array, 0, size);
+        return array;
+    }
+
+    @Benchmark
+    public Integer[] adaptiveMergesort() {
+        System.arraycopy(input, 0, array, 0, size);
+        AdaptiveMergesort.sort(array);
+        return array;
+    }
+
+    @Benchmark
+    public Integer[] adaptiveMergesortParallel() {
+        System.arraycopy(input, 0, array, 0, size);
+        AdaptiveMergesort.parallelSort(array);
+        return array;
+    }
+
+    @Benchmark
+    public Integer[] arraysSort() {
+        System.arraycopy(input, 0, array, 0, size);
+        Arrays.sort(array);
+        return array;
+    }
+
+    @Benchmark
+    public Integer[] arraysParallelSort() {
+        System.arraycopy(input, 0, array, 0, size);
+        Arrays.parallelSort(array);
+        return array;
+    }
+}
@@ -0,0 +1,250 @@
+package net.coderodde.util.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This enumeration lists the input families the benchmarks sort. The first
+ * five are the ones of {@code Demo}; the rest cover further degrees of
+ * presortedness.
+ */
+public enum Workload {
+
+    /**
+     * Uniformly random values.
+     */
+    RANDOM {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = new int[length];
+
+            for (int i = 0; i < length; ++i) {
+                array[i] = randomValue(random);
+            }
+
+            return array;
+        }
+    },
+
+    /**
+     * An ascending sequence cut into {@code 1000} blocks that are shuffled.
+     */
+    BLOCKED {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = ascending(length);
+            int blocks = Math.min(BLOCKS, length);
+            int blockLength = length / blocks;
+            int[][] blockArray = new int[blocks][];
+
+            for (int i = 0; i < blocks; ++i) {
+                int from = i * blockLength;
+                int to = i == blocks - 1 ? length : from + blockLength;
+                blockArray[i] = Arrays.copyOfRange(array, from, to);
+            }
+
+            for (int i = 0; i < blocks; ++i) {
+                int index1 = random.nextInt(blocks);
+                int index2 = random.nextInt(blocks);
+                int[] block = blockArray[index1];
+                blockArray[index1] = blockArray[index2];
+                blockArray[index2] = block;
+            }
+
+            int index = 0;
+
+            for (int[] block : blockArray) {
+                System.arraycopy(block, 0, array, index, block.length);
+                index += block.length;
+            }
+
+            return array;
+        }
+    },
+
+    /**
+     * Short ascending and descending arithmetic progressions with random
+     * starting points.
+     */
+    FUNNY {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = new int[length];
+            int index = 0;
+
+            while (index < length) {
+                int actual = Math.min(length - index,
+                                      random.nextInt(MAXIMUM_RUN_LENGTH));
+                boolean ascending = random.nextBoolean();
+                int first = randomValue(random);
+                int step = 1 + random.nextInt(5);
+
+                array[index++] = first;
+
+                for (int i = 1; i < actual; ++i) {
+                    array[index++] = ascending ?
+                                     first + i * step :
+                                     first - i * step;
+                }
+            }
+
+            return array;
+        }
+    },
+
+    /**
+     * Random values with sorted runs of random length below {@code 1000}.
+     */
+    RUNNY {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = RANDOM.generate(length, random);
+            int index = 0;
+
+            while (index < length) {
+                int actual = Math.min(length - index, random.nextInt(RUNS));
+                Arrays.sort(array, index, index + actual);
+                index += actual;
+            }
+
+            return array;
+        }
+    },
+
+    /**
+     * An ascending sequence with every pair of neighbours swapped.
+     */
+    ZIG_ZAG {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = ascending(length);
+
+            for (int i = 0; i + 1 < length; i += 2) {
+                swap(array, i, i + 1);
+            }
+
+            return array;
+        }
+    },
+
+    /**
+     * An ascending sequence with {@code length / 1000 + 1} random pairs of
+     * elements swapped.
+     */
+    NEARLY_SORTED {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = ascending(length);
+            int swaps = length / 1000 + 1;
+
+            for (int i = 0; i < swaps; ++i) {
+                swap(array, random.nextInt(length), random.nextInt(length));
+            }
+
+            return array;
+        }
+    },
+
+    /**
+     * About square root of {@code length} ascending ramps of equal length.
+     */
+    SAWTOOTH {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = new int[length];
+            int toothLength = Math.max(2, (int) Math.sqrt(length));
+
+            for (int i = 0; i < length; ++i) {
+                array[i] = i % toothLength;
+            }
+
+            return array;
+        }
+    },
+
+    /**
+     * An ascending first half followed by a descending second half.
+     */
+    ORGAN_PIPE {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = new int[length];
+
+            for (int i = 0; i < length; ++i) {
+                array[i] = Math.min(i, length - 1 - i);
+            }
+
+            return array;
+        }
+    },
+
+    /**
+     * Random values out of only {@code 16} distinct ones.
+     */
+    DUPLICATES {
+        @Override
+        int[] generate(int length, Random random) {
+            int[] array = new int[length];
+
+            for (int i = 0; i < length; ++i) {
+                array[i] = random.nextInt(DISTINCT_VALUES);
+            }
+
+            return array;
+        }
+    };
+
+    private static final int BLOCKS = 1000;
+    private static final int MIN_ELEMENT = -10_000;
+    private static final int MAX_ELEMENT = 10_000;
+    private static final int MAXIMUM_RUN_LENGTH = 100;
+    private static final int RUNS = 1000;
+    private static final int DISTINCT_VALUES = 16;
+
+    /**
+     * Generates an array of this family.
+     *
+     * @param length the length of the array.
+     * @param random the source of randomness.
+     * @return a new array.
+     */
+    abstract int[] generate(int length, Random random);
+
+    /**
+     * Generates an array of this family with the values boxed.
+     *
+     * @param length the length of the array.
+     * @param random the source of randomness.
+     * @return a new array.
+     */
+    Integer[] generateBoxed(int length, Random random) {
+        int[] values = generate(length, random);
+        Integer[] array = new Integer[length];
+
+        for (int i = 0; i < length; ++i) {
+            array[i] = values[i];
+        }
+
+        return array;
+    }
+
+    private static int randomValue(Random random) {
+        return MIN_ELEMENT + random.nextInt(MAX_ELEMENT - MIN_ELEMENT + 1);
+    }
+
+    private static int[] ascending(int length) {
+        int[] array = new int[length];
+
+        for (int i = 0; i < length; ++i) {
+            array[i] = i;
+        }
+
+        return array;
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
@@ -0,0 +1,101 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.stream.Collector;
+
+/**
+ * This class provides the collectors gathering the elements of a stream in
+ * stably sorted order. Unlike {@code sorted()} followed by a collector, they
+ * sort the elements as they arrive: each element extends the current run of
+ * an {@link AdaptiveSortedBuffer} if it can, and the partial results of a
+ * parallel stream are combined by pushing the runs of one buffer onto the 
+ * run stack of the other. A stream whose elements arrive nearly in order is
+ * thus collected in about linear time, and the partial results of an ordered
+ * parallel stream over such elements are joined without merging.
+ * <p>
+ * Equal elements are collected in encounter order.
+ */
+public final class AdaptiveCollectors {
+
+    private AdaptiveCollectors() {}
+
+    /**
+     * Returns a collector gathering the elements into an unmodifiable list in
+     * their natural order.
+     *
+     * @param <T> the element type.
+     * @return the collector.
+     */
+    public static <T extends Comparable<? super T>> 
+        Collector<T, ?, List<T>> toSortedList() {
+        return toSortedList(null);
+    }
+
+    /**
+     * Returns a collector gathering the elements into an unmodifiable list in
+     * the order induced by {@code comparator}. A {@code null} comparator 
+     * stands for the natural ordering of the elements.
+     *
+     * @param <T>        the element type.
+     * @param comparator the comparator defining the order.
+     * @return the collector.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Collector<T, ?, List<T>> toSortedList(
+            Comparator<? super T> comparator) {
+        return Collector.of(
+                () -> new AdaptiveSortedBuffer<T>(comparator),
+                AdaptiveSortedBuffer::add,
+                AdaptiveCollectors::combine,
+                buffer -> Collections.unmodifiableList(
+                        Arrays.asList((T[]) buffer.toArray())));
+    }
+
+    /**
+     * Returns a collector gathering the elements into an array in their 
+     * natural order. The array is allocated by {@code generator} at the exact
+     * length needed.
+     *
+     * @param <T>       the element type.
+     * @param generator the function allocating an array of a given length.
+     * @return the collector.
+     */
+    public static <T extends Comparable<? super T>> 
+        Collector<T, ?, T[]> toSortedArray(IntFunction<T[]> generator) {
+        return toSortedArray(generator, null);
+    }
+
+    /**
+     * Returns a collector gathering the elements into an array in the order
+     * induced by {@code comparator}. The array is allocated by 
+     * {@code generator} at the exact length needed. A {@code null} comparator
+     * stands for the natural ordering of the elements.
+     *
+     * @param <T>        the element type.
+     * @param generator  the function allocating an array of a given length.
+     * @param comparator the comparator defining the order.
+     * @return the collector.
+     */
+    public static <T> Collector<T, ?, T[]> toSortedArray(
+            IntFunction<T[]> generator,
+            Comparator<? super T> comparator) {
+        Objects.requireNonNull(generator, "The input generator is null.");
+        return Collector.of(
+                () -> new AdaptiveSortedBuffer<T>(comparator),
+                AdaptiveSortedBuffer::add,
+                AdaptiveCollectors::combine,
+                buffer -> buffer.toArray(generator.apply(buffer.size())));
+    }
+
+    private static <T> AdaptiveSortedBuffer<T> combine(
+            AdaptiveSortedBuffer<T> buffer1,
+            AdaptiveSortedBuffer<T> buffer2) {
+        buffer1.addAll(buffer2);
+        return buffer1;
+    }
+}
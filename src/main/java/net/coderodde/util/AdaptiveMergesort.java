@@ -1,10 +1,42 @@
 package net.coderodde.util;
 
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 public final class AdaptiveMergesort {
 
+    /**
+     * The default length of the shortest range {@code parallelSort} sorts in 
+     * parallel. Shorter ranges are sorted sequentially.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+
+    // The configuration of SortStrategy.MINIMUM_RUN_MERGE:
+    private static final SortConfiguration MINIMUM_RUN_CONFIGURATION = 
+            SortConfiguration.DEFAULT
+                             .withMergePolicy(MergePolicy.STACK)
+                             .withMinimumRunLength(
+                                     SortConfiguration
+                                             .COMPUTED_MINIMUM_RUN_LENGTH);
+
+    // The configuration of merging the runs supplied by the caller:
+    private static final SortConfiguration RUN_MERGE_CONFIGURATION = 
+            SortConfiguration.DEFAULT.withMergePolicy(MergePolicy.POWERSORT);
+
     private AdaptiveMergesort() {}
 
     /**
@@ -13,26 +45,1714 @@ public final class AdaptiveMergesort {
      * @param <T>   the array component type.
      * @param array the array to sort.
      */
-    public static <T extends Comparable<? super T>> void sort(T[] array) {
+    public static <T extends Comparable<? super T>> void sort(T[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], 
+     * array[fromIndex + 1], ..., array[toIndex - 2], array[toIndex - 1]}.
+     * 
+     * @param <T>       the array component type.
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     */
+    public static <T extends Comparable<? super T>> void sort(T[] array,
+                                                              int fromIndex,
+                                                              int toIndex) {
+        sort(array, fromIndex, toIndex, SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts stably the entire input array using the scratch memory of 
+     * {@code workspace}.
+     * 
+     * @param <T>       the array component type.
+     * @param array     the array to sort.
+     * @param workspace the workspace to sort in.
+     */
+    public static <T extends Comparable<? super T>> 
+        void sort(T[] array, SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, workspace);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], 
+     * array[fromIndex + 1], ..., array[toIndex - 2], array[toIndex - 1]} using
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param <T>       the array component type.
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     * @param workspace the workspace to sort in.
+     */
+    public static <T extends Comparable<? super T>> void sort(
+            T[] array, 
+            int fromIndex,
+            int toIndex, 
+            SortWorkspace workspace) {
+        sort(array, fromIndex, toIndex, SortConfiguration.DEFAULT, workspace);
+    }
+
+    /**
+     * Sorts stably the entire input array as instructed by 
+     * {@code configuration}.
+     * 
+     * @param <T>           the array component type.
+     * @param array         the array to sort.
+     * @param configuration the sort configuration.
+     */
+    public static <T extends Comparable<? super T>> 
+        void sort(T[] array, SortConfiguration configuration) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, configuration);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], 
+     * array[fromIndex + 1], ..., array[toIndex - 2], array[toIndex - 1]} as
+     * instructed by {@code configuration}.
+     * 
+     * @param <T>           the array component type.
+     * @param array         the array holding the target subarray.
+     * @param fromIndex     the index of the leftmost array component belonging
+     *                      to the requested array range.
+     * @param toIndex       the index of the largest array component in the 
+     *                      range plus one.
+     * @param configuration the sort configuration.
+     */
+    public static <T extends Comparable<? super T>> 
+        void sort(T[] array, 
+                  int fromIndex, 
+                  int toIndex,
+                  SortConfiguration configuration) {
+        sort(array, 
+             fromIndex, 
+             toIndex, 
+             configuration, 
+             SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], 
+     * array[fromIndex + 1], ..., array[toIndex - 2], array[toIndex - 1]} as
+     * instructed by {@code configuration} using the scratch memory of 
+     * {@code workspace}.
+     * 
+     * @param <T>           the array component type.
+     * @param array         the array holding the target subarray.
+     * @param fromIndex     the index of the leftmost array component belonging
+     *                      to the requested array range.
+     * @param toIndex       the index of the largest array component in the 
+     *                      range plus one.
+     * @param configuration the sort configuration.
+     * @param workspace     the workspace to sort in.
+     */
+    public static <T extends Comparable<? super T>> void sort(
+            T[] array, 
+            int fromIndex,
+            int toIndex, 
+            SortConfiguration configuration,
+            SortWorkspace workspace) {
+        sort(array, fromIndex, toIndex, null, configuration, workspace);
+    }
+
+    /**
+     * Sorts stably the entire input array into the order induced by 
+     * {@code comparator}. A {@code null} comparator stands for the natural
+     * ordering of the elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array to sort.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void sort(T[] array, Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, comparator);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into the order induced by {@code comparator}. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the target subarray.
+     * @param fromIndex  the index of the leftmost array component belonging 
+     *                   to the requested array range.
+     * @param toIndex    the index of the largest array component in the 
+     *                   range plus one.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void sort(T[] array, 
+                                int fromIndex, 
+                                int toIndex,
+                                Comparator<? super T> comparator) {
+        sort(array, 
+             fromIndex, 
+             toIndex, 
+             comparator, 
+             SortConfiguration.DEFAULT,
+             SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts stably the entire input array into the order induced by 
+     * {@code comparator} as instructed by {@code configuration}. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>           the array component type.
+     * @param array         the array to sort.
+     * @param comparator    the comparator defining the order.
+     * @param configuration the sort configuration.
+     */
+    public static <T> void sort(T[] array, 
+                                Comparator<? super T> comparator,
+                                SortConfiguration configuration) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 
+             0, 
+             array.length, 
+             comparator, 
+             configuration, 
+             SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into the order induced by {@code comparator} as
+     * instructed by {@code configuration} using the scratch memory of 
+     * {@code workspace}. A {@code null} comparator stands for the natural 
+     * ordering of the elements.
+     * 
+     * @param <T>           the array component type.
+     * @param array         the array holding the target subarray.
+     * @param fromIndex     the index of the leftmost array component belonging
+     *                      to the requested array range.
+     * @param toIndex       the index of the largest array component in the 
+     *                      range plus one.
+     * @param comparator    the comparator defining the order.
+     * @param configuration the sort configuration.
+     * @param workspace     the workspace to sort in.
+     */
+    public static <T> void sort(T[] array, 
+                                int fromIndex,
+                                int toIndex, 
+                                Comparator<? super T> comparator,
+                                SortConfiguration configuration,
+                                SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(configuration, 
+                               "The input configuration is null.");
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+        ObjectAdaptiveMergesort.sortRange(array, 
+                                          fromIndex, 
+                                          toIndex, 
+                                          toObjectComparator(comparator),
+                                          configuration,
+                                          workspace);
+    }
+
+    /**
+     * Sorts stably the entire input array by the algorithm that suits its 
+     * existing order best, as 
+     * {@link #smartSort(Object[], int, int, Comparator)} does.
+     * 
+     * @param <T>   the array component type.
+     * @param array the array to sort.
+     * @return the algorithm chosen.
+     */
+    public static <T extends Comparable<? super T>> 
+        SortStrategy smartSort(T[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return smartSort(array, 0, array.length, null);
+    }
+
+    /**
+     * Sorts stably the entire input array into the order induced by 
+     * {@code comparator} by the algorithm that suits its existing order best.
+     * A {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array to sort.
+     * @param comparator the comparator defining the order.
+     * @return the algorithm chosen.
+     */
+    public static <T> SortStrategy smartSort(T[] array, 
+                                             Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return smartSort(array, 0, array.length, comparator);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into the order induced by {@code comparator} by the
+     * algorithm that suits its existing order best. The range is first 
+     * probed with a bounded number of comparisons as in 
+     * {@link #probe(Object[], int, int, Comparator)}, and then sorted as 
+     * {@link Presortedness#getRecommendedStrategy()} recommends. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the target subarray.
+     * @param fromIndex  the index of the leftmost array component belonging 
+     *                   to the requested array range.
+     * @param toIndex    the index of the largest array component in the 
+     *                   range plus one.
+     * @param comparator the comparator defining the order.
+     * @return the algorithm chosen, for logging or tuning.
+     */
+    public static <T> SortStrategy smartSort(T[] array,
+                                             int fromIndex,
+                                             int toIndex,
+                                             Comparator<? super T> comparator) {
+        Presortedness presortedness = 
+                probe(array, fromIndex, toIndex, comparator);
+        SortStrategy strategy = presortedness.getRecommendedStrategy();
+        Comparator<Object> objectComparator = toObjectComparator(comparator);
+
+        switch (strategy) {
+            case ADAPTIVE_MERGE:
+                ObjectAdaptiveMergesort.sortRange(array,
+                                                  fromIndex,
+                                                  toIndex,
+                                                  objectComparator,
+                                                  SortConfiguration.DEFAULT,
+                                                  SortWorkspace.singleUse());
+                break;
+
+            case MINIMUM_RUN_MERGE:
+                ObjectAdaptiveMergesort.sortRange(array,
+                                                  fromIndex,
+                                                  toIndex,
+                                                  objectComparator,
+                                                  MINIMUM_RUN_CONFIGURATION,
+                                                  SortWorkspace.singleUse());
+                break;
+
+            default:
+                ObjectAdaptiveMergesort.plainSortRange(
+                        array,
+                        fromIndex,
+                        toIndex,
+                        objectComparator,
+                        SortWorkspace.singleUse());
+        }
+
+        return strategy;
+    }
+
+    /**
+     * Estimates how much order the entire input array already has, as 
+     * {@link #probe(Object[], int, int, Comparator)} does.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array to probe.
+     * @param comparator the comparator defining the order, or {@code null} 
+     *                   for the natural ordering.
+     * @return the estimates.
+     */
+    public static <T> Presortedness probe(T[] array, 
+                                          Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return probe(array, 0, array.length, comparator);
+    }
+
+    /**
+     * Estimates how much order the input subarray {@code array[fromIndex], 
+     * ..., array[toIndex - 1]} already has: the number of runs, the fraction
+     * of inverted pairs and the fraction of equal pairs. The probe takes a 
+     * few hundred comparisons at most, however long the range is, and leaves
+     * the array intact.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the target subarray.
+     * @param fromIndex  the index of the leftmost array component belonging 
+     *                   to the requested array range.
+     * @param toIndex    the index of the largest array component in the 
+     *                   range plus one.
+     * @param comparator the comparator defining the order, or {@code null} 
+     *                   for the natural ordering.
+     * @return the estimates.
+     */
+    public static <T> Presortedness probe(T[] array,
+                                          int fromIndex,
+                                          int toIndex,
+                                          Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+        return Presortedness.probe(array, 
+                                   fromIndex, 
+                                   toIndex, 
+                                   toObjectComparator(comparator));
+    }
+
+    /**
+     * Returns a read-only view of the elements of the input array in stably
+     * sorted order. The array itself is left intact: the view is backed by a 
+     * copy of the array sorted without writing the result back.
+     * 
+     * @param <T>   the array component type.
+     * @param array the array to view sorted.
+     * @return the sorted view.
+     */
+    public static <T extends Comparable<? super T>> 
+        SortedView<T> sortedView(T[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return sortedView(array, 0, array.length, null);
+    }
+
+    /**
+     * Returns a read-only view of the elements of the input subarray 
+     * {@code array[fromIndex], ..., array[toIndex - 1]} in stably sorted 
+     * order by {@code comparator}. A {@code null} comparator stands for the
+     * natural ordering of the elements. The array itself is left intact.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the target subarray.
+     * @param fromIndex  the index of the leftmost array component belonging 
+     *                   to the requested array range.
+     * @param toIndex    the index of the largest array component in the 
+     *                   range plus one.
+     * @param comparator the comparator defining the order.
+     * @return the sorted view.
+     */
+    public static <T> SortedView<T> sortedView(
+            T[] array, 
+            int fromIndex, 
+            int toIndex,
+            Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+        return ObjectAdaptiveMergesort.sortedView(
+                array, 
+                fromIndex, 
+                toIndex, 
+                toObjectComparator(comparator));
+    }
+
+    /**
+     * Returns the {@code k} least elements of the input array in stably 
+     * sorted order, or all of them if there are fewer than {@code k}. The 
+     * array itself is left intact. Only the natural runs of the array are 
+     * sorted out in full; the prefix is then merged out of them one element
+     * at a time, so for {@code r} runs this takes {@code O(n + k log r)} time
+     * instead of the {@code O(n log r)} of a full sort.
+     * 
+     * @param <T>   the array component type.
+     * @param array the array to take the least elements of.
+     * @param k     the number of elements to take.
+     * @return a new array holding the least elements in sorted order.
+     */
+    public static <T extends Comparable<? super T>> 
+        T[] sortedPrefix(T[] array, int k) {
+        return sortedPrefix(array, k, null);
+    }
+
+    /**
+     * Returns the {@code k} least elements of the input array in the stably
+     * sorted order induced by {@code comparator}, or all of them if there are
+     * fewer than {@code k}. A {@code null} comparator stands for the natural
+     * ordering of the elements. The array itself is left intact.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array to take the least elements of.
+     * @param k          the number of elements to take.
+     * @param comparator the comparator defining the order.
+     * @return a new array holding the least elements in sorted order.
+     */
+    public static <T> T[] sortedPrefix(T[] array, 
+                                       int k, 
+                                       Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+
+        if (k < 0) {
+            throw new IllegalArgumentException("k(" + k + ") < 0");
+        }
+
+        T[] prefix = Arrays.copyOf(array, Math.min(k, array.length));
+
+        if (prefix.length == 0) {
+            return prefix;
+        }
+
+        Iterator<T> iterator = sortedIterator(array, comparator);
+
+        for (int i = 0; i < prefix.length; ++i) {
+            prefix[i] = iterator.next();
+        }
+
+        return prefix;
+    }
+
+    /**
+     * Returns an iterator over the elements of the input array in stably 
+     * sorted order. The iterator works on a copy of the array split into its
+     * natural runs, and merges the runs lazily as it advances: each element
+     * costs {@code O(log r)} time for {@code r} runs.
+     * 
+     * @param <T>   the array component type.
+     * @param array the array to iterate over.
+     * @return an iterator over the array in sorted order.
+     */
+    public static <T extends Comparable<? super T>> 
+        Iterator<T> sortedIterator(T[] array) {
+        return sortedIterator(array, null);
+    }
+
+    /**
+     * Returns an iterator over the elements of the input array in the stably
+     * sorted order induced by {@code comparator}. A {@code null} comparator
+     * stands for the natural ordering of the elements. The runs of the array
+     * are merged lazily as the iterator advances.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array to iterate over.
+     * @param comparator the comparator defining the order.
+     * @return an iterator over the array in sorted order.
+     */
+    public static <T> Iterator<T> sortedIterator(
+            T[] array, 
+            Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return new RunMergingIterator<>(array, 
+                                        0, 
+                                        array.length, 
+                                        toObjectComparator(comparator));
+    }
+
+    /**
+     * Sorts stably the entire input array by the natural ordering of the keys
+     * extracted with {@code keyExtractor}. The key of each element is 
+     * extracted only once, which makes this method preferable to sorting with
+     * a comparator whenever the keys are expensive to compute.
+     * 
+     * @param <T>          the array component type.
+     * @param <K>          the key type.
+     * @param array        the array to sort.
+     * @param keyExtractor the function extracting the sort keys.
+     */
+    public static <T, K extends Comparable<? super K>> 
+        void sortByKey(T[] array, 
+                       Function<? super T, ? extends K> keyExtractor) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sortByKey(array, 0, array.length, keyExtractor);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} by the natural ordering of the keys extracted with 
+     * {@code keyExtractor}. The key of each element is extracted only once.
+     * 
+     * @param <T>          the array component type.
+     * @param <K>          the key type.
+     * @param array        the array holding the target subarray.
+     * @param fromIndex    the index of the leftmost array component belonging
+     *                     to the requested array range.
+     * @param toIndex      the index of the largest array component in the 
+     *                     range plus one.
+     * @param keyExtractor the function extracting the sort keys.
+     */
+    public static <T, K extends Comparable<? super K>> 
+        void sortByKey(T[] array, 
+                       int fromIndex,
+                       int toIndex,
+                       Function<? super T, ? extends K> keyExtractor) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(keyExtractor, 
+                               "The input key extractor is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+        KeyedAdaptiveMergesort.sortByKey(array, 
+                                         fromIndex, 
+                                         toIndex, 
+                                         keyExtractor,
+                                         SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts stably the entire input array by the {@code int} keys extracted 
+     * with {@code keyExtractor}. The key of each element is extracted only 
+     * once.
+     * 
+     * @param <T>          the array component type.
+     * @param array        the array to sort.
+     * @param keyExtractor the function extracting the sort keys.
+     */
+    public static <T> void sortByIntKey(T[] array,
+                                        ToIntFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sortByIntKey(array, 0, array.length, keyExtractor);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} by the {@code int} keys extracted with 
+     * {@code keyExtractor}. The key of each element is extracted only once.
+     * 
+     * @param <T>          the array component type.
+     * @param array        the array holding the target subarray.
+     * @param fromIndex    the index of the leftmost array component belonging
+     *                     to the requested array range.
+     * @param toIndex      the index of the largest array component in the 
+     *                     range plus one.
+     * @param keyExtractor the function extracting the sort keys.
+     */
+    public static <T> void sortByIntKey(T[] array,
+                                        int fromIndex,
+                                        int toIndex,
+                                        ToIntFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(keyExtractor, 
+                               "The input key extractor is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+        KeyedAdaptiveMergesort.sortByIntKey(array, 
+                                            fromIndex, 
+                                            toIndex, 
+                                            keyExtractor,
+                                            SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts stably the entire input array by the {@code long} keys extracted 
+     * with {@code keyExtractor}. The key of each element is extracted only 
+     * once.
+     * 
+     * @param <T>          the array component type.
+     * @param array        the array to sort.
+     * @param keyExtractor the function extracting the sort keys.
+     */
+    public static <T> void sortByLongKey(
+            T[] array,
+            ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sortByLongKey(array, 0, array.length, keyExtractor);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} by the {@code long} keys extracted with 
+     * {@code keyExtractor}. The key of each element is extracted only once.
+     * 
+     * @param <T>          the array component type.
+     * @param array        the array holding the target subarray.
+     * @param fromIndex    the index of the leftmost array component belonging
+     *                     to the requested array range.
+     * @param toIndex      the index of the largest array component in the 
+     *                     range plus one.
+     * @param keyExtractor the function extracting the sort keys.
+     */
+    public static <T> void sortByLongKey(
+            T[] array,
+            int fromIndex,
+            int toIndex,
+            ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(keyExtractor, 
+                               "The input key extractor is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+        KeyedAdaptiveMergesort.sortByLongKey(array, 
+                                             fromIndex, 
+                                             toIndex, 
+                                             keyExtractor,
+                                             SortWorkspace.singleUse());
+    }
+
+    /**
+     * Returns the stable sorting permutation of the input array: the indices 
+     * of its elements listed in ascending natural order of the elements, 
+     * equal elements in the order of their indices. The array itself is not
+     * modified; {@link #applyPermutation(int[], Object, Object...)} applies 
+     * the permutation to it and to any parallel arrays.
+     * 
+     * @param <T>   the array component type.
+     * @param array the array to sort.
+     * @return the sorting permutation.
+     */
+    public static <T extends Comparable<? super T>> 
+        int[] sortedIndices(T[] array) {
+        return sortedIndices(array, null);
+    }
+
+    /**
+     * Returns the stable sorting permutation of the input array under the 
+     * order imposed by {@code comparator}. A {@code null} comparator stands 
+     * for the natural ordering. See {@link #sortedIndices(Comparable[])}.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array to sort.
+     * @param comparator the comparator defining the order.
+     * @return the sorting permutation.
+     */
+    public static <T> int[] sortedIndices(T[] array, 
+                                          Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return KeyedAdaptiveMergesort.sortedIndices(
+                array, 
+                toObjectComparator(comparator),
+                SortWorkspace.forCurrentThread());
+    }
+
+    /**
+     * Returns the stable sorting permutation of the input {@code int} array 
+     * into ascending order. See {@link #sortedIndices(Comparable[])}.
+     * 
+     * @param array the array to sort.
+     * @return the sorting permutation.
+     */
+    public static int[] sortedIndices(int[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return KeyedAdaptiveMergesort.sortedIndicesByIntKey(
+                array.length, 
+                i -> array[i], 
+                SortWorkspace.forCurrentThread());
+    }
+
+    /**
+     * Returns the stable sorting permutation of the input {@code long} array 
+     * into ascending order. See {@link #sortedIndices(Comparable[])}.
+     * 
+     * @param array the array to sort.
+     * @return the sorting permutation.
+     */
+    public static int[] sortedIndices(long[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return KeyedAdaptiveMergesort.sortedIndicesByLongKey(
+                array.length, 
+                i -> array[i], 
+                SortWorkspace.forCurrentThread());
+    }
+
+    /**
+     * Returns the stable sorting permutation of the input {@code double} 
+     * array into ascending order. The order is the one of 
+     * {@link Double#compare(double, double)}. See 
+     * {@link #sortedIndices(Comparable[])}.
+     * 
+     * @param array the array to sort.
+     * @return the sorting permutation.
+     */
+    public static int[] sortedIndices(double[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        return KeyedAdaptiveMergesort.sortedIndicesByLongKey(
+                array.length, 
+                i -> doubleToSortableLong(array[i]), 
+                SortWorkspace.forCurrentThread());
+    }
+
+    /**
+     * Rearranges each of the input columns in place so that its component at
+     * index {@code i} becomes the component formerly at 
+     * {@code permutation[i]}. Applying the permutation returned by 
+     * {@code sortedIndices} thus sorts the array it was computed from, and 
+     * any arrays parallel to it, in the same way. The permutation is 
+     * decomposed into cycles once for all the columns.
+     * 
+     * @param permutation the permutation of the indices {@code 0, ..., 
+     *                    permutation.length - 1} to apply.
+     * @param column      the array to rearrange. Must be of length 
+     *                    {@code permutation.length}.
+     * @param moreColumns the further arrays to rearrange, each of length 
+     *                    {@code permutation.length}.
+     */
+    public static void applyPermutation(int[] permutation, 
+                                        Object column,
+                                        Object... moreColumns) {
+        Objects.requireNonNull(permutation, "The input permutation is null.");
+        Objects.requireNonNull(moreColumns, "The input columns are null.");
+
+        // A lone object array is thus never mistaken for the varargs array:
+        Object[] columns = new Object[moreColumns.length + 1];
+        columns[0] = column;
+        System.arraycopy(moreColumns, 0, columns, 1, moreColumns.length);
+
+        for (Object array : columns) {
+            Objects.requireNonNull(array, "An input column is null.");
+
+            if (!array.getClass().isArray()) {
+                throw new IllegalArgumentException(
+                        "An input column is not an array: " + 
+                        array.getClass().getName());
+            }
+
+            if (Array.getLength(array) != permutation.length) {
+                throw new IllegalArgumentException(
+                        "The column length (" + Array.getLength(array) + 
+                        ") differs from the permutation length (" + 
+                        permutation.length + ").");
+            }
+        }
+
+        BitSet seen = new BitSet(permutation.length);
+
+        for (int index : permutation) {
+            if (index < 0 || index >= permutation.length || seen.get(index)) {
+                throw new IllegalArgumentException(
+                        "The input is not a permutation: index " + index + 
+                        " is out of range or repeated.");
+            }
+
+            seen.set(index);
+        }
+
+        KeyedAdaptiveMergesort.applyPermutation(permutation, columns);
+    }
+
+    /**
+     * Sorts stably the rows of a table stored as parallel arrays by the 
+     * ascending order of {@code keyColumn}, rearranging the payload columns 
+     * along. See {@link #sortByColumns(Object[], Object...)}.
+     * 
+     * @param keyColumn      the column to sort by.
+     * @param payloadColumns the columns to rearrange along with the key 
+     *                       column.
+     */
+    public static void sortByColumn(Object keyColumn, 
+                                    Object... payloadColumns) {
+        sortByColumns(new Object[]{ keyColumn }, payloadColumns);
+    }
+
+    /**
+     * Sorts stably the rows of a table stored as parallel arrays, such as 
+     * {@code long[] timestamps}, {@code int[] userIds} and 
+     * {@code double[] values}, into the ascending lexicographic order of the
+     * key columns. The runs are found and merged once over the keys, after 
+     * which every column, the key columns included, is rearranged by the 
+     * resulting permutation with one bulk copy per stretch of rows that keep
+     * their relative order. Primitive key columns are compared as in 
+     * {@link Arrays#sort(double[])} and the like.
+     * 
+     * @param keyColumns     the columns to sort by, the most significant 
+     *                       first. Each must be an array of a primitive type
+     *                       other than {@code boolean} or an array of 
+     *                       mutually comparable objects.
+     * @param payloadColumns the columns to rearrange along with the key 
+     *                       columns. Each may be an array of any type.
+     */
+    public static void sortByColumns(Object[] keyColumns, 
+                                     Object... payloadColumns) {
+        Objects.requireNonNull(keyColumns, "The input key columns are null.");
+        Objects.requireNonNull(payloadColumns, 
+                               "The input payload columns are null.");
+
+        if (keyColumns.length == 0) {
+            throw new IllegalArgumentException("No key columns given.");
+        }
+
+        Objects.requireNonNull(keyColumns[0], "An input column is null.");
+
+        if (!keyColumns[0].getClass().isArray()) {
+            throw new IllegalArgumentException(
+                    "An input column is not an array: " + 
+                    keyColumns[0].getClass().getName());
+        }
+
+        int rows = Array.getLength(keyColumns[0]);
+        Set<Object> columns = 
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Object[] group : new Object[][]{ keyColumns, payloadColumns }) {
+            for (Object column : group) {
+                Objects.requireNonNull(column, "An input column is null.");
+
+                if (!column.getClass().isArray()) {
+                    throw new IllegalArgumentException(
+                            "An input column is not an array: " + 
+                            column.getClass().getName());
+                }
+
+                if (Array.getLength(column) != rows) {
+                    throw new IllegalArgumentException(
+                            "The column lengths differ: " + rows + " and " +
+                            Array.getLength(column));
+                }
+
+                if (!columns.add(column)) {
+                    throw new IllegalArgumentException(
+                            "A column is given more than once.");
+                }
+            }
+        }
+
+        for (Object keyColumn : keyColumns) {
+            if (keyColumn instanceof boolean[]) {
+                throw new IllegalArgumentException(
+                        "A boolean column cannot be a key column.");
+            }
+        }
+
+        ColumnarAdaptiveMergesort.sort(keyColumns, 
+                                       payloadColumns, 
+                                       SortWorkspace.forCurrentThread());
+    }
+
+    /**
+     * Restores the ascending natural order of the entire input array after 
+     * the components at {@code dirtyIndices} were modified, all the other 
+     * components being still sorted. Only the modified elements are sorted 
+     * and inserted back, taking {@code O(d log n)} comparisons for 
+     * {@code d} modified elements. The unmodified elements keep their 
+     * relative order, and each modified element ends up after the 
+     * unmodified elements equal to it. The indices may come in any order and
+     * may repeat.
+     * 
+     * @param <T>          the array component type.
+     * @param array        the array to restore.
+     * @param dirtyIndices the indices of the modified components.
+     */
+    public static <T extends Comparable<? super T>> 
+        void resort(T[] array, int[] dirtyIndices) {
+        resort(array, dirtyIndices, null);
+    }
+
+    /**
+     * Restores the order of the entire input array imposed by 
+     * {@code comparator} after the components at {@code dirtyIndices} were 
+     * modified. A {@code null} comparator stands for the natural ordering. 
+     * See {@link #resort(Comparable[], int[])}.
+     * 
+     * @param <T>          the array component type.
+     * @param array        the array to restore.
+     * @param dirtyIndices the indices of the modified components.
+     * @param comparator   the comparator defining the order.
+     */
+    public static <T> void resort(T[] array, 
+                                  int[] dirtyIndices,
+                                  Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(dirtyIndices, 
+                               "The input dirty indices are null.");
+
+        int[] indices = dirtyIndices.clone();
+        Arrays.sort(indices);
+        int dirtyCount = 0;
+
+        for (int index : indices) {
+            if (index < 0 || index >= array.length) {
+                throw new ArrayIndexOutOfBoundsException(
+                        "dirty index = " + index);
+            }
+
+            if (dirtyCount == 0 || indices[dirtyCount - 1] != index) {
+                indices[dirtyCount++] = index;
+            }
+        }
+
+        resort(array, indices, dirtyCount, comparator);
+    }
+
+    /**
+     * Restores the ascending natural order of the entire input array after 
+     * the components whose indices are set in {@code dirty} were modified. 
+     * See {@link #resort(Comparable[], int[])}.
+     * 
+     * @param <T>   the array component type.
+     * @param array the array to restore.
+     * @param dirty the set of the indices of the modified components.
+     */
+    public static <T extends Comparable<? super T>> 
+        void resort(T[] array, BitSet dirty) {
+        resort(array, dirty, null);
+    }
+
+    /**
+     * Restores the order of the entire input array imposed by 
+     * {@code comparator} after the components whose indices are set in 
+     * {@code dirty} were modified. A {@code null} comparator stands for the 
+     * natural ordering. See {@link #resort(Comparable[], int[])}.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array to restore.
+     * @param dirty      the set of the indices of the modified components.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void resort(T[] array, 
+                                  BitSet dirty,
+                                  Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(dirty, "The input dirty set is null.");
+
+        if (dirty.length() > array.length) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "dirty index = " + (dirty.length() - 1));
+        }
+
+        int[] indices = dirty.stream().toArray();
+        resort(array, indices, indices.length, comparator);
+    }
+
+    /**
+     * Implements the restoring of the order once the dirty indices are known 
+     * to be valid, unique and sorted.
+     */
+    private static <T> void resort(T[] array,
+                                   int[] dirtyIndices,
+                                   int dirtyCount,
+                                   Comparator<? super T> comparator) {
+        if (dirtyCount == 0) {
+            return; // Nothing to restore.
+        }
+
+        ObjectAdaptiveMergesort.resort(array, 
+                                       dirtyIndices, 
+                                       dirtyCount, 
+                                       toObjectComparator(comparator));
+    }
+
+    /**
+     * Sorts stably the entire input array using the common 
+     * {@link java.util.concurrent.ForkJoinPool}.
+     * 
+     * @param <T>   the array component type.
+     * @param array the array to sort.
+     */
+    public static <T extends Comparable<? super T>> 
+        void parallelSort(T[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        parallelSort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} using the common 
+     * {@link java.util.concurrent.ForkJoinPool}.
+     * 
+     * @param <T>       the array component type.
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     */
+    public static <T extends Comparable<? super T>> 
+        void parallelSort(T[] array, int fromIndex, int toIndex) {
+        parallelSort(array, fromIndex, toIndex, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} using the common 
+     * {@link java.util.concurrent.ForkJoinPool}. The range is split into 
+     * chunks no shorter than {@code threshold} that are sorted concurrently,
+     * after which the neighbouring chunks are merged pairwise in parallel. A 
+     * range no longer than {@code threshold} is sorted sequentially.
+     * 
+     * @param <T>       the array component type.
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     * @param threshold the length of the shortest range to sort in parallel.
+     */
+    public static <T extends Comparable<? super T>> 
+        void parallelSort(T[] array, 
+                          int fromIndex, 
+                          int toIndex, 
+                          int threshold) {
+        parallelSort(array, fromIndex, toIndex, null, threshold);
+    }
+
+    /**
+     * Sorts stably the entire input array into the order induced by 
+     * {@code comparator} using the common 
+     * {@link java.util.concurrent.ForkJoinPool}. A {@code null} comparator
+     * stands for the natural ordering of the elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array to sort.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void parallelSort(T[] array, 
+                                        Comparator<? super T> comparator) {
+        Objects.requireNonNull(array, "The input array is null.");
+        parallelSort(array, 
+                     0, 
+                     array.length, 
+                     comparator, 
+                     DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into the order induced by {@code comparator} using 
+     * the common {@link java.util.concurrent.ForkJoinPool}. A {@code null} 
+     * comparator stands for the natural ordering of the elements. 
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the target subarray.
+     * @param fromIndex  the index of the leftmost array component belonging 
+     *                   to the requested array range.
+     * @param toIndex    the index of the largest array component in the 
+     *                   range plus one.
+     * @param comparator the comparator defining the order.
+     * @param threshold  the length of the shortest range to sort in parallel.
+     */
+    public static <T> void parallelSort(T[] array, 
+                                        int fromIndex, 
+                                        int toIndex, 
+                                        Comparator<? super T> comparator,
+                                        int threshold) {
+        Objects.requireNonNull(array, "The input array is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+
+        if (threshold < 1) {
+            throw new IllegalArgumentException(
+                    "threshold(" + threshold + ") < 1");
+        }
+
+        ParallelAdaptiveMergesort.sort(array, 
+                                       fromIndex, 
+                                       toIndex, 
+                                       toObjectComparator(comparator),
+                                       threshold);
+    }
+
+    /**
+     * Sorts stably each of the input arrays.
+     * 
+     * @param <T>    the array component type.
+     * @param arrays the arrays to sort.
+     */
+    public static <T extends Comparable<? super T>> void sortAll(T[][] arrays) {
+        sortAll(arrays, null);
+    }
+
+    /**
+     * Sorts stably each of the input arrays into the order induced by 
+     * {@code comparator} using the workspace of the calling thread. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param arrays     the arrays to sort.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void sortAll(T[][] arrays, 
+                                   Comparator<? super T> comparator) {
+        sortAll(arrays, comparator, SortWorkspace.forCurrentThread());
+    }
+
+    /**
+     * Sorts stably each of the input arrays into the order induced by 
+     * {@code comparator} using the scratch memory of {@code workspace}. The 
+     * arguments are checked once for the whole batch, all the arrays are 
+     * sorted in the same workspace, and the arrays of at most 32 elements 
+     * are sorted in place by insertion sort. This makes the batch much 
+     * cheaper than a separate call per array when the arrays are short. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param arrays     the arrays to sort.
+     * @param comparator the comparator defining the order.
+     * @param workspace  the workspace to sort in.
+     */
+    public static <T> void sortAll(T[][] arrays, 
+                                   Comparator<? super T> comparator,
+                                   SortWorkspace workspace) {
+        checkArrays(arrays);
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        BatchAdaptiveMergesort.sortAll(arrays, 
+                                       toObjectComparator(comparator), 
+                                       workspace);
+    }
+
+    /**
+     * Sorts stably each of the input arrays into the order induced by 
+     * {@code comparator} using the common 
+     * {@link java.util.concurrent.ForkJoinPool}. The batch is split into 
+     * groups of neighbouring arrays holding about 
+     * {@link #DEFAULT_PARALLEL_THRESHOLD} elements in total, and each group 
+     * is sorted as by {@link #sortAll(Object[][], Comparator, SortWorkspace)}
+     * in the workspace of the worker thread. A {@code null} comparator stands
+     * for the natural ordering of the elements.
+     * 
+     * @param <T>        the array component type.
+     * @param arrays     the arrays to sort.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void parallelSortAll(T[][] arrays,
+                                           Comparator<? super T> comparator) {
+        checkArrays(arrays);
+        BatchAdaptiveMergesort.parallelSortAll(arrays,
+                                               toObjectComparator(comparator),
+                                               DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Sorts stably each slice {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]} of the input array.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the slices.
+     * @param boundaries the non-decreasing boundaries of the slices.
+     */
+    public static <T extends Comparable<? super T>> 
+        void sortRanges(T[] array, int[] boundaries) {
+        sortRanges(array, boundaries, null);
+    }
+
+    /**
+     * Sorts stably each slice {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]} of the input array into the order induced
+     * by {@code comparator} using the workspace of the calling thread. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the slices.
+     * @param boundaries the non-decreasing boundaries of the slices.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void sortRanges(T[] array, 
+                                      int[] boundaries,
+                                      Comparator<? super T> comparator) {
+        sortRanges(array, 
+                   boundaries, 
+                   comparator, 
+                   SortWorkspace.forCurrentThread());
+    }
+
+    /**
+     * Sorts stably each slice {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]} of the input array into the order induced
+     * by {@code comparator} using the scratch memory of {@code workspace}. 
+     * The elements outside the first and the last boundary are left intact.
+     * The slices are sorted as the arrays of 
+     * {@link #sortAll(Object[][], Comparator, SortWorkspace)}. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the slices.
+     * @param boundaries the non-decreasing boundaries of the slices.
+     * @param comparator the comparator defining the order.
+     * @param workspace  the workspace to sort in.
+     */
+    public static <T> void sortRanges(T[] array, 
+                                      int[] boundaries,
+                                      Comparator<? super T> comparator,
+                                      SortWorkspace workspace) {
+        checkBoundaries(array, boundaries);
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        BatchAdaptiveMergesort.sortRanges(array, 
+                                          boundaries,
+                                          toObjectComparator(comparator), 
+                                          workspace);
+    }
+
+    /**
+     * Sorts stably each slice {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]} of the input array into the order induced
+     * by {@code comparator} using the common 
+     * {@link java.util.concurrent.ForkJoinPool}, splitting the slices into 
+     * groups as {@link #parallelSortAll(Object[][], Comparator)} does. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the slices.
+     * @param boundaries the non-decreasing boundaries of the slices.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void parallelSortRanges(
+            T[] array,
+            int[] boundaries,
+            Comparator<? super T> comparator) {
+        checkBoundaries(array, boundaries);
+        BatchAdaptiveMergesort.parallelSortRanges(
+                array,
+                boundaries,
+                toObjectComparator(comparator),
+                DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Merges stably the input sorted arrays into a new sorted array.
+     * 
+     * @param <T>          the array component type.
+     * @param sortedArrays the arrays to merge, each sorted.
+     * @return the merged array.
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public static <T extends Comparable<? super T>> 
+        T[] merge(T[]... sortedArrays) {
+        // The overload only reads the arrays, never stores or hands them out:
+        return merge(null, sortedArrays);
+    }
+
+    /**
+     * Merges stably the input arrays sorted by {@code comparator} into a new
+     * sorted array of the same component type as {@code sortedArrays}. The 
+     * arrays are concatenated and merged as by 
+     * {@link #mergeRuns(Object[], int[], Comparator)}, each array being a 
+     * run; equal elements keep the order of their arrays. A {@code null} 
+     * comparator stands for the natural ordering of the elements.
+     * 
+     * @param <T>          the array component type.
+     * @param comparator   the comparator defining the order.
+     * @param sortedArrays the arrays to merge, each sorted.
+     * @return the merged array.
+     */
+    @SafeVarargs
+    @SuppressWarnings({ "unchecked", "varargs" })
+    public static <T> T[] merge(Comparator<? super T> comparator, 
+                                T[]... sortedArrays) {
+        // The check only reads the arrays, never stores or hands them out:
+        checkArrays(sortedArrays);
+
+        int[] boundaries = new int[sortedArrays.length + 1];
+
+        for (int i = 0; i < sortedArrays.length; ++i) {
+            long boundary = (long) boundaries[i] + sortedArrays[i].length;
+
+            if (boundary > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "The input arrays hold more than " + 
+                        Integer.MAX_VALUE + " elements.");
+            }
+
+            boundaries[i + 1] = (int) boundary;
+        }
+
+        T[] result = (T[]) Array.newInstance(
+                sortedArrays.getClass().getComponentType().getComponentType(),
+                boundaries[sortedArrays.length]);
+
+        for (int i = 0; i < sortedArrays.length; ++i) {
+            System.arraycopy(sortedArrays[i], 
+                             0, 
+                             result, 
+                             boundaries[i], 
+                             sortedArrays[i].length);
+        }
+
+        ObjectAdaptiveMergesort.mergeSlices(result,
+                                            boundaries,
+                                            toObjectComparator(comparator),
+                                            RUN_MERGE_CONFIGURATION,
+                                            SortWorkspace.forCurrentThread());
+        return result;
+    }
+
+    /**
+     * Returns an iterator merging stably the input iterators over sorted 
+     * sequences.
+     * 
+     * @param <T>             the element type.
+     * @param sortedIterators the iterators to merge.
+     * @return the merging iterator.
+     */
+    public static <T extends Comparable<? super T>> Iterator<T> merge(
+            List<? extends Iterator<? extends T>> sortedIterators) {
+        return merge(sortedIterators, null);
+    }
+
+    /**
+     * Returns an iterator merging stably the input iterators over sequences
+     * sorted by {@code comparator}. The merge is lazy: the iterators are 
+     * advanced only as far as the elements handed out require, plus one 
+     * element each held as the current head, so they may be unbounded. 
+     * Equal elements come out in the order of their iterators in the list. A
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>             the element type.
+     * @param sortedIterators the iterators to merge.
+     * @param comparator      the comparator defining the order.
+     * @return the merging iterator.
+     */
+    public static <T> Iterator<T> merge(
+            List<? extends Iterator<? extends T>> sortedIterators,
+            Comparator<? super T> comparator) {
+        Objects.requireNonNull(sortedIterators, 
+                               "The input iterator list is null.");
+
+        for (int i = 0; i < sortedIterators.size(); ++i) {
+            if (sortedIterators.get(i) == null) {
+                throw new NullPointerException(
+                        "The input iterator at index " + i + " is null.");
+            }
+        }
+
+        return new IteratorMergingIterator<>(sortedIterators,
+                                             toObjectComparator(comparator));
+    }
+
+    /**
+     * Merges stably the sorted slices {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]} of the input array into one.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the slices.
+     * @param boundaries the non-decreasing boundaries of the slices.
+     */
+    public static <T extends Comparable<? super T>> 
+        void mergeRuns(T[] array, int[] boundaries) {
+        mergeRuns(array, boundaries, null);
+    }
+
+    /**
+     * Merges stably the slices {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]} of the input array, each sorted by 
+     * {@code comparator}, into one, so that the range from 
+     * {@code array[boundaries[0]]} up to the last boundary becomes sorted. 
+     * The slices are merged right away as the runs of the adaptive mergesort
+     * with the policy of {@link MergePolicy#POWERSORT}, without scanning the
+     * range for runs. Equal elements keep the order of their slices. A 
+     * {@code null} comparator stands for the natural ordering of the 
+     * elements.
+     * 
+     * @param <T>        the array component type.
+     * @param array      the array holding the slices.
+     * @param boundaries the non-decreasing boundaries of the slices.
+     * @param comparator the comparator defining the order.
+     */
+    public static <T> void mergeRuns(T[] array, 
+                                     int[] boundaries,
+                                     Comparator<? super T> comparator) {
+        checkBoundaries(array, boundaries);
+        ObjectAdaptiveMergesort.mergeSlices(array,
+                                            boundaries,
+                                            toObjectComparator(comparator),
+                                            RUN_MERGE_CONFIGURATION,
+                                            SortWorkspace.forCurrentThread());
+    }
+
+    /**
+     * Sorts stably the entire input array within a bounded amount of scratch
+     * memory, as {@link #sortBounded(Object[], int, int, Comparator, int)}
+     * does.
+     *
+     * @param <T>                  the array component type.
+     * @param array                the array to sort.
+     * @param maximumScratchLength the maximum number of elements to buffer.
+     */
+    public static <T extends Comparable<? super T>>
+        void sortBounded(T[] array, int maximumScratchLength) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sortBounded(array, 0, array.length, null, maximumScratchLength);
+    }
+
+    /**
+     * Sorts stably the entire input array into the order induced by
+     * {@code comparator} within a bounded amount of scratch memory, as
+     * {@link #sortBounded(Object[], int, int, Comparator, int)} does.
+     *
+     * @param <T>                  the array component type.
+     * @param array                the array to sort.
+     * @param comparator           the comparator defining the order.
+     * @param maximumScratchLength the maximum number of elements to buffer.
+     */
+    public static <T> void sortBounded(T[] array,
+                                       Comparator<? super T> comparator,
+                                       int maximumScratchLength) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sortBounded(array, 0, array.length, comparator, maximumScratchLength);
+    }
+
+    /**
+     * Sorts stably the input subarray {@code array[fromIndex], ...,
+     * array[toIndex - 1]} into the order induced by {@code comparator},
+     * allocating a scratch buffer of no more than
+     * {@code maximumScratchLength} elements instead of a copy of the range.
+     * The natural runs of the range are found and merged in place: two
+     * neighbouring runs are merged through the buffer when the shorter of
+     * them fits in it, and by rotations otherwise, which takes a logarithmic
+     * factor more time. Zero sorts the range entirely in place; a length of
+     * about the square root of the range length keeps most merges buffered.
+     * A {@code null} comparator stands for the natural ordering of the
+     * elements.
+     *
+     * @param <T>                  the array component type.
+     * @param array                the array holding the target subarray.
+     * @param fromIndex            the index of the leftmost array component
+     *                             belonging to the requested array range.
+     * @param toIndex              the index of the largest array component
+     *                             in the range plus one.
+     * @param comparator           the comparator defining the order.
+     * @param maximumScratchLength the maximum number of elements to buffer.
+     */
+    public static <T> void sortBounded(T[] array,
+                                       int fromIndex,
+                                       int toIndex,
+                                       Comparator<? super T> comparator,
+                                       int maximumScratchLength) {
+        Objects.requireNonNull(array, "The input array is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+
+        if (maximumScratchLength < 0) {
+            throw new IllegalArgumentException(
+                    "maximumScratchLength(" + maximumScratchLength + ") < 0");
+        }
+
+        BoundedAdaptiveMergesort.sortRange(array,
+                                           fromIndex,
+                                           toIndex,
+                                           toObjectComparator(comparator),
+                                           maximumScratchLength);
+    }
+
+    /**
+     * Sorts the entire input {@code int} array into ascending order.
+     * 
+     * @param array the array to sort.
+     */
+    public static void sort(int[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     */
+    public static void sort(int[] array, int fromIndex, int toIndex) {
+        sort(array, fromIndex, toIndex, SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts the entire input {@code int} array into ascending order using
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array to sort.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(int[] array, SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, workspace);
+    }
+
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order using 
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(int[] array,
+                            int fromIndex, 
+                            int toIndex, 
+                            SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            int[] aux = workspace.intBuffer();
+            IntervalPool pool = workspace.intervalPool();
+            System.arraycopy(array, fromIndex, aux, 0, rangeLength);
+
+            int run = IntAdaptiveMergesort.sort(aux,
+                                                null,
+                                                rangeLength,
+                                                pool,
+                                                workspace.runQueue());
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                int intervalFrom = pool.from[interval];
+                int intervalLength = pool.to[interval] - intervalFrom + 1;
+                System.arraycopy(aux, 
+                                 intervalFrom, 
+                                 array, 
+                                 arrayIndex, 
+                                 intervalLength);
+                arrayIndex += intervalLength;
+            }
+        } finally {
+            workspace.release(rangeLength);
+        }
+    }
+
+    /**
+     * Sorts the entire input {@code long} array into ascending order.
+     * 
+     * @param array the array to sort.
+     */
+    public static void sort(long[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     */
+    public static void sort(long[] array, int fromIndex, int toIndex) {
+        sort(array, fromIndex, toIndex, SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts the entire input {@code long} array into ascending order using
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array to sort.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(long[] array, SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, workspace);
+    }
+
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order using 
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(long[] array,
+                            int fromIndex, 
+                            int toIndex, 
+                            SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        checkIndices(array.length, fromIndex, toIndex);
+
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            long[] aux = workspace.longBuffer();
+            IntervalPool pool = workspace.intervalPool();
+            System.arraycopy(array, fromIndex, aux, 0, rangeLength);
+
+            int run = LongAdaptiveMergesort.sort(aux,
+                                                 null,
+                                                 rangeLength,
+                                                 pool,
+                                                 workspace.runQueue());
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                int intervalFrom = pool.from[interval];
+                int intervalLength = pool.to[interval] - intervalFrom + 1;
+                System.arraycopy(aux, 
+                                 intervalFrom, 
+                                 array, 
+                                 arrayIndex, 
+                                 intervalLength);
+                arrayIndex += intervalLength;
+            }
+        } finally {
+            workspace.release(rangeLength);
+        }
+    }
+
+    /**
+     * Sorts the entire input {@code double} array into ascending order. The
+     * order is the one of {@link Double#compare(double, double)}, just like in
+     * {@link Arrays#sort(double[])}: {@code -0.0} precedes {@code 0.0} and 
+     * {@code NaN} values are put at the very end.
+     * 
+     * @param array the array to sort.
+     */
+    public static void sort(double[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order. The order is the one of 
+     * {@link Double#compare(double, double)}.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     */
+    public static void sort(double[] array, int fromIndex, int toIndex) {
+        sort(array, fromIndex, toIndex, SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts the entire input {@code double} array into ascending order using 
+     * the scratch memory of {@code workspace}. The order is the one of 
+     * {@link Double#compare(double, double)}.
+     * 
+     * @param array     the array to sort.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(double[] array, SortWorkspace workspace) {
         Objects.requireNonNull(array, "The input array is null.");
-        sort(array, 0, array.length);
+        sort(array, 0, array.length, workspace);
     }
 
     /**
-     * Sorts stably the input subarray {@code array[fromIndex], 
-     * array[fromIndex + 1], ..., array[toIndex - 2], array[toIndex - 1]}.
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order using 
+     * the scratch memory of {@code workspace}. The order is the one of 
+     * {@link Double#compare(double, double)}.
      * 
-     * @param <T>       the array component type.
      * @param array     the array holding the target subarray.
      * @param fromIndex the index of the leftmost array component belonging to 
      *                  the requested array range.
      * @param toIndex   the index of the largest array component in the range   
      *                  plus one.
+     * @param workspace the workspace to sort in.
      */
-    public static <T extends Comparable<? super T>> void sort(T[] array,
-                                                              int fromIndex,
-                                                              int toIndex) {
+    public static void sort(double[] array,
+                            int fromIndex, 
+                            int toIndex, 
+                            SortWorkspace workspace) {
         Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(workspace, "The input workspace is null.");
         checkIndices(array.length, fromIndex, toIndex);
 
         int rangeLength = toIndex - fromIndex;
@@ -41,463 +1761,653 @@ public final class AdaptiveMergesort {
             return; // Trivially sorted.
         }
 
-        T[] aux = Arrays.copyOfRange(array, fromIndex, toIndex);
-        RunQueue queue = new RunLengthQueueBuilder<>(aux).run();
+        workspace = workspace.acquire(rangeLength);
 
-        // Number of runs not yet processed in the current merge pass over the
-        // data:
-        int runsLeft = queue.size();
+        try {
+            long[] aux = workspace.longBuffer();
+            IntervalPool pool = workspace.intervalPool();
+            int keyCount = 0;
 
-        while (queue.size() > 1) {
-            switch (runsLeft) {
-                case 1:
-                    // Bounce the lonely leftover run back to the tail of the 
-                    // queue:
-                    queue.enqueue(queue.dequeue());
-                    // Fall through!
+            // Only the non-NaN values are keyed. The NaN values are moved 
+            // stably to the tail as they are, so that their bits are never 
+            // rebuilt out of keys:
+            for (int i = fromIndex; i < toIndex; ++i) {
+                double value = array[i];
 
-                case 0:
-                    // Get to know how many runs there is to process in the 
-                    // next merge pass:
-                    runsLeft = queue.size();
-                    continue;
+                if (value == value) {
+                    aux[keyCount++] = doubleToSortableLong(value);
+                }
             }
 
-            // Remove the first two consecutive runs, merge them and append the
-            // resulting merged run to the tail of the run queue:
-            queue.enqueue(merge(aux, queue.dequeue(), queue.dequeue()));
-            // Update the number of runs not yet processed in this merge pass:
-            runsLeft -= 2;
-        }
+            int nanIndex = toIndex;
 
-        // Put the elements in their correct positions such that the input array
-        // range becomes stabily sorted:
-        int arrayIndex = fromIndex;
+            for (int i = toIndex - 1; i >= fromIndex; --i) {
+                double value = array[i];
 
-        for (Interval interval = queue.dequeue().first; 
-                interval != null; 
-                interval = interval.next) {
-            for (int i = interval.from; i <= interval.to; ++i) {
-                array[arrayIndex++] = aux[i];
+                if (value != value) {
+                    array[--nanIndex] = value;
+                }
             }
-        }
-    }
 
-    private static <T extends Comparable<? super T>> Run merge(T[] aux,
-                                                               Run run1, 
-                                                               Run run2) {
-        Interval headInterval1 = run1.first;
-        Interval headInterval2 = run2.first;
-        Interval mergedRunHead = null;
-        Interval mergedRunTail = null;
-
-        // While both the left and right runs have intervals to offer, do:
-        while (headInterval1 != null && headInterval2 != null) {
-            T head1 = aux[headInterval1.from];
-            T head2 = aux[headInterval2.from];
-
-            if (head1.compareTo(head2) <= 0) {
-                T tail1 = aux[headInterval1.to];
-
-                if (tail1.compareTo(head2) <= 0) {
-                    // Easy case, just append one interval to the other:
-                    if (mergedRunHead == null) {
-                        mergedRunHead = headInterval1;
-                        mergedRunTail = headInterval1;
-                    } else {
-                        mergedRunTail.next = headInterval1;
-                        headInterval1.prev = mergedRunTail;
-                        mergedRunTail = headInterval1;
-                    }
-
-                    headInterval1 = headInterval1.next;
-                    continue;
+            if (keyCount < 2) {
+                if (keyCount == 1) {
+                    array[fromIndex] = sortableLongToDouble(aux[0]);
                 }
 
-                // Cannot append. We need to split the left interval:
-                int index = findUpperBound(aux,
-                                           headInterval1.from,
-                                           headInterval1.to + 1,
-                                           head2);
-
-                Interval newInterval = new Interval(headInterval1.from,
-                                                    index - 1);
-
-                // Remove some head elements from first interval:
-                headInterval1.from = index;
-
-                // Append a split interval to the tail of the merged run:
-                if (mergedRunHead == null) {
-                    mergedRunHead = newInterval;
-                    mergedRunTail = newInterval;
-                } else {
-                    mergedRunTail.next = newInterval;
-                    newInterval.prev = mergedRunTail;
-                    mergedRunTail = newInterval;
-                }
-            } else {
-                T tail2 = aux[headInterval2.to];
-
-                if (tail2.compareTo(head1) < 0) {
-                    // Easy case, just append one interval to the other:
-                    if (mergedRunHead == null) {
-                        mergedRunHead = headInterval2;
-                        mergedRunTail = headInterval2;
-                    } else {
-                        mergedRunTail.next = headInterval2;
-                        headInterval2.prev = mergedRunTail;
-                        mergedRunTail = headInterval2;
-                    }
-
-                    headInterval2 = headInterval2.next;
-                    continue;
-                }
+                return;
+            }
 
-                // Cannot append. We need to split the right interval:
-                int index = findLowerBound(aux, 
-                                           headInterval2.from,
-                                           headInterval2.to + 1,
-                                           head1);
-
-                Interval newInterval = new Interval(headInterval2.from,
-                                                    index - 1);
-
-                // Remove some head elements from second interval:
-                headInterval2.from = index; 
-
-                // Append a split interval to the tail of the merge run:
-                if (mergedRunHead == null) {
-                    mergedRunHead = newInterval;
-                    mergedRunTail = newInterval;
-                } else {
-                    mergedRunTail.next = newInterval;
-                    newInterval.prev = mergedRunTail;
-                    mergedRunTail = newInterval;
+            int run = LongAdaptiveMergesort.sort(aux,
+                                                 null,
+                                                 keyCount,
+                                                 pool,
+                                                 workspace.runQueue());
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                for (int i = pool.from[interval]; i <= pool.to[interval]; ++i) {
+                    array[arrayIndex++] = sortableLongToDouble(aux[i]);
                 }
             }
+        } finally {
+            workspace.release(rangeLength);
         }
+    }
+
+    /**
+     * Sorts the entire input {@code float} array into ascending order. The
+     * order is the one of {@link Float#compare(float, float)}, just like in
+     * {@link Arrays#sort(float[])}: {@code -0.0f} precedes {@code 0.0f} and 
+     * {@code NaN} values are put at the very end.
+     * 
+     * @param array the array to sort.
+     */
+    public static void sort(float[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length);
+    }
 
-        // Append the leftover intervals of a currently non-empty run to the
-        // tail of the merged run:
-        mergedRunTail.next = headInterval1 != null ? headInterval1 :
-                                                     headInterval2;
-        mergedRunTail.next.prev = mergedRunTail;
-        mergedRunTail = mergedRunTail.next;
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order. The order is the one of 
+     * {@link Float#compare(float, float)}.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     */
+    public static void sort(float[] array, int fromIndex, int toIndex) {
+        sort(array, fromIndex, toIndex, SortWorkspace.singleUse());
+    }
 
-        // Reuse 'run1' in order not to abuse the heap memory too often:
-        run1.first = mergedRunHead;
-        run1.last = mergedRunTail;
-        return run1;
+    /**
+     * Sorts the entire input {@code float} array into ascending order using 
+     * the scratch memory of {@code workspace}. The order is the one of 
+     * {@link Float#compare(float, float)}.
+     * 
+     * @param array     the array to sort.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(float[] array, SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, workspace);
     }
 
-    private static void checkIndices(int arrayLength, 
-                                     int fromIndex, 
-                                     int toIndex) {
-        if (fromIndex > toIndex) {
-            throw new IllegalArgumentException(
-                    "fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
-        }
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order using 
+     * the scratch memory of {@code workspace}. The order is the one of 
+     * {@link Float#compare(float, float)}.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(float[] array,
+                            int fromIndex, 
+                            int toIndex, 
+                            SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        checkIndices(array.length, fromIndex, toIndex);
 
-        if (fromIndex < 0) {
-            throw new ArrayIndexOutOfBoundsException(
-                    "fromIndex = " + fromIndex);
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
         }
 
-        if (toIndex > arrayLength) {
-            throw new ArrayIndexOutOfBoundsException(
-                    "toIndex = " + toIndex);
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            int[] aux = workspace.intBuffer();
+            IntervalPool pool = workspace.intervalPool();
+            int keyCount = 0;
+
+            // Only the non-NaN values are keyed. The NaN values are moved 
+            // stably to the tail as they are, so that their bits are never 
+            // rebuilt out of keys:
+            for (int i = fromIndex; i < toIndex; ++i) {
+                float value = array[i];
+
+                if (value == value) {
+                    aux[keyCount++] = floatToSortableInt(value);
+                }
+            }
+
+            int nanIndex = toIndex;
+
+            for (int i = toIndex - 1; i >= fromIndex; --i) {
+                float value = array[i];
+
+                if (value != value) {
+                    array[--nanIndex] = value;
+                }
+            }
+
+            if (keyCount < 2) {
+                if (keyCount == 1) {
+                    array[fromIndex] = sortableIntToFloat(aux[0]);
+                }
+
+                return;
+            }
+
+            int run = IntAdaptiveMergesort.sort(aux,
+                                                null,
+                                                keyCount,
+                                                pool,
+                                                workspace.runQueue());
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                for (int i = pool.from[interval]; i <= pool.to[interval]; ++i) {
+                    array[arrayIndex++] = sortableIntToFloat(aux[i]);
+                }
+            }
+        } finally {
+            workspace.release(rangeLength);
         }
     }
 
     /**
-     * This class represents a sorted ascending interval. In other words,
-     * {@code aux[from], ..., aux[to]} is a sorted ascending sequence (block).
+     * Sorts the entire input {@code short} array into ascending order.
+     * 
+     * @param array the array to sort.
      */
-    private static final class Interval {
-        int from;
-        int to;
-        Interval prev;
-        Interval next;
-
-        Interval(int from, int to) {
-            this.from = from;
-            this.to = to;
-        }
+    public static void sort(short[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length);
     }
 
     /**
-     * Run represents a doubly-linked list of intervals such that the list
-     * represents a sorted run.
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
      */
-    private static final class Run {
-        Interval first;
-        Interval last;
+    public static void sort(short[] array, int fromIndex, int toIndex) {
+        sort(array, fromIndex, toIndex, SortWorkspace.singleUse());
+    }
 
-        Run(int from, int to) {
-            first = new Interval(from, to);
-            last = first;
-        }
+    /**
+     * Sorts the entire input {@code short} array into ascending order using
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array to sort.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(short[] array, SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, workspace);
     }
 
     /**
-     * This class holds a queue of runs yet to merge.
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order using 
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     * @param workspace the workspace to sort in.
      */
-    private static final class RunQueue {
+    public static void sort(short[] array,
+                            int fromIndex, 
+                            int toIndex, 
+                            SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        checkIndices(array.length, fromIndex, toIndex);
 
-        private final Run[] runArray;
-        // Used for bit level modulo arithmetic. Instead of
-        // 'index % runArray.length' we can write 'index & mask'.
-        private final int mask; 
-        private int head;
-        private int tail;
-        private int size;
+        int rangeLength = toIndex - fromIndex;
 
-        RunQueue(int capacity) {
-            capacity = ceilCapacityToPowerOfTwo(capacity);
-            this.mask = capacity - 1;
-            this.runArray = new Run[capacity];
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
         }
 
-        void enqueue(Run run) {
-            runArray[tail] = run;
-            tail = (tail + 1) & mask;
-            ++size;
-        }
+        workspace = workspace.acquire(rangeLength);
 
-        /**
-         * Extends the length of the tail run by {@code runLength} elements.
-         * 
-         * @param runLength the number of elements to add to the tail run.
-         */
-        void addToLastRun(int runLength) {
-            runArray[(tail - 1) & mask].first.to += runLength;
-        }
+        try {
+            int[] aux = workspace.intBuffer();
+            IntervalPool pool = workspace.intervalPool();
 
-        Run dequeue() {
-            Run run = runArray[head];
-            head = (head + 1) & mask;
-            --size;
-            return run;
-        }
+            for (int i = 0; i < rangeLength; ++i) {
+                aux[i] = array[fromIndex + i];
+            }
 
-        int size() {
-            return size;
+            int run = IntAdaptiveMergesort.sort(aux,
+                                                null,
+                                                rangeLength,
+                                                pool,
+                                                workspace.runQueue());
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                for (int i = pool.from[interval]; i <= pool.to[interval]; ++i) {
+                    array[arrayIndex++] = (short) aux[i];
+                }
+            }
+        } finally {
+            workspace.release(rangeLength);
         }
+    }
 
-        /**
-         * If {@code capacity} is not a power of two, this method ceils it up 
-         * towards the smallest power of two no less than {@code capacity}.
-         * 
-         * @param capacity the candidate capacity.
-         * @return a smallest power of two no less than {@code capacity}.
-         */
-        private static int ceilCapacityToPowerOfTwo(int capacity) {
-            int ret = Integer.highestOneBit(capacity);
-            return ret != capacity ? ret << 1 : ret;
-        }
+    /**
+     * Sorts the entire input {@code char} array into ascending order.
+     * 
+     * @param array the array to sort.
+     */
+    public static void sort(char[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     */
+    public static void sort(char[] array, int fromIndex, int toIndex) {
+        sort(array, fromIndex, toIndex, SortWorkspace.singleUse());
+    }
+
+    /**
+     * Sorts the entire input {@code char} array into ascending order using
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array to sort.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(char[] array, SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, workspace);
     }
 
-    private static final class 
-            RunLengthQueueBuilder<T extends Comparable<? super T>> {
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order using 
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(char[] array,
+                            int fromIndex, 
+                            int toIndex, 
+                            SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        checkIndices(array.length, fromIndex, toIndex);
 
-        private final RunQueue queue;
-        private final T[] array;
-        private int head;
-        private int left;
-        private int right;
-        private final int last;
-        private boolean previousRunWasDesending;
+        int rangeLength = toIndex - fromIndex;
 
-        RunLengthQueueBuilder(T[] array) {
-            this.queue = new RunQueue((array.length >>> 1) + 1);
-            this.array = array;
-            this.left  = 0;
-            this.right = 1;
-            this.last  = array.length - 1;
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
         }
 
-        RunQueue run() {
-            while (left < last) {
-                head = left;
+        workspace = workspace.acquire(rangeLength);
 
-                if (array[left++].compareTo(array[right++]) <= 0) {
-                    // The next run is ascending:
-                    scanAscendingRun();
-                } else {
-                    // The next run is descending:
-                    scanDescendingRun();
-                }
+        try {
+            int[] aux = workspace.intBuffer();
+            IntervalPool pool = workspace.intervalPool();
 
-                ++left;
-                ++right;
+            for (int i = 0; i < rangeLength; ++i) {
+                aux[i] = array[fromIndex + i];
             }
 
-            if (left == last) {
-                // Deal with a single element run at the very tail of the input
-                // array range:
-                if (array[last - 1].compareTo(array[last]) <= 0) {
-                    queue.addToLastRun(1);
-                } else {
-                    queue.enqueue(new Run(left, left));
+            int run = IntAdaptiveMergesort.sort(aux,
+                                                null,
+                                                rangeLength,
+                                                pool,
+                                                workspace.runQueue());
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                for (int i = pool.from[interval]; i <= pool.to[interval]; ++i) {
+                    array[arrayIndex++] = (char) aux[i];
                 }
             }
-
-            return queue;
+        } finally {
+            workspace.release(rangeLength);
         }
+    }
 
-        void scanAscendingRun() {
-            while (left < last && array[left].compareTo(array[right]) <= 0) {
-                ++left;
-                ++right;
-            }
+    /**
+     * Sorts the entire input {@code byte} array into ascending order.
+     * 
+     * @param array the array to sort.
+     */
+    public static void sort(byte[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length);
+    }
 
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     */
+    public static void sort(byte[] array, int fromIndex, int toIndex) {
+        sort(array, fromIndex, toIndex, SortWorkspace.singleUse());
+    }
 
-            if (previousRunWasDesending) {
-                if (array[head - 1].compareTo(array[head]) <= 0) {
-                    // We can just extend the previous run:
-                    queue.addToLastRun(right - head);
-                } else {
-                    queue.enqueue(new Run(head, left));
-                }
-            } else {
-                queue.enqueue(new Run(head, left));
-            }
+    /**
+     * Sorts the entire input {@code byte} array into ascending order using
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array to sort.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(byte[] array, SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        sort(array, 0, array.length, workspace);
+    }
+
+    /**
+     * Sorts the input subarray {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} into ascending order using 
+     * the scratch memory of {@code workspace}.
+     * 
+     * @param array     the array holding the target subarray.
+     * @param fromIndex the index of the leftmost array component belonging to 
+     *                  the requested array range.
+     * @param toIndex   the index of the largest array component in the range   
+     *                  plus one.
+     * @param workspace the workspace to sort in.
+     */
+    public static void sort(byte[] array,
+                            int fromIndex, 
+                            int toIndex, 
+                            SortWorkspace workspace) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(workspace, "The input workspace is null.");
+        checkIndices(array.length, fromIndex, toIndex);
 
-            previousRunWasDesending = false;
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
         }
 
-        void scanDescendingRun() {
-            while (left < last && array[left].compareTo(array[right]) > 0) {
-                ++left;
-                ++right;
-            }
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            int[] aux = workspace.intBuffer();
+            IntervalPool pool = workspace.intervalPool();
 
-            reverseRun(array, head, left);
+            for (int i = 0; i < rangeLength; ++i) {
+                aux[i] = array[fromIndex + i];
+            }
 
-            if (previousRunWasDesending) {
-                if (array[head - 1].compareTo(array[head]) <= 0) {
-                    // We can just extend the previous run:
-                    queue.addToLastRun(right - head);
-                } else {
-                    queue.enqueue(new Run(head, left));
+            int run = IntAdaptiveMergesort.sort(aux,
+                                                null,
+                                                rangeLength,
+                                                pool,
+                                                workspace.runQueue());
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                for (int i = pool.from[interval]; i <= pool.to[interval]; ++i) {
+                    array[arrayIndex++] = (byte) aux[i];
                 }
-            } else {
-                queue.enqueue(new Run(head, left));
             }
+        } finally {
+            workspace.release(rangeLength);
+        }
+    }
+
+    /**
+     * Sorts stably the fixed-width records between the position and the limit 
+     * of {@code buffer}. The records are sorted in an auxiliary buffer 
+     * that is off-heap if {@code buffer} is direct, so sorting a direct 
+     * buffer allocates nothing per record on the heap. The position, limit 
+     * and byte order of {@code buffer} are left intact.
+     * 
+     * @param buffer       the buffer holding the records. The number of bytes
+     *                     remaining in it must be a multiple of 
+     *                     {@code recordLength}.
+     * @param recordLength the length of a record in bytes.
+     * @param comparator   the comparator defining the order of the records, 
+     *                     such as a {@link RecordKey}.
+     */
+    public static void sortRecords(ByteBuffer buffer,
+                                   int recordLength,
+                                   RecordComparator comparator) {
+        Objects.requireNonNull(buffer, "The input buffer is null.");
+        Objects.requireNonNull(comparator, "The input comparator is null.");
 
-            previousRunWasDesending = true;
+        if (recordLength < 1) {
+            throw new IllegalArgumentException(
+                    "recordLength(" + recordLength + ") < 1");
         }
 
-        private void reverseRun(T[] array, int i, int j) {
-            for (; i < j; ++i, --j) {
-                T tmp = array[i];
-                array[i] = array[j];
-                array[j] = tmp;
-            }
+        if (buffer.remaining() % recordLength != 0) {
+            throw new IllegalArgumentException(
+                    "The remaining bytes (" + buffer.remaining() + ") are " +
+                    "not a multiple of the record length (" + recordLength + 
+                    ").");
         }
+
+        RecordAdaptiveMergesort.sortRange(buffer, 
+                                          buffer.position(), 
+                                          buffer.remaining() / recordLength, 
+                                          recordLength, 
+                                          comparator,
+                                          SortWorkspace.forCurrentThread());
     }
 
     /**
-     * Returns the smallest index of an array component that does not compare 
-     * less than {@code value}. 
+     * Sorts stably the fixed-width records of the file {@code input} into the 
+     * file {@code output} with the default external sort configuration. See
+     * {@link #sortFile(Path, Path, int, RecordComparator, 
+     * ExternalSortConfiguration)}.
      * 
-     * @param <T>       the array component type.
-     * @param array     the array holding the target range.
-     * @param fromIndex the lowest index of the array range to process.
-     * @param toIndex   the largest index of the array range to process plus
-     *                  one.
-     * @param value     the target value.
-     * @return          the array index.
-     */
-    private static <T extends Comparable<? super T>> 
-        int lowerBound(T[] array, int fromIndex, int toIndex, T value) {
-        int count = toIndex - fromIndex;
-        int it;
-
-        while (count > 0) {
-            it = fromIndex;
-            int step = count >>> 1;
-            it += step;
-
-            if (array[it].compareTo(value) < 0) {
-                fromIndex = ++it;
-                count -= step + 1;
-            } else {
-                count = step;
-            }
+     * @param input        the file to sort.
+     * @param output       the file to write the sorted records into.
+     * @param recordLength the length of a record in bytes.
+     * @param comparator   the comparator defining the order of the records.
+     * @throws IOException if reading or writing a file fails.
+     */
+    public static void sortFile(Path input,
+                                Path output,
+                                int recordLength,
+                                RecordComparator comparator) 
+    throws IOException {
+        sortFile(input, 
+                 output, 
+                 recordLength, 
+                 comparator, 
+                 ExternalSortConfiguration.DEFAULT);
+    }
+
+    /**
+     * Sorts stably the fixed-width records of the file {@code input} into the 
+     * file {@code output}, which is created or overwritten, without loading
+     * more than a bounded number of records into memory. The natural runs of
+     * the input are found by a single scan; the runs at least as long as the
+     * memory limit are merged right from the input, and the rest are sorted 
+     * in memory chunk by chunk and spilled into temporary files. All the runs
+     * are then merged k-way through memory-mapped windows. A mostly sorted 
+     * file is thus read about twice and written about once.
+     * 
+     * @param input         the file to sort. Its size must be a multiple of 
+     *                      {@code recordLength}.
+     * @param output        the file to write the sorted records into. Must 
+     *                      not be {@code input}.
+     * @param recordLength  the length of a record in bytes.
+     * @param comparator    the comparator defining the order of the records.
+     * @param configuration the memory limit, fan-in and spill directory to 
+     *                      use.
+     * @throws IOException if reading or writing a file fails.
+     */
+    public static void sortFile(Path input,
+                                Path output,
+                                int recordLength,
+                                RecordComparator comparator,
+                                ExternalSortConfiguration configuration) 
+    throws IOException {
+        Objects.requireNonNull(input, "The input file is null.");
+        Objects.requireNonNull(output, "The output file is null.");
+        Objects.requireNonNull(comparator, "The input comparator is null.");
+        Objects.requireNonNull(configuration, 
+                               "The input configuration is null.");
+
+        if (recordLength < 1) {
+            throw new IllegalArgumentException(
+                    "recordLength(" + recordLength + ") < 1");
         }
 
-        return fromIndex;
+        ExternalAdaptiveMergesort.sort(input, 
+                                       output, 
+                                       recordLength, 
+                                       comparator, 
+                                       configuration);
     }
 
     /**
-     * Returns the smallest index of an array component that compares greater 
-     * than {@code value}.
-     * 
-     * @param <T>       the array component type.
-     * @param array     the array holding the target range.
-     * @param fromIndex the lowest index of the array range to process.
-     * @param toIndex   the largest index of the array range to process plus
-     *                  one.
-     * @param value     the target value.
-     * @return          the array index.
-     */
-    private static <T extends Comparable<? super T>>
-        int upperBound(T[] array, int fromIndex, int toIndex, T value) {
-        int count = toIndex - fromIndex;
-        int it;
-
-        while (count > 0) {
-            it = fromIndex; 
-            int step = count >>> 1;
-            it += step;
-
-            if (array[it].compareTo(value) <= 0) {
-                fromIndex = ++it;
-                count -= step + 1;
-            } else {
-                count = step;
+     * Returns the comparator the engines should sort with, reading 
+     * {@code null} as the natural ordering.
+     */
+    @SuppressWarnings("unchecked")
+    private static Comparator<Object> toObjectComparator(
+            Comparator<?> comparator) {
+        return comparator == null ? 
+               ObjectAdaptiveMergesort.NATURAL_ORDER : 
+               (Comparator<Object>) comparator;
+    }
+
+    private static void checkArrays(Object[][] arrays) {
+        Objects.requireNonNull(arrays, "The input arrays are null.");
+
+        for (int i = 0; i < arrays.length; ++i) {
+            if (arrays[i] == null) {
+                throw new NullPointerException(
+                        "The input array at index " + i + " is null.");
             }
         }
+    }
+
+    private static void checkBoundaries(Object[] array, int[] boundaries) {
+        Objects.requireNonNull(array, "The input array is null.");
+        Objects.requireNonNull(boundaries, "The input boundaries are null.");
 
-        return fromIndex;
+        for (int i = 0; i + 1 < boundaries.length; ++i) {
+            checkIndices(array.length, boundaries[i], boundaries[i + 1]);
+        }
     }
 
-    private static <T extends Comparable<? super T>> 
-        int findLowerBound(T[] array, int fromIndex, int toIndex, T value) {
-        int bound = 1;
-        int rangeLength = toIndex - fromIndex;
+    private static void checkIndices(int arrayLength, 
+                                     int fromIndex, 
+                                     int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException(
+                    "fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "fromIndex = " + fromIndex);
+        }
 
-        // Do the exponential search in order to find faster the array subrange
-        // that might contain 'value':
-        while (bound < rangeLength &&
-                array[bound + fromIndex].compareTo(value) < 0) {
-            bound <<= 1;
+        if (toIndex > arrayLength) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "toIndex = " + toIndex);
         }
+    }
+
+    /**
+     * Maps {@code value} to a {@code long} key such that comparing two keys as
+     * signed {@code long} values gives the same result as 
+     * {@link Double#compare(double, double)} on the original values. All 
+     * {@code NaN} values are collapsed into the canonical one, which has its 
+     * sign bit cleared, so that they get the same key sorting after positive
+     * infinity.
+     * 
+     * @param value the value to map.
+     * @return the sortable key of {@code value}.
+     */
+    private static long doubleToSortableLong(double value) {
+        long bits = Double.doubleToLongBits(value);
 
-        // The containing range found. Now search in it with binary search:
-        return lowerBound(array, 
-                          fromIndex + (bound >>> 1), 
-                          Math.min(toIndex, fromIndex + bound), 
-                          value);
+        // Negative values are ordered reversely by their bit patterns, flip
+        // all the bits but the sign bit:
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
     }
 
-    private static <T extends Comparable<? super T>> 
-        int findUpperBound(T[] array, int fromIndex, int toIndex, T value) {
-        int bound = 1;
-        int rangeLength = toIndex - fromIndex;
+    private static double sortableLongToDouble(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+    }
 
-        // Do the exponential search in order to find faster the array subrange
-        // that might contain 'value':
-        while (bound < rangeLength 
-                && array[bound + fromIndex].compareTo(value) < 0) {
-            bound <<= 1;
-        }
+    /**
+     * Maps the non-NaN {@code value} to an {@code int} key such that 
+     * comparing two keys as signed {@code int} values gives the same result 
+     * as {@link Float#compare(float, float)} on the original values.
+     * 
+     * @param value the value to map.
+     * @return the sortable key of {@code value}.
+     */
+    private static int floatToSortableInt(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
 
-        // The containing range found. Now search in it with binary search:
-        return upperBound(array, 
-                          fromIndex + (bound >>> 1), 
-                          Math.min(toIndex, fromIndex + bound),
-                          value);
+    private static float sortableIntToFloat(int key) {
+        return Float.intBitsToFloat(key ^ ((key >> 31) & Integer.MAX_VALUE));
     }
 }
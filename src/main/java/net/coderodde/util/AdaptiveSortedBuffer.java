@@ -0,0 +1,494 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * This class implements a buffer that keeps growing by batches of elements
+ * and hands its contents out in stably sorted order. Each appended batch is
+ * split into its natural runs, which are pushed onto a stack of sorted runs
+ * partitioning the buffer. A run continuing the run on top of the stack in
+ * order is joined to it for free. Otherwise, the runs on top of the stack are
+ * merged as soon as their lengths break the invariants of
+ * {@link MergePolicy#STACK}; this keeps the stack logarithmically short and
+ * makes every element take part in at most a logarithmic number of merges
+ * over the lifetime of the buffer. The rest of the runs are merged only when
+ * the sorted contents are queried.
+ * <p>
+ * The elements added one at a time extend the run at the end of the buffer
+ * for as long as they keep it ascending or strictly descending, just as the 
+ * runs of a batch are scanned; the run is pushed onto the stack, reversed if
+ * descending, once an element breaks it. Another buffer is appended by 
+ * pushing its runs as they are, so that appending a buffer whose elements 
+ * all follow the elements of this one takes no merging at all.
+ * <p>
+ * Equal elements are handed out in the order they were appended. The buffer
+ * is not thread-safe.
+ *
+ * @param <T> the element type.
+ */
+public final class AdaptiveSortedBuffer<T> implements Iterable<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_RUN_CAPACITY = 8;
+
+    private final Comparator<Object> comparator;
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    // The stack of the sorted runs partitioning elements[0], ...,
+    // elements[size - 1] from left to right:
+    private int[] runStarts = new int[INITIAL_RUN_CAPACITY];
+    private int[] runLengths = new int[INITIAL_RUN_CAPACITY];
+    private int runCount;
+
+    // The elements elements[pendingStart], ..., elements[size - 1] added one
+    // at a time and not yet pushed onto the run stack. They form a run that 
+    // is strictly descending if pendingDescending is set, and ascending 
+    // otherwise:
+    private int pendingStart;
+    private boolean pendingDescending;
+
+    // Holds the left run of a merge:
+    private Object[] mergeBuffer = new Object[0];
+
+    // Incremented by every modification in order to make the iterators fail
+    // fast:
+    private int modificationCount;
+
+    /**
+     * Constructs an empty buffer ordering its elements by their natural
+     * ordering.
+     */
+    public AdaptiveSortedBuffer() {
+        this(null);
+    }
+
+    /**
+     * Constructs an empty buffer ordering its elements by
+     * {@code comparator}. A {@code null} comparator stands for the natural
+     * ordering of the elements.
+     *
+     * @param comparator the comparator defining the order.
+     */
+    @SuppressWarnings("unchecked")
+    public AdaptiveSortedBuffer(Comparator<? super T> comparator) {
+        this.comparator = comparator == null ?
+                          ObjectAdaptiveMergesort.NATURAL_ORDER :
+                          (Comparator<Object>) comparator;
+    }
+
+    /**
+     * Appends {@code element} to this buffer.
+     *
+     * @param element the element to append.
+     */
+    public void add(T element) {
+        int pendingLength = size - pendingStart;
+
+        if (pendingLength > 0) {
+            int cmp = comparator.compare(elements[size - 1], element);
+
+            if (pendingLength == 1) {
+                pendingDescending = cmp > 0;
+            } else if (pendingDescending ? cmp <= 0 : cmp > 0) {
+                // The element breaks the pending run:
+                pushPendingRun();
+            }
+        }
+
+        ensureCapacity(size + 1);
+        elements[size++] = element;
+        ++modificationCount;
+    }
+
+    /**
+     * Appends all the elements of {@code buffer} to this buffer in their 
+     * sorted order. The runs of {@code buffer} are pushed onto the run stack
+     * of this buffer as they are, without merging them first. Both buffers
+     * must order their elements the same way. {@code buffer} itself is left
+     * intact, save for pushing its pending run, and may be this buffer.
+     *
+     * @param buffer the buffer whose elements to append.
+     */
+    public void addAll(AdaptiveSortedBuffer<? extends T> buffer) {
+        Objects.requireNonNull(buffer, "The input buffer is null.");
+        pushPendingRun();
+        buffer.pushPendingRun();
+
+        int bufferSize = buffer.size;
+
+        if (bufferSize == 0) {
+            return;
+        }
+
+        // Take a snapshot first, since 'buffer' may be this buffer:
+        int[] bufferRunStarts = Arrays.copyOf(buffer.runStarts, 
+                                              buffer.runCount);
+        int[] bufferRunLengths = Arrays.copyOf(buffer.runLengths, 
+                                               buffer.runCount);
+        int offset = size;
+
+        ensureCapacity(size + bufferSize);
+        System.arraycopy(buffer.elements, 0, elements, offset, bufferSize);
+        size += bufferSize;
+        pendingStart = size;
+        ++modificationCount;
+
+        for (int i = 0; i < bufferRunStarts.length; ++i) {
+            pushRun(offset + bufferRunStarts[i], bufferRunLengths[i]);
+        }
+    }
+
+    /**
+     * Appends all the elements of {@code batch} to this buffer.
+     *
+     * @param batch the elements to append.
+     */
+    public void append(T[] batch) {
+        Objects.requireNonNull(batch, "The input batch is null.");
+        ensureCapacity(size + batch.length);
+        System.arraycopy(batch, 0, elements, size, batch.length);
+        addRuns(size, size + batch.length);
+    }
+
+    /**
+     * Appends all the elements of {@code batch} to this buffer in iteration
+     * order.
+     *
+     * @param batch the elements to append.
+     */
+    public void append(Iterable<? extends T> batch) {
+        Objects.requireNonNull(batch, "The input batch is null.");
+        int batchStart = size;
+        int batchEnd = size;
+
+        for (T element : batch) {
+            ensureCapacity(batchEnd + 1);
+            elements[batchEnd++] = element;
+        }
+
+        addRuns(batchStart, batchEnd);
+    }
+
+    /**
+     * Returns the number of elements in this buffer.
+     *
+     * @return the number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this buffer contains no elements.
+     *
+     * @return {@code true} if this buffer is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of sorted runs the buffer currently consists of.
+     *
+     * @return the number of runs.
+     */
+    public int getRunCount() {
+        return size > pendingStart ? runCount + 1 : runCount;
+    }
+
+    /**
+     * Returns the element at position {@code index} of the sorted order. The
+     * first query after an append merges all the runs.
+     *
+     * @param index the position of the element in the sorted order.
+     * @return the element at the given position.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") is out of bounds [0, " + size +
+                    ")");
+        }
+
+        mergeAll();
+        return (T) elements[index];
+    }
+
+    /**
+     * Returns an iterator over the elements in sorted order. The iterator
+     * fails fast if the buffer is modified.
+     *
+     * @return an iterator over the sorted elements.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        mergeAll();
+        return new BufferIterator();
+    }
+
+    /**
+     * Returns a new array holding the elements in sorted order.
+     *
+     * @return the sorted elements.
+     */
+    public Object[] toArray() {
+        mergeAll();
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Copies the elements in sorted order into {@code array} if it is long
+     * enough, and into a new array of the same runtime type otherwise.
+     *
+     * @param <E>   the component type of the array.
+     * @param array the array to copy the elements into.
+     * @return the array holding the sorted elements.
+     */
+    @SuppressWarnings("unchecked")
+    public <E> E[] toArray(E[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+        mergeAll();
+
+        if (array.length < size) {
+            return (E[]) Arrays.copyOf(elements, size, array.getClass());
+        }
+
+        System.arraycopy(elements, 0, array, 0, size);
+
+        if (array.length > size) {
+            array[size] = null;
+        }
+
+        return array;
+    }
+
+    /**
+     * Removes all the elements from this buffer.
+     */
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+        runCount = 0;
+        pendingStart = 0;
+        ++modificationCount;
+    }
+
+    /**
+     * Pushes the natural runs of the freshly appended elements
+     * {@code elements[fromIndex], ..., elements[toIndex - 1]} onto the run
+     * stack.
+     */
+    private void addRuns(int fromIndex, int toIndex) {
+        int batchLength = toIndex - fromIndex;
+
+        if (batchLength == 0) {
+            return;
+        }
+
+        pushPendingRun();
+        size = toIndex;
+        pendingStart = toIndex;
+        ++modificationCount;
+
+        if (batchLength == 1) {
+            pushRun(fromIndex, 1);
+            return;
+        }
+
+        SortWorkspace workspace =
+                SortWorkspace.forCurrentThread().acquire(batchLength);
+
+        try {
+            IntervalPool pool = workspace.intervalPool();
+            RunQueue queue = workspace.runQueue();
+            ObjectAdaptiveMergesort.buildRuns(elements,
+                                              fromIndex,
+                                              toIndex,
+                                              pool,
+                                              queue,
+                                              comparator);
+
+            while (queue.size() > 0) {
+                int interval = queue.dequeue();
+                pushRun(pool.from[interval],
+                        pool.to[interval] - pool.from[interval] + 1);
+            }
+        } finally {
+            workspace.release(batchLength);
+        }
+    }
+
+    /**
+     * Pushes the run of the elements added one at a time onto the run stack,
+     * if there is one.
+     */
+    private void pushPendingRun() {
+        int runStart = pendingStart;
+        int runLength = size - runStart;
+
+        if (runLength == 0) {
+            return;
+        }
+
+        if (pendingDescending) {
+            for (int i = runStart, j = size - 1; i < j; ++i, --j) {
+                Object tmp = elements[i];
+                elements[i] = elements[j];
+                elements[j] = tmp;
+            }
+
+            pendingDescending = false;
+        }
+
+        pendingStart = size;
+        pushRun(runStart, runLength);
+    }
+
+    private void pushRun(int runStart, int runLength) {
+        if (runCount > 0
+                && comparator.compare(elements[runStart - 1],
+                                      elements[runStart]) <= 0) {
+            // The run continues the top run:
+            runLengths[runCount - 1] += runLength;
+        } else {
+            if (runCount == runStarts.length) {
+                runStarts = Arrays.copyOf(runStarts, 2 * runCount);
+                runLengths = Arrays.copyOf(runLengths, 2 * runCount);
+            }
+
+            runStarts[runCount] = runStart;
+            runLengths[runCount] = runLength;
+            ++runCount;
+        }
+
+        // Restore the invariants runLengths[i - 2] > runLengths[i - 1] +
+        // runLengths[i] and runLengths[i - 1] > runLengths[i]:
+        while (runCount > 1) {
+            int n = runCount - 2;
+
+            if (n > 0 && runLengths[n - 1] <= runLengths[n] + runLengths[n + 1]
+                    || n > 1 &&
+                       runLengths[n - 2] <= runLengths[n - 1] + runLengths[n]) {
+                if (runLengths[n - 1] < runLengths[n + 1]) {
+                    --n;
+                }
+            } else if (runLengths[n] > runLengths[n + 1]) {
+                break;
+            }
+
+            mergeAt(n);
+        }
+    }
+
+    private void mergeAll() {
+        pushPendingRun();
+
+        while (runCount > 1) {
+            int n = runCount - 2;
+
+            if (n > 0 && runLengths[n - 1] < runLengths[n + 1]) {
+                --n;
+            }
+
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Merges the runs {@code i} and {@code i + 1} of the run stack.
+     */
+    private void mergeAt(int i) {
+        int fromIndex = runStarts[i];
+        int middleIndex = runStarts[i + 1];
+        int toIndex = middleIndex + runLengths[i + 1];
+
+        runLengths[i] += runLengths[i + 1];
+
+        if (i == runCount - 3) {
+            runStarts[i + 1] = runStarts[i + 2];
+            runLengths[i + 1] = runLengths[i + 2];
+        }
+
+        --runCount;
+
+        Object leftTail = elements[middleIndex - 1];
+        Object rightHead = elements[middleIndex];
+
+        if (comparator.compare(leftTail, rightHead) <= 0) {
+            // The runs are already in order:
+            return;
+        }
+
+        // Skip the elements that are already in their final positions:
+        fromIndex = ObjectAdaptiveMergesort.findUpperBound(elements,
+                                                           fromIndex,
+                                                           middleIndex,
+                                                           rightHead,
+                                                           comparator);
+
+        toIndex = ObjectAdaptiveMergesort.findLowerBound(elements,
+                                                         middleIndex,
+                                                         toIndex,
+                                                         leftTail,
+                                                         comparator);
+
+        int leftLength = middleIndex - fromIndex;
+
+        if (mergeBuffer.length < leftLength) {
+            mergeBuffer = new Object[Math.max(leftLength,
+                                              2 * mergeBuffer.length)];
+        }
+
+        ObjectAdaptiveMergesort.mergeAdjacentRuns(elements,
+                                                  mergeBuffer,
+                                                  0,
+                                                  fromIndex,
+                                                  middleIndex,
+                                                  toIndex,
+                                                  comparator);
+
+        // Do not keep the merged elements reachable:
+        Arrays.fill(mergeBuffer, 0, leftLength, null);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            elements = Arrays.copyOf(elements,
+                                     Math.max(capacity,
+                                              elements.length +
+                                              (elements.length >> 1)));
+        }
+    }
+
+    private final class BufferIterator implements Iterator<T> {
+
+        private final int expectedModificationCount = modificationCount;
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (modificationCount != expectedModificationCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (index >= size) {
+                throw new NoSuchElementException("The buffer is exhausted.");
+            }
+
+            return (T) elements[index++];
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package net.coderodde.util;
+
+import java.util.Comparator;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class implements the sorts of many short ranges at once: the 
+ * components of an array of arrays, or the slices of one array delimited by 
+ * a list of boundaries. All the ranges of a batch share the scratch memory 
+ * of a single workspace, and the ranges not longer than 
+ * {@link #INSERTION_SORT_THRESHOLD} are sorted in place by insertion sort, 
+ * skipping the copying, run building and merging machinery altogether. The
+ * parallel variants hand contiguous groups of ranges to the common 
+ * {@link java.util.concurrent.ForkJoinPool}, each worker sorting in its own
+ * thread-local workspace.
+ */
+final class BatchAdaptiveMergesort {
+
+    /**
+     * The length of the longest range sorted by insertion sort.
+     */
+    static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private BatchAdaptiveMergesort() {}
+
+    /**
+     * Sorts a contiguous group of the ranges of a batch.
+     */
+    private interface Batch {
+
+        /**
+         * Returns the length of range {@code range}.
+         *
+         * @param range the index of the range.
+         * @return the length of the range.
+         */
+        int length(int range);
+
+        /**
+         * Sorts the ranges {@code fromRange, ..., toRange - 1}.
+         *
+         * @param fromRange the index of the first range to sort.
+         * @param toRange   the index of the last range to sort plus one.
+         * @param workspace the workspace to sort in.
+         */
+        void sort(int fromRange, int toRange, SortWorkspace workspace);
+    }
+
+    /**
+     * Sorts stably each of the arrays in {@code arrays}. The arguments are 
+     * assumed to be valid.
+     *
+     * @param arrays     the arrays to sort.
+     * @param comparator the comparator defining the order.
+     * @param workspace  the workspace to sort in.
+     */
+    static void sortAll(Object[][] arrays,
+                        Comparator<Object> comparator,
+                        SortWorkspace workspace) {
+        sortAll(arrays, 0, arrays.length, comparator, workspace);
+    }
+
+    /**
+     * Sorts stably each slice {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]}. The arguments are assumed to be valid.
+     *
+     * @param array      the array holding the slices.
+     * @param boundaries the non-decreasing boundaries of the slices.
+     * @param comparator the comparator defining the order.
+     * @param workspace  the workspace to sort in.
+     */
+    static void sortRanges(Object[] array,
+                           int[] boundaries,
+                           Comparator<Object> comparator,
+                           SortWorkspace workspace) {
+        sortRanges(array, 
+                   boundaries, 
+                   0, 
+                   boundaries.length - 1, 
+                   comparator, 
+                   workspace);
+    }
+
+    /**
+     * Sorts stably each of the arrays in {@code arrays} in parallel. The 
+     * arguments are assumed to be valid.
+     *
+     * @param arrays     the arrays to sort.
+     * @param comparator the comparator defining the order.
+     * @param threshold  the number of elements worth a task of its own.
+     */
+    static void parallelSortAll(Object[][] arrays,
+                                Comparator<Object> comparator,
+                                int threshold) {
+        parallelSort(new Batch() {
+                         @Override
+                         public int length(int range) {
+                             return arrays[range].length;
+                         }
+
+                         @Override
+                         public void sort(int fromRange,
+                                          int toRange,
+                                          SortWorkspace workspace) {
+                             sortAll(arrays,
+                                     fromRange,
+                                     toRange,
+                                     comparator,
+                                     workspace);
+                         }
+                     },
+                     arrays.length,
+                     threshold);
+    }
+
+    /**
+     * Sorts stably each slice {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]} in parallel. The arguments are assumed to
+     * be valid.
+     *
+     * @param array      the array holding the slices.
+     * @param boundaries the non-decreasing boundaries of the slices.
+     * @param comparator the comparator defining the order.
+     * @param threshold  the number of elements worth a task of its own.
+     */
+    static void parallelSortRanges(Object[] array,
+                                   int[] boundaries,
+                                   Comparator<Object> comparator,
+                                   int threshold) {
+        parallelSort(new Batch() {
+                         @Override
+                         public int length(int range) {
+                             return boundaries[range + 1] - boundaries[range];
+                         }
+
+                         @Override
+                         public void sort(int fromRange,
+                                          int toRange,
+                                          SortWorkspace workspace) {
+                             sortRanges(array,
+                                        boundaries,
+                                        fromRange,
+                                        toRange,
+                                        comparator,
+                                        workspace);
+                         }
+                     },
+                     Math.max(0, boundaries.length - 1),
+                     threshold);
+    }
+
+    private static void sortAll(Object[][] arrays,
+                                int fromRange,
+                                int toRange,
+                                Comparator<Object> comparator,
+                                SortWorkspace workspace) {
+        for (int i = fromRange; i < toRange; ++i) {
+            sortRange(arrays[i], 
+                      0, 
+                      arrays[i].length, 
+                      comparator, 
+                      workspace);
+        }
+    }
+
+    private static void sortRanges(Object[] array,
+                                   int[] boundaries,
+                                   int fromRange,
+                                   int toRange,
+                                   Comparator<Object> comparator,
+                                   SortWorkspace workspace) {
+        for (int i = fromRange; i < toRange; ++i) {
+            sortRange(array, 
+                      boundaries[i], 
+                      boundaries[i + 1], 
+                      comparator, 
+                      workspace);
+        }
+    }
+
+    private static void sortRange(Object[] array,
+                                  int fromIndex,
+                                  int toIndex,
+                                  Comparator<Object> comparator,
+                                  SortWorkspace workspace) {
+        if (toIndex - fromIndex <= INSERTION_SORT_THRESHOLD) {
+            ObjectAdaptiveMergesort.insertionSort(array, 
+                                                  fromIndex, 
+                                                  toIndex, 
+                                                  comparator);
+        } else {
+            ObjectAdaptiveMergesort.sortRange(array, 
+                                              fromIndex, 
+                                              toIndex, 
+                                              comparator,
+                                              SortConfiguration.DEFAULT,
+                                              workspace);
+        }
+    }
+
+    private static void parallelSort(Batch batch, int ranges, int threshold) {
+        if (ranges > 0) {
+            new BatchTask(batch, 0, ranges, threshold).invoke();
+        }
+    }
+
+    /**
+     * Splits a group of ranges in halves by count until the group holds a 
+     * single range or no more than the threshold elements in total.
+     */
+    private static final class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -924932790101129241L;
+
+        private final Batch batch;
+        private final int fromRange;
+        private final int toRange;
+        private final int threshold;
+
+        BatchTask(Batch batch, int fromRange, int toRange, int threshold) {
+            this.batch = batch;
+            this.fromRange = fromRange;
+            this.toRange = toRange;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            long elements = 0;
+
+            for (int i = fromRange; i < toRange && elements <= threshold; ++i) {
+                elements += batch.length(i);
+            }
+
+            if (toRange - fromRange == 1 || elements <= threshold) {
+                batch.sort(fromRange, 
+                           toRange, 
+                           SortWorkspace.forCurrentThread());
+                return;
+            }
+
+            int middleRange = (fromRange + toRange) >>> 1;
+            invokeAll(new BatchTask(batch, fromRange, middleRange, threshold),
+                      new BatchTask(batch, middleRange, toRange, threshold));
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package net.coderodde.util;
+
+import java.util.Comparator;
+
+/**
+ * This class implements the adaptive mergesort of object arrays within a
+ * bounded amount of scratch memory. The natural runs are scanned in place,
+ * the descending ones reversed and the short ones extended by insertion
+ * sort, and pushed onto a stack of runs kept logarithmically short by the
+ * invariants of {@link MergePolicy#STACK}, so that no run or interval
+ * objects proportional to the input are ever allocated. Two neighbouring
+ * runs are merged through the scratch buffer if the shorter of them fits in
+ * it. Otherwise, both runs are split and their middle parts rotated past
+ * each other, after which the two resulting pairs of runs are merged
+ * recursively, the same way. The elements already in their final positions
+ * are skipped before every merge, which keeps the sort adaptive, and no
+ * merge ever lets an element pass an equal one, which keeps it stable.
+ * <p>
+ * With a scratch buffer of {@code b} elements, a merge of {@code n}
+ * elements runs in {@code O(n)} time once {@code n} is below about
+ * {@code 2b}, and in {@code O(n log(n / b))} time otherwise, so the sort
+ * degrades gracefully from {@code O(n log n)} down to
+ * {@code O(n log^2 n)} as the buffer shrinks to nothing.
+ */
+final class BoundedAdaptiveMergesort {
+
+    /**
+     * The maximum height of the run stack. The invariants of the stack make
+     * the run lengths grow at least as fast as the Fibonacci numbers from
+     * the top down, so no range of an array needs more.
+     */
+    private static final int MAXIMUM_STACK_SIZE = 64;
+
+    private static final SortConfiguration CONFIGURATION =
+            SortConfiguration.DEFAULT.withMinimumRunLength(
+                    SortConfiguration.COMPUTED_MINIMUM_RUN_LENGTH);
+
+    private final Object[] array;
+    private final Object[] buffer;
+    private final Comparator<Object> comparator;
+    private final int[] runStarts = new int[MAXIMUM_STACK_SIZE];
+    private final int[] runLengths = new int[MAXIMUM_STACK_SIZE];
+    private int runCount;
+
+    private BoundedAdaptiveMergesort(Object[] array,
+                                     Object[] buffer,
+                                     Comparator<Object> comparator) {
+        this.array = array;
+        this.buffer = buffer;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Sorts stably the range {@code array[fromIndex], ...,
+     * array[toIndex - 1]} allocating a scratch buffer of at most
+     * {@code maximumScratchLength} elements. The arguments are assumed to be
+     * valid.
+     *
+     * @param array                the array holding the target range.
+     * @param fromIndex            the index of the first element in the
+     *                             range.
+     * @param toIndex              the index of the last element in the range
+     *                             plus one.
+     * @param comparator           the comparator defining the order.
+     * @param maximumScratchLength the maximum length of the scratch buffer.
+     *                             Zero sorts entirely in place.
+     */
+    static void sortRange(Object[] array,
+                          int fromIndex,
+                          int toIndex,
+                          Comparator<Object> comparator,
+                          int maximumScratchLength) {
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
+        }
+
+        // A merge never buffers more than half of the range:
+        Object[] buffer =
+                new Object[Math.min(maximumScratchLength, rangeLength >>> 1)];
+
+        new BoundedAdaptiveMergesort(array, buffer, comparator)
+                .sort(fromIndex, toIndex);
+    }
+
+    private void sort(int fromIndex, int toIndex) {
+        int minimumRunLength =
+                CONFIGURATION.resolveMinimumRunLength(toIndex - fromIndex);
+        int runStart = fromIndex;
+
+        while (runStart < toIndex) {
+            int runEnd = scanRun(runStart, toIndex);
+            int minimumRunEnd =
+                    Math.min(toIndex, runStart + minimumRunLength);
+
+            if (runEnd < minimumRunEnd) {
+                // Extend the short run to the minimum run length:
+                ObjectAdaptiveMergesort.insertionSort(array,
+                                                      runStart,
+                                                      minimumRunEnd,
+                                                      comparator);
+                runEnd = minimumRunEnd;
+            }
+
+            pushRun(runStart, runEnd - runStart);
+            runStart = runEnd;
+        }
+
+        while (runCount > 1) {
+            int n = runCount - 2;
+
+            if (n > 0 && runLengths[n - 1] < runLengths[n + 1]) {
+                --n;
+            }
+
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Returns the end of the run starting at {@code runStart}, reversing the
+     * run first if it is strictly descending.
+     */
+    private int scanRun(int runStart, int toIndex) {
+        int runEnd = runStart + 1;
+
+        if (runEnd == toIndex) {
+            return runEnd;
+        }
+
+        if (comparator.compare(array[runEnd++], array[runStart]) < 0) {
+            // The run is strictly descending, so reversing it keeps
+            // stability:
+            while (runEnd < toIndex
+                    && comparator.compare(array[runEnd],
+                                          array[runEnd - 1]) < 0) {
+                ++runEnd;
+            }
+
+            reverse(runStart, runEnd);
+        } else {
+            while (runEnd < toIndex
+                    && comparator.compare(array[runEnd],
+                                          array[runEnd - 1]) >= 0) {
+                ++runEnd;
+            }
+        }
+
+        return runEnd;
+    }
+
+    private void pushRun(int runStart, int runLength) {
+        runStarts[runCount] = runStart;
+        runLengths[runCount] = runLength;
+        ++runCount;
+
+        // Restore the invariants runLengths[i - 2] > runLengths[i - 1] +
+        // runLengths[i] and runLengths[i - 1] > runLengths[i]:
+        while (runCount > 1) {
+            int n = runCount - 2;
+
+            if (n > 0 && runLengths[n - 1] <= runLengths[n] + runLengths[n + 1]
+                    || n > 1 &&
+                       runLengths[n - 2] <= runLengths[n - 1] + runLengths[n]) {
+                if (runLengths[n - 1] < runLengths[n + 1]) {
+                    --n;
+                }
+            } else if (runLengths[n] > runLengths[n + 1]) {
+                break;
+            }
+
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Merges the runs {@code i} and {@code i + 1} of the run stack.
+     */
+    private void mergeAt(int i) {
+        int fromIndex = runStarts[i];
+        int middleIndex = runStarts[i + 1];
+        int toIndex = middleIndex + runLengths[i + 1];
+
+        runLengths[i] += runLengths[i + 1];
+
+        if (i == runCount - 3) {
+            runStarts[i + 1] = runStarts[i + 2];
+            runLengths[i + 1] = runLengths[i + 2];
+        }
+
+        --runCount;
+        merge(fromIndex, middleIndex, toIndex);
+    }
+
+    /**
+     * Merges stably the adjacent sorted ranges {@code array[fromIndex], ...,
+     * array[middleIndex - 1]} and {@code array[middleIndex], ...,
+     * array[toIndex - 1]} in place. The merge recurses into the shorter of
+     * the two subproblems created by a rotation and loops over the longer
+     * one, so the recursion depth stays logarithmic.
+     */
+    private void merge(int fromIndex, int middleIndex, int toIndex) {
+        while (fromIndex < middleIndex && middleIndex < toIndex) {
+            Object leftTail = array[middleIndex - 1];
+            Object rightHead = array[middleIndex];
+
+            if (comparator.compare(leftTail, rightHead) <= 0) {
+                // The runs are already in order:
+                return;
+            }
+
+            // Skip the elements that are already in their final positions:
+            fromIndex = ObjectAdaptiveMergesort.findUpperBound(array,
+                                                               fromIndex,
+                                                               middleIndex,
+                                                               rightHead,
+                                                               comparator);
+
+            toIndex = ObjectAdaptiveMergesort.findLowerBound(array,
+                                                             middleIndex,
+                                                             toIndex,
+                                                             leftTail,
+                                                             comparator);
+
+            int leftLength = middleIndex - fromIndex;
+            int rightLength = toIndex - middleIndex;
+
+            if (leftLength <= rightLength && leftLength <= buffer.length) {
+                ObjectAdaptiveMergesort.mergeAdjacentRuns(array,
+                                                          buffer,
+                                                          0,
+                                                          fromIndex,
+                                                          middleIndex,
+                                                          toIndex,
+                                                          comparator);
+                return;
+            }
+
+            if (rightLength <= buffer.length) {
+                mergeHigh(fromIndex, middleIndex, toIndex);
+                return;
+            }
+
+            // Split the longer run in half and the shorter one at the
+            // matching position. The elements of the right run equal to the
+            // left cut element stay after it, and the elements of the left
+            // run equal to the right cut element stay before it:
+            int leftCut;
+            int rightCut;
+
+            if (leftLength >= rightLength) {
+                leftCut = fromIndex + (leftLength >>> 1);
+                rightCut = ObjectAdaptiveMergesort.lowerBound(array,
+                                                              middleIndex,
+                                                              toIndex,
+                                                              array[leftCut],
+                                                              comparator);
+            } else {
+                rightCut = middleIndex + (rightLength >>> 1);
+                leftCut = ObjectAdaptiveMergesort.upperBound(array,
+                                                             fromIndex,
+                                                             middleIndex,
+                                                             array[rightCut],
+                                                             comparator);
+            }
+
+            int newMiddleIndex = rotate(leftCut, middleIndex, rightCut);
+
+            if (newMiddleIndex - fromIndex < toIndex - newMiddleIndex) {
+                merge(fromIndex, leftCut, newMiddleIndex);
+                fromIndex = newMiddleIndex;
+                middleIndex = rightCut;
+            } else {
+                merge(newMiddleIndex, rightCut, toIndex);
+                toIndex = newMiddleIndex;
+                middleIndex = leftCut;
+            }
+        }
+    }
+
+    /**
+     * Merges stably the adjacent sorted ranges {@code array[fromIndex], ...,
+     * array[middleIndex - 1]} and {@code array[middleIndex], ...,
+     * array[toIndex - 1]} in place from right to left, buffering only the
+     * right range.
+     */
+    private void mergeHigh(int fromIndex, int middleIndex, int toIndex) {
+        int rightLength = toIndex - middleIndex;
+        System.arraycopy(array, middleIndex, buffer, 0, rightLength);
+
+        int leftIndex = middleIndex - 1;
+        int bufferIndex = rightLength - 1;
+        int targetIndex = toIndex - 1;
+
+        while (leftIndex >= fromIndex && bufferIndex >= 0) {
+            if (comparator.compare(buffer[bufferIndex],
+                                   array[leftIndex]) < 0) {
+                array[targetIndex--] = array[leftIndex--];
+            } else {
+                array[targetIndex--] = buffer[bufferIndex--];
+            }
+        }
+
+        // The leftover left elements are already in place:
+        System.arraycopy(buffer, 0, array, fromIndex, bufferIndex + 1);
+    }
+
+    /**
+     * Swaps the adjacent ranges {@code array[fromIndex], ...,
+     * array[middleIndex - 1]} and {@code array[middleIndex], ...,
+     * array[toIndex - 1]}, keeping the order within each of them, through
+     * the buffer if the shorter range fits in it and by three reversals
+     * otherwise.
+     *
+     * @return the new index of the element at {@code array[fromIndex]}.
+     */
+    private int rotate(int fromIndex, int middleIndex, int toIndex) {
+        int leftLength = middleIndex - fromIndex;
+        int rightLength = toIndex - middleIndex;
+
+        if (leftLength == 0 || rightLength == 0) {
+            return fromIndex + rightLength;
+        }
+
+        if (leftLength <= rightLength && leftLength <= buffer.length) {
+            System.arraycopy(array, fromIndex, buffer, 0, leftLength);
+            System.arraycopy(array, middleIndex, array, fromIndex, rightLength);
+            System.arraycopy(buffer,
+                             0,
+                             array,
+                             toIndex - leftLength,
+                             leftLength);
+        } else if (rightLength <= buffer.length) {
+            System.arraycopy(array, middleIndex, buffer, 0, rightLength);
+            System.arraycopy(array, fromIndex, array, toIndex - leftLength,
+                             leftLength);
+            System.arraycopy(buffer, 0, array, fromIndex, rightLength);
+        } else {
+            reverse(fromIndex, middleIndex);
+            reverse(middleIndex, toIndex);
+            reverse(fromIndex, toIndex);
+        }
+
+        return fromIndex + rightLength;
+    }
+
+    /**
+     * Reverses the range {@code array[fromIndex], ..., array[toIndex - 1]}.
+     */
+    private void reverse(int fromIndex, int toIndex) {
+        for (int i = fromIndex, j = toIndex - 1; i < j; ++i, --j) {
+            Object tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package net.coderodde.util;
+
+import java.lang.reflect.Array;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * This class implements the sorts of tables stored column by column as
+ * parallel arrays. The sorting permutation of the rows is computed once from
+ * the key columns, after which every column is rearranged by it. A single
+ * {@code int}, {@code short}, {@code char}, {@code byte} or {@code long} key
+ * column is copied into a key buffer and sorted together with the row
+ * indices; several key columns, or a key column of any other type, are
+ * sorted through an array of row indices compared lexicographically through
+ * the columns. Since the rows of an ascending run keep their relative order,
+ * the permutation consists of long stretches of consecutive rows on
+ * presorted tables, and each stretch is moved with a single
+ * {@link System#arraycopy(Object, int, Object, int, int)} per column.
+ */
+final class ColumnarAdaptiveMergesort {
+
+    private ColumnarAdaptiveMergesort() {}
+
+    /**
+     * Compares two rows of a table.
+     */
+    @FunctionalInterface
+    private interface RowComparator {
+        int compare(int row1, int row2);
+    }
+
+    /**
+     * Sorts stably the rows of the table consisting of {@code keyColumns}
+     * and {@code payloadColumns} into the lexicographic order of the key
+     * columns. The arguments are assumed to be valid: each key column is an
+     * array of a primitive type other than {@code boolean} or an array of
+     * mutually comparable objects, and all the columns are arrays of the same
+     * length.
+     *
+     * @param keyColumns     the columns to sort by, the most significant
+     *                       first.
+     * @param payloadColumns the columns to rearrange along with the key
+     *                       columns.
+     * @param workspace      the workspace to sort in.
+     */
+    static void sort(Object[] keyColumns,
+                     Object[] payloadColumns,
+                     SortWorkspace workspace) {
+        int rows = Array.getLength(keyColumns[0]);
+
+        if (rows < 2) {
+            return; // Trivially sorted.
+        }
+
+        int[] permutation = sortedRows(keyColumns, rows, workspace);
+
+        // One scratch array per component type is enough:
+        Map<Class<?>, Object> scratchArrays = new IdentityHashMap<>();
+
+        for (Object[] columns : new Object[][]{ keyColumns, payloadColumns }) {
+            for (Object column : columns) {
+                Class<?> componentType = column.getClass().getComponentType();
+                Object scratch = scratchArrays.computeIfAbsent(
+                        componentType,
+                        type -> Array.newInstance(type, rows));
+
+                permute(column, scratch, permutation);
+            }
+        }
+    }
+
+    private static int[] sortedRows(Object[] keyColumns,
+                                    int rows,
+                                    SortWorkspace workspace) {
+        if (keyColumns.length == 1) {
+            Object column = keyColumns[0];
+
+            if (column instanceof int[]) {
+                int[] keys = (int[]) column;
+                return KeyedAdaptiveMergesort.sortedIndicesByIntKey(
+                        rows, i -> keys[i], workspace);
+            }
+
+            if (column instanceof long[]) {
+                long[] keys = (long[]) column;
+                return KeyedAdaptiveMergesort.sortedIndicesByLongKey(
+                        rows, i -> keys[i], workspace);
+            }
+
+            if (column instanceof short[]) {
+                short[] keys = (short[]) column;
+                return KeyedAdaptiveMergesort.sortedIndicesByIntKey(
+                        rows, i -> keys[i], workspace);
+            }
+
+            if (column instanceof char[]) {
+                char[] keys = (char[]) column;
+                return KeyedAdaptiveMergesort.sortedIndicesByIntKey(
+                        rows, i -> keys[i], workspace);
+            }
+
+            if (column instanceof byte[]) {
+                byte[] keys = (byte[]) column;
+                return KeyedAdaptiveMergesort.sortedIndicesByIntKey(
+                        rows, i -> keys[i], workspace);
+            }
+        }
+
+        RowComparator comparator = comparatorOf(keyColumns[0]);
+
+        for (int i = 1; i < keyColumns.length; ++i) {
+            comparator = thenComparing(comparator, 
+                                       comparatorOf(keyColumns[i]));
+        }
+
+        RowComparator rowComparator = comparator;
+        workspace = workspace.acquire(rows);
+
+        try {
+            int[] rowIndices = workspace.indexBuffer();
+
+            for (int i = 0; i < rows; ++i) {
+                rowIndices[i] = i;
+            }
+
+            IntervalPool pool = workspace.intervalPool();
+            int run = IndexedAdaptiveMergesort.sort(
+                    new IndexedAdaptiveMergesort.Sequence() {
+                        @Override
+                        public int compare(int index1, int index2) {
+                            return rowComparator.compare(rowIndices[index1],
+                                                         rowIndices[index2]);
+                        }
+
+                        @Override
+                        public void swap(int index1, int index2) {
+                            int tmp = rowIndices[index1];
+                            rowIndices[index1] = rowIndices[index2];
+                            rowIndices[index2] = tmp;
+                        }
+                    },
+                    rows,
+                    pool,
+                    workspace.runQueue());
+
+            int[] permutation = new int[rows];
+            int permutationIndex = 0;
+
+            for (int interval = run;
+                    interval != IntervalPool.NULL;
+                    interval = pool.next[interval]) {
+                int intervalLength = 
+                        pool.to[interval] - pool.from[interval] + 1;
+                System.arraycopy(rowIndices,
+                                 pool.from[interval],
+                                 permutation,
+                                 permutationIndex,
+                                 intervalLength);
+                permutationIndex += intervalLength;
+            }
+
+            return permutation;
+        } finally {
+            workspace.release(rows);
+        }
+    }
+
+    private static RowComparator thenComparing(RowComparator comparator1,
+                                               RowComparator comparator2) {
+        return (row1, row2) -> {
+            int cmp = comparator1.compare(row1, row2);
+            return cmp != 0 ? cmp : comparator2.compare(row1, row2);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RowComparator comparatorOf(Object column) {
+        if (column instanceof int[]) {
+            int[] keys = (int[]) column;
+            return (row1, row2) -> Integer.compare(keys[row1], keys[row2]);
+        }
+
+        if (column instanceof long[]) {
+            long[] keys = (long[]) column;
+            return (row1, row2) -> Long.compare(keys[row1], keys[row2]);
+        }
+
+        if (column instanceof double[]) {
+            double[] keys = (double[]) column;
+            return (row1, row2) -> Double.compare(keys[row1], keys[row2]);
+        }
+
+        if (column instanceof float[]) {
+            float[] keys = (float[]) column;
+            return (row1, row2) -> Float.compare(keys[row1], keys[row2]);
+        }
+
+        if (column instanceof short[]) {
+            short[] keys = (short[]) column;
+            return (row1, row2) -> Short.compare(keys[row1], keys[row2]);
+        }
+
+        if (column instanceof char[]) {
+            char[] keys = (char[]) column;
+            return (row1, row2) -> Character.compare(keys[row1], keys[row2]);
+        }
+
+        if (column instanceof byte[]) {
+            byte[] keys = (byte[]) column;
+            return (row1, row2) -> Byte.compare(keys[row1], keys[row2]);
+        }
+
+        Object[] keys = (Object[]) column;
+        return (row1, row2) -> 
+                ((Comparable<Object>) keys[row1]).compareTo(keys[row2]);
+    }
+
+    /**
+     * Rearranges {@code column} so that its component at index {@code i}
+     * becomes the component formerly at {@code permutation[i]}, copying each
+     * stretch of consecutive source rows in bulk through {@code scratch}.
+     */
+    private static void permute(Object column,
+                                Object scratch,
+                                int[] permutation) {
+        int rows = permutation.length;
+        int i = 0;
+
+        while (i < rows) {
+            int j = i + 1;
+
+            while (j < rows && permutation[j] == permutation[j - 1] + 1) {
+                ++j;
+            }
+
+            System.arraycopy(column, permutation[i], scratch, i, j - i);
+            i = j;
+        }
+
+        System.arraycopy(scratch, 0, column, 0, rows);
+    }
+}
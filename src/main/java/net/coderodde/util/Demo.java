@@ -78,6 +78,8 @@ public final class Demo {
     private static void perform(boolean output, 
                                 Integer[] array1) {
         Integer[] array2 = array1.clone();
+        Integer[] array3 = array1.clone();
+        Integer[] array4 = array1.clone();
         int length = array1.length;
 
         long startTime = System.currentTimeMillis();
@@ -101,6 +103,42 @@ public final class Demo {
             System.out.println("Algorithms agree: " +
                                arraysEqual(array1, array2));
         }
+
+        startTime = System.currentTimeMillis();
+        SortStrategy strategy = 
+                AdaptiveMergesort.smartSort(array3, 
+                                            FROM_INDEX, 
+                                            length - SKIP_RIGHT, 
+                                            null);
+        endTime = System.currentTimeMillis();
+
+        if (output) {
+            System.out.println("AdaptiveMergesort.smartSort (" + strategy + 
+                               ") in " + (endTime - startTime) + 
+                               " milliseconds.");
+
+            System.out.println("Algorithms agree: " +
+                               arraysEqual(array1, array3));
+        }
+
+        int scratchLength = (int) Math.sqrt(length);
+
+        startTime = System.currentTimeMillis();
+        AdaptiveMergesort.sortBounded(array4,
+                                      FROM_INDEX,
+                                      length - SKIP_RIGHT,
+                                      null,
+                                      scratchLength);
+        endTime = System.currentTimeMillis();
+
+        if (output) {
+            System.out.println("AdaptiveMergesort.sortBounded (" +
+                               scratchLength + " elements) in " +
+                               (endTime - startTime) + " milliseconds.");
+
+            System.out.println("Algorithms agree: " +
+                               arraysEqual(array1, array4));
+        }
     }
 
     private static final Integer[] getBlockedArray(int length, 
@@ -0,0 +1,712 @@
+package net.coderodde.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class implements the external adaptive mergesort of files of
+ * fixed-width records. The input is scanned once through memory-mapped
+ * windows for its natural runs, with the same ascending and strictly
+ * descending runs as the in-memory sorts. A natural run at least as long as
+ * the in-memory chunk is left in place and merged right from the input file,
+ * read backwards if it is descending. The stretches of shorter runs between
+ * them are loaded chunk by chunk, sorted with
+ * {@link RecordAdaptiveMergesort} and spilled into a temporary file.
+ * Finally, the runs are merged k-way through mapped windows into the output,
+ * in several passes over temporary files if there are more runs than the
+ * maximum fan-in. Mostly sorted input thus costs a single scan and a single
+ * merge pass.
+ * <p>
+ * The merge is stable: the runs are listed in the order they appear in the
+ * input, and equal heads are taken from the leftmost run.
+ */
+final class ExternalAdaptiveMergesort implements AutoCloseable {
+
+    private static final String SPILL_FILE_PREFIX = "adaptive-mergesort-";
+    private static final String SPILL_FILE_SUFFIX = ".run";
+
+    private final int recordLength;
+    private final RecordComparator comparator;
+    private final Path spillDirectory;
+    private final int maximumFanIn;
+
+    // The maximum number of records sorted in memory at a time. Natural runs
+    // at least this long are never copied before the final merge:
+    private final int chunkRecords;
+
+    // The number of records in a merge read window and in a write buffer:
+    private final int windowRecords;
+
+    // The open temporary files. They are deleted as soon as they are closed:
+    private final List<FileChannel> spillChannels = new ArrayList<>();
+
+    // The number of records the chunk is allocated for. No chunk longer
+    // than the input is ever needed:
+    private int chunkCapacity;
+
+    // The in-memory sorting state. It is allocated on the first chunk and
+    // released before the runs are merged:
+    private ByteBuffer chunk;
+    private IntervalPool pool;
+    private RunQueue queue;
+
+    private ExternalAdaptiveMergesort(int recordLength,
+                                      RecordComparator comparator,
+                                      ExternalSortConfiguration configuration) {
+        long memoryRecords = configuration.getMemoryLimit() / recordLength;
+
+        this.recordLength = recordLength;
+        this.comparator = comparator;
+        this.spillDirectory = configuration.getSpillDirectory();
+        this.maximumFanIn = configuration.getMaximumFanIn();
+        this.chunkRecords = (int) Math.min(Integer.MAX_VALUE / recordLength,
+                                           Math.max(2, memoryRecords));
+
+        if (chunkRecords < 2) {
+            throw new IllegalArgumentException(
+                    "recordLength(" + recordLength + ") is too large.");
+        }
+
+        this.windowRecords = Math.max(1, chunkRecords / (maximumFanIn + 1));
+    }
+
+    /**
+     * Sorts stably the records of the file {@code input} into the file
+     * {@code output}, which is created or overwritten.
+     *
+     * @param input         the file to sort.
+     * @param output        the file to write the sorted records into. Must
+     *                      not be {@code input}.
+     * @param recordLength  the length of a record in bytes.
+     * @param comparator    the comparator defining the order of the records.
+     * @param configuration the memory limit, fan-in and spill directory to
+     *                      use.
+     * @throws IOException if reading or writing a file fails.
+     */
+    static void sort(Path input,
+                     Path output,
+                     int recordLength,
+                     RecordComparator comparator,
+                     ExternalSortConfiguration configuration)
+    throws IOException {
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IllegalArgumentException(
+                    "The output file is the input file.");
+        }
+
+        try (ExternalAdaptiveMergesort sorter =
+                new ExternalAdaptiveMergesort(recordLength,
+                                              comparator,
+                                              configuration)) {
+            sorter.sort(input, output);
+        }
+    }
+
+    /**
+     * Closes, and thus deletes, all the temporary files still open.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+
+        for (FileChannel channel : spillChannels) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                if (exception == null) {
+                    exception = ex;
+                } else {
+                    exception.addSuppressed(ex);
+                }
+            }
+        }
+
+        spillChannels.clear();
+
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private void sort(Path input, Path output) throws IOException {
+        try (FileChannel inputChannel =
+                FileChannel.open(input, StandardOpenOption.READ)) {
+            long inputSize = inputChannel.size();
+
+            if (inputSize % recordLength != 0) {
+                throw new IllegalArgumentException(
+                        "The input file size (" + inputSize + ") is not a " +
+                        "multiple of the record length (" + recordLength +
+                        ").");
+            }
+
+            long records = inputSize / recordLength;
+            chunkCapacity = (int) Math.min(chunkRecords, records);
+
+            try (FileChannel outputChannel =
+                    FileChannel.open(output,
+                                     StandardOpenOption.CREATE,
+                                     StandardOpenOption.WRITE,
+                                     StandardOpenOption.TRUNCATE_EXISTING)) {
+                RecordWriter writer = new RecordWriter(outputChannel);
+
+                if (records <= chunkRecords) {
+                    // The whole input fits in memory:
+                    sortChunk(inputChannel, 0, (int) records, writer);
+                } else {
+                    List<Segment> runs =
+                            new RunBuilder(inputChannel, records).run();
+
+                    // Let the merge windows take the memory of the chunk:
+                    chunk = null;
+                    pool = null;
+                    queue = null;
+                    mergeAll(runs, writer);
+                }
+
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Merges the runs into {@code writer}, first merging them in groups into
+     * temporary files for as long as there are more of them than the maximum
+     * fan-in.
+     */
+    private void mergeAll(List<Segment> runs, RecordWriter writer)
+    throws IOException {
+        while (runs.size() > maximumFanIn) {
+            FileChannel spillChannel = createSpillChannel();
+            RecordWriter spillWriter = new RecordWriter(spillChannel);
+            List<Segment> mergedRuns = new ArrayList<>();
+
+            // Split the runs into groups as even as possible:
+            int groups = (runs.size() + maximumFanIn - 1) / maximumFanIn;
+            int groupLength = (runs.size() + groups - 1) / groups;
+
+            for (int i = 0; i < runs.size(); i += groupLength) {
+                long fromRecord = spillWriter.getRecordCount();
+                new SegmentMerger(
+                        runs.subList(i,
+                                     Math.min(runs.size(), i + groupLength)))
+                        .mergeInto(spillWriter);
+
+                mergedRuns.add(new Segment(spillChannel,
+                                           fromRecord,
+                                           spillWriter.getRecordCount(),
+                                           false));
+            }
+
+            spillWriter.flush();
+
+            // The temporary files of the previous pass are not needed
+            // anymore:
+            spillChannels.remove(spillChannel);
+            close();
+            spillChannels.add(spillChannel);
+            runs = mergedRuns;
+        }
+
+        new SegmentMerger(runs).mergeInto(writer);
+    }
+
+    /**
+     * Sorts the {@code length} records starting at the record index
+     * {@code fromRecord} of {@code channel} in memory and writes them into
+     * {@code writer}.
+     */
+    private void sortChunk(FileChannel channel,
+                           long fromRecord,
+                           int length,
+                           RecordWriter writer) throws IOException {
+        if (chunk == null) {
+            chunk = ByteBuffer.allocateDirect(chunkCapacity * recordLength);
+            pool = new IntervalPool((chunkCapacity >>> 1) + 1);
+            queue = new RunQueue((chunkCapacity >>> 1) + 1);
+        }
+
+        long position = fromRecord * recordLength;
+        chunk.clear();
+        chunk.limit(length * recordLength);
+
+        while (chunk.hasRemaining()) {
+            if (channel.read(chunk, position + chunk.position()) < 0) {
+                throw new EOFException("The input file was truncated.");
+            }
+        }
+
+        if (length < 2) {
+            writer.write(chunk, 0, length * recordLength);
+            return; // Trivially sorted.
+        }
+
+        pool.clear();
+        queue.clear();
+
+        int run = RecordAdaptiveMergesort.sort(chunk,
+                                               recordLength,
+                                               length,
+                                               pool,
+                                               queue,
+                                               comparator);
+
+        for (int interval = run;
+                interval != IntervalPool.NULL;
+                interval = pool.next[interval]) {
+            writer.write(chunk,
+                         pool.from[interval] * recordLength,
+                         (pool.to[interval] + 1) * recordLength);
+        }
+    }
+
+    private FileChannel createSpillChannel() throws IOException {
+        Path file = spillDirectory == null ?
+                    Files.createTempFile(SPILL_FILE_PREFIX,
+                                         SPILL_FILE_SUFFIX) :
+                    Files.createTempFile(spillDirectory,
+                                         SPILL_FILE_PREFIX,
+                                         SPILL_FILE_SUFFIX);
+        FileChannel channel;
+
+        try {
+            channel = FileChannel.open(file,
+                                       StandardOpenOption.READ,
+                                       StandardOpenOption.WRITE,
+                                       StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+
+        spillChannels.add(channel);
+        return channel;
+    }
+
+    private ByteBuffer map(FileChannel channel,
+                           long fromRecord,
+                           long toRecord) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY,
+                           fromRecord * recordLength,
+                           (toRecord - fromRecord) * recordLength);
+    }
+
+    /**
+     * Describes the sorted run of the records {@code fromRecord, ...,
+     * toRecord - 1} of a file. A descending run is read backwards.
+     */
+    private static final class Segment {
+
+        final FileChannel channel;
+        final long fromRecord;
+        final long toRecord;
+        final boolean descending;
+
+        Segment(FileChannel channel,
+                long fromRecord,
+                long toRecord,
+                boolean descending) {
+            this.channel = channel;
+            this.fromRecord = fromRecord;
+            this.toRecord = toRecord;
+            this.descending = descending;
+        }
+    }
+
+    /**
+     * Scans the input for its natural runs and turns them into the initial
+     * list of runs to merge.
+     */
+    private final class RunBuilder {
+
+        private final FileChannel input;
+        private final long records;
+        private final List<Segment> runs = new ArrayList<>();
+        private FileChannel spillChannel;
+        private RecordWriter spillWriter;
+
+        // The records chunkFrom, ..., chunkTo - 1 belong to short runs and
+        // wait to be sorted in memory:
+        private long chunkFrom;
+        private long chunkTo;
+
+        RunBuilder(FileChannel input, long records) {
+            this.input = input;
+            this.records = records;
+        }
+
+        List<Segment> run() throws IOException {
+            ByteBuffer window = null;
+            long windowFrom = 0;
+            long windowTo = 0;
+            long runFrom = 0;
+            boolean descending = false;
+
+            for (long i = 1; i < records; ++i) {
+                if (i >= windowTo) {
+                    // Let the next window overlap the previous one by a
+                    // record so that the neighbours are in the same window:
+                    windowFrom = i - 1;
+                    windowTo = Math.min(records, windowFrom + chunkRecords);
+                    window = map(input, windowFrom, windowTo);
+                }
+
+                int offset = (int) (i - windowFrom) * recordLength;
+                int cmp = comparator.compare(window,
+                                             offset - recordLength,
+                                             window,
+                                             offset);
+
+                if (i == runFrom + 1) {
+                    descending = cmp > 0;
+                } else if (descending ? cmp <= 0 : cmp > 0) {
+                    addRun(runFrom, i, descending);
+                    runFrom = i;
+                }
+            }
+
+            addRun(runFrom, records, descending);
+            flushChunk();
+
+            if (spillWriter != null) {
+                spillWriter.flush();
+            }
+
+            return runs;
+        }
+
+        private void addRun(long fromRecord,
+                            long toRecord,
+                            boolean descending) throws IOException {
+            if (toRecord - fromRecord >= chunkRecords) {
+                // Long enough to merge it right from the input. Flush the
+                // chunk first, so that the runs stay in input order:
+                flushChunk();
+                runs.add(new Segment(input, fromRecord, toRecord, descending));
+                return;
+            }
+
+            while (fromRecord < toRecord) {
+                if (chunkFrom == chunkTo) {
+                    chunkFrom = chunkTo = fromRecord;
+                }
+
+                long length = Math.min(toRecord - fromRecord,
+                                       chunkRecords - (chunkTo - chunkFrom));
+                chunkTo += length;
+                fromRecord += length;
+
+                if (chunkTo - chunkFrom == chunkRecords) {
+                    flushChunk();
+                }
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (chunkFrom == chunkTo) {
+                return;
+            }
+
+            if (spillWriter == null) {
+                spillChannel = createSpillChannel();
+                spillWriter = new RecordWriter(spillChannel);
+            }
+
+            long fromRecord = spillWriter.getRecordCount();
+            sortChunk(input, chunkFrom, (int) (chunkTo - chunkFrom),
+                      spillWriter);
+            runs.add(new Segment(spillChannel,
+                                 fromRecord,
+                                 spillWriter.getRecordCount(),
+                                 false));
+            chunkFrom = chunkTo;
+        }
+    }
+
+    /**
+     * Reads a run through mapped windows, from the left for an ascending run
+     * and from the right for a descending one.
+     */
+    private final class RunReader {
+
+        private final Segment segment;
+
+        // The records of the run not yet mapped:
+        private long unmappedFrom;
+        private long unmappedTo;
+
+        private ByteBuffer window;
+
+        // The offset of the current head record in the window:
+        private int head;
+
+        // The offset of the first record consumed from the window but not
+        // yet written out. Consecutive records of an ascending run are thus
+        // written in bulk:
+        private int blockStart;
+
+        RunReader(Segment segment) throws IOException {
+            this.segment = segment;
+            this.unmappedFrom = segment.fromRecord;
+            this.unmappedTo = segment.toRecord;
+            mapNextWindow();
+        }
+
+        ByteBuffer window() {
+            return window;
+        }
+
+        int head() {
+            return head;
+        }
+
+        /**
+         * Consumes the head record.
+         *
+         * @param writer the writer to write the records into.
+         * @return {@code false} if the run is exhausted.
+         */
+        boolean advance(RecordWriter writer) throws IOException {
+            if (segment.descending) {
+                writer.write(window, head, head + recordLength);
+                head -= recordLength;
+                return head >= 0 || mapNextWindow();
+            }
+
+            head += recordLength;
+
+            if (head < window.capacity()) {
+                return true;
+            }
+
+            flush(writer);
+            return mapNextWindow();
+        }
+
+        /**
+         * Writes the consumed records not yet written.
+         *
+         * @param writer the writer to write the records into.
+         */
+        void flush(RecordWriter writer) throws IOException {
+            if (!segment.descending && head > blockStart) {
+                writer.write(window, blockStart, head);
+                blockStart = head;
+            }
+        }
+
+        /**
+         * Writes all the remaining records.
+         *
+         * @param writer the writer to write the records into.
+         */
+        void drain(RecordWriter writer) throws IOException {
+            if (segment.descending) {
+                while (advance(writer)) {}
+                return;
+            }
+
+            do {
+                head = window.capacity();
+                flush(writer);
+            } while (mapNextWindow());
+        }
+
+        private boolean mapNextWindow() throws IOException {
+            if (unmappedFrom == unmappedTo) {
+                return false;
+            }
+
+            if (segment.descending) {
+                long windowFrom = Math.max(unmappedFrom,
+                                           unmappedTo - windowRecords);
+                window = map(segment.channel, windowFrom, unmappedTo);
+                head = window.capacity() - recordLength;
+                unmappedTo = windowFrom;
+            } else {
+                long windowTo = Math.min(unmappedTo,
+                                         unmappedFrom + windowRecords);
+                window = map(segment.channel, unmappedFrom, windowTo);
+                head = 0;
+                blockStart = 0;
+                unmappedFrom = windowTo;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Merges a group of neighbouring runs through a binary heap of the run
+     * readers. The least reader keeps writing records for as long as its
+     * head precedes the heads of all the other readers, so that long
+     * stretches of a run cost a single comparison per record and are written
+     * in bulk.
+     */
+    private final class SegmentMerger {
+
+        private final RunReader[] readers;
+
+        // The binary min-heap of the indices of the non-empty readers. Ties
+        // are broken by the reader index, which keeps the merge stable:
+        private final int[] heap;
+        private int heapSize;
+
+        SegmentMerger(List<Segment> runs) throws IOException {
+            this.readers = new RunReader[runs.size()];
+            this.heap = new int[runs.size()];
+
+            for (int i = 0; i < readers.length; ++i) {
+                readers[i] = new RunReader(runs.get(i));
+                heap[i] = i;
+            }
+
+            heapSize = readers.length;
+
+            for (int i = (heapSize >>> 1) - 1; i >= 0; --i) {
+                siftDown(i);
+            }
+        }
+
+        void mergeInto(RecordWriter writer) throws IOException {
+            while (heapSize > 1) {
+                RunReader reader = readers[heap[0]];
+                int runnerUp = heapSize == 2 || precedes(heap[1], heap[2]) ?
+                               heap[1] :
+                               heap[2];
+                boolean exhausted;
+
+                do {
+                    exhausted = !reader.advance(writer);
+                } while (!exhausted && precedes(heap[0], runnerUp));
+
+                reader.flush(writer);
+
+                if (exhausted) {
+                    heap[0] = heap[--heapSize];
+                }
+
+                siftDown(0);
+            }
+
+            if (heapSize == 1) {
+                readers[heap[0]].drain(writer);
+            }
+        }
+
+        private void siftDown(int index) {
+            int reader = heap[index];
+
+            while (true) {
+                int childIndex = (index << 1) + 1;
+
+                if (childIndex >= heapSize) {
+                    break;
+                }
+
+                if (childIndex + 1 < heapSize
+                        && precedes(heap[childIndex + 1], heap[childIndex])) {
+                    ++childIndex;
+                }
+
+                if (!precedes(heap[childIndex], reader)) {
+                    break;
+                }
+
+                heap[index] = heap[childIndex];
+                index = childIndex;
+            }
+
+            heap[index] = reader;
+        }
+
+        /**
+         * Returns {@code true} if the head of {@code reader1} must be written
+         * before the head of {@code reader2}.
+         */
+        private boolean precedes(int reader1, int reader2) {
+            int cmp = comparator.compare(readers[reader1].window(),
+                                         readers[reader1].head(),
+                                         readers[reader2].window(),
+                                         readers[reader2].head());
+            return cmp < 0 || (cmp == 0 && reader1 < reader2);
+        }
+    }
+
+    /**
+     * Writes records sequentially into a channel through a direct buffer. A
+     * block at least as long as the buffer is written without copying.
+     */
+    private final class RecordWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long recordCount;
+
+        RecordWriter(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(windowRecords *
+                                                    recordLength);
+        }
+
+        /**
+         * Returns the number of records written so far.
+         *
+         * @return the number of records written.
+         */
+        long getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Writes the bytes {@code source.get(fromOffset), ...,
+         * source.get(toOffset - 1)}. The position of {@code source} is reset
+         * to zero and its limit to its capacity.
+         */
+        void write(ByteBuffer source, int fromOffset, int toOffset)
+        throws IOException {
+            recordCount += (toOffset - fromOffset) / recordLength;
+
+            if (buffer.position() == 0
+                    && toOffset - fromOffset >= buffer.capacity()) {
+                source.limit(toOffset);
+                source.position(fromOffset);
+                writeFully(source);
+            } else {
+                while (fromOffset < toOffset) {
+                    int length = Math.min(toOffset - fromOffset,
+                                          buffer.remaining());
+                    source.limit(fromOffset + length);
+                    source.position(fromOffset);
+                    buffer.put(source);
+                    fromOffset += length;
+
+                    if (!buffer.hasRemaining()) {
+                        flush();
+                    }
+                }
+            }
+
+            source.clear();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+}
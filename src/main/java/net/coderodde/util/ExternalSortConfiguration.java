@@ -0,0 +1,114 @@
+package net.coderodde.util;
+
+import java.nio.file.Path;
+
+/**
+ * This class holds the tunable parameters of the external sorts of record
+ * files. The instances are immutable; the {@code with...} methods return a
+ * modified copy.
+ */
+public final class ExternalSortConfiguration {
+
+    /**
+     * The default number of bytes of records sorted in memory at a time.
+     */
+    public static final long DEFAULT_MEMORY_LIMIT = 64L << 20;
+
+    /**
+     * The default maximum number of runs merged at a time.
+     */
+    public static final int DEFAULT_MAXIMUM_FAN_IN = 64;
+
+    /**
+     * The configuration the external sorts use unless told otherwise:
+     * spilling into the default temporary-file directory, with the default
+     * memory limit and fan-in.
+     */
+    public static final ExternalSortConfiguration DEFAULT =
+            new ExternalSortConfiguration(null,
+                                          DEFAULT_MEMORY_LIMIT,
+                                          DEFAULT_MAXIMUM_FAN_IN);
+
+    private final Path spillDirectory;
+    private final long memoryLimit;
+    private final int maximumFanIn;
+
+    private ExternalSortConfiguration(Path spillDirectory,
+                                      long memoryLimit,
+                                      int maximumFanIn) {
+        this.spillDirectory = spillDirectory;
+        this.memoryLimit = memoryLimit;
+        this.maximumFanIn = maximumFanIn;
+    }
+
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public int getMaximumFanIn() {
+        return maximumFanIn;
+    }
+
+    /**
+     * Returns a copy of this configuration that writes the temporary run
+     * files into {@code spillDirectory}, or into the default temporary-file
+     * directory if {@code spillDirectory} is {@code null}. The directory
+     * should be on a local disk with room for a copy of the input.
+     *
+     * @param spillDirectory the directory for the temporary files.
+     * @return the modified configuration.
+     */
+    public ExternalSortConfiguration withSpillDirectory(Path spillDirectory) {
+        return new ExternalSortConfiguration(spillDirectory,
+                                             memoryLimit,
+                                             maximumFanIn);
+    }
+
+    /**
+     * Returns a copy of this configuration with the memory limit set to
+     * {@code memoryLimit} bytes. The memory is taken off-heap; it holds the
+     * chunk of records sorted in memory at a time, but never more than the
+     * input, and is released and split into the read windows and the write
+     * buffer before merging. The write buffers of the output and of the
+     * temporary files, a {@code maximumFanIn + 1}st of the limit each, are
+     * taken on top of the chunk while sorting it. Natural runs at least as
+     * long as the chunk are never copied before the final merge.
+     *
+     * @param memoryLimit the memory limit in bytes.
+     * @return the modified configuration.
+     */
+    public ExternalSortConfiguration withMemoryLimit(long memoryLimit) {
+        if (memoryLimit < 1) {
+            throw new IllegalArgumentException(
+                    "memoryLimit(" + memoryLimit + ") < 1");
+        }
+
+        return new ExternalSortConfiguration(spillDirectory,
+                                             memoryLimit,
+                                             maximumFanIn);
+    }
+
+    /**
+     * Returns a copy of this configuration that merges at most
+     * {@code maximumFanIn} runs at a time. If there are more runs, they are
+     * merged in groups into temporary files first, which takes an extra pass
+     * over the data.
+     *
+     * @param maximumFanIn the maximum number of runs to merge at a time.
+     * @return the modified configuration.
+     */
+    public ExternalSortConfiguration withMaximumFanIn(int maximumFanIn) {
+        if (maximumFanIn < 2) {
+            throw new IllegalArgumentException(
+                    "maximumFanIn(" + maximumFanIn + ") < 2");
+        }
+
+        return new ExternalSortConfiguration(spillDirectory,
+                                             memoryLimit,
+                                             maximumFanIn);
+    }
+}
@@ -0,0 +1,382 @@
+package net.coderodde.util;
+
+/**
+ * This class implements the adaptive mergesort over a sequence accessed only
+ * through comparisons and swaps of its elements by index. It serves the sorts
+ * whose elements cannot live in a Java array of their own, such as the 
+ * records of a byte buffer or the rows of a set of columns. The runs are 
+ * built and merged exactly as in {@link IntAdaptiveMergesort}; the only 
+ * elements ever swapped are the ones of the descending runs, which are 
+ * reversed in place.
+ */
+final class IndexedAdaptiveMergesort {
+
+    /**
+     * Gives access to the elements of a sequence by their index.
+     */
+    interface Sequence {
+
+        /**
+         * Compares the elements at indices {@code index1} and 
+         * {@code index2}.
+         *
+         * @param index1 the index of the first element.
+         * @param index2 the index of the second element.
+         * @return a negative integer, zero, or a positive integer as the 
+         *         first element is less than, equal to, or greater than the 
+         *         second.
+         */
+        int compare(int index1, int index2);
+
+        /**
+         * Swaps the elements at indices {@code index1} and {@code index2}.
+         *
+         * @param index1 the index of the first element.
+         * @param index2 the index of the second element.
+         */
+        void swap(int index1, int index2);
+    }
+
+    private IndexedAdaptiveMergesort() {}
+
+    /**
+     * Sorts the leading {@code length} elements of {@code sequence}. The 
+     * sequence is not rearranged into sorted order; instead, the returned run
+     * lists the intervals of indices in the order they must be read.
+     *
+     * @param sequence the sequence to sort.
+     * @param length   the number of leading elements to sort. Must be at 
+     *                 least two.
+     * @param pool     the empty pool for storing the intervals.
+     * @param queue    the empty run queue with room for 
+     *                 {@code (length >>> 1) + 1} runs.
+     * @return the head interval slot of the single run describing the sorted
+     *         order of the elements.
+     */
+    static int sort(Sequence sequence,
+                    int length,
+                    IntervalPool pool,
+                    RunQueue queue) {
+        new RunLengthQueueBuilder(sequence, length, pool, queue).run();
+
+        return MergeScheduler.mergeAll(
+                MergePolicy.FIFO,
+                queue,
+                pool,
+                length,
+                null,
+                (run1, run2) -> merge(sequence, pool, run1, run2));
+    }
+
+    private static int merge(Sequence sequence,
+                             IntervalPool pool,
+                             int run1,
+                             int run2) {
+        int headInterval1 = run1;
+        int headInterval2 = run2;
+        int mergedRunHead = IntervalPool.NULL;
+        int mergedRunTail = IntervalPool.NULL;
+
+        // While both the left and right runs have intervals to offer, do:
+        while (headInterval1 != IntervalPool.NULL
+                && headInterval2 != IntervalPool.NULL) {
+            int head1 = pool.from[headInterval1];
+            int head2 = pool.from[headInterval2];
+
+            if (sequence.compare(head1, head2) <= 0) {
+                if (sequence.compare(pool.to[headInterval1], head2) <= 0) {
+                    // Easy case, just append one interval to the other:
+                    if (mergedRunHead == IntervalPool.NULL) {
+                        mergedRunHead = headInterval1;
+                    } else {
+                        pool.next[mergedRunTail] = headInterval1;
+                    }
+
+                    mergedRunTail = headInterval1;
+                    headInterval1 = pool.next[headInterval1];
+                    continue;
+                }
+
+                // Cannot append. We need to split the left interval:
+                int index = findUpperBound(sequence,
+                                           pool.from[headInterval1],
+                                           pool.to[headInterval1] + 1,
+                                           head2);
+
+                int newInterval = pool.allocate(pool.from[headInterval1],
+                                                index - 1);
+
+                // Remove some head elements from first interval:
+                pool.from[headInterval1] = index;
+
+                // Append a split interval to the tail of the merged run:
+                if (mergedRunHead == IntervalPool.NULL) {
+                    mergedRunHead = newInterval;
+                } else {
+                    pool.next[mergedRunTail] = newInterval;
+                }
+
+                mergedRunTail = newInterval;
+            } else {
+                if (sequence.compare(pool.to[headInterval2], head1) < 0) {
+                    // Easy case, just append one interval to the other:
+                    if (mergedRunHead == IntervalPool.NULL) {
+                        mergedRunHead = headInterval2;
+                    } else {
+                        pool.next[mergedRunTail] = headInterval2;
+                    }
+
+                    mergedRunTail = headInterval2;
+                    headInterval2 = pool.next[headInterval2];
+                    continue;
+                }
+
+                // Cannot append. We need to split the right interval:
+                int index = findLowerBound(sequence,
+                                           pool.from[headInterval2],
+                                           pool.to[headInterval2] + 1,
+                                           head1);
+
+                int newInterval = pool.allocate(pool.from[headInterval2],
+                                                index - 1);
+
+                // Remove some head elements from second interval:
+                pool.from[headInterval2] = index;
+
+                // Append a split interval to the tail of the merge run:
+                if (mergedRunHead == IntervalPool.NULL) {
+                    mergedRunHead = newInterval;
+                } else {
+                    pool.next[mergedRunTail] = newInterval;
+                }
+
+                mergedRunTail = newInterval;
+            }
+        }
+
+        // Append the leftover intervals of a currently non-empty run to the
+        // tail of the merged run:
+        pool.next[mergedRunTail] = headInterval1 != IntervalPool.NULL ?
+                                   headInterval1 :
+                                   headInterval2;
+        return mergedRunHead;
+    }
+
+    private static final class RunLengthQueueBuilder {
+
+        private final RunQueue queue;
+        private final IntervalPool pool;
+        private final Sequence sequence;
+        private int head;
+        private int left;
+        private int right;
+        private final int last;
+        private boolean previousRunWasDesending;
+
+        RunLengthQueueBuilder(Sequence sequence,
+                              int length,
+                              IntervalPool pool,
+                              RunQueue queue) {
+            this.queue = queue;
+            this.pool  = pool;
+            this.sequence = sequence;
+            this.left  = 0;
+            this.right = 1;
+            this.last  = length - 1;
+        }
+
+        RunQueue run() {
+            while (left < last) {
+                head = left;
+
+                if (sequence.compare(left++, right++) <= 0) {
+                    // The next run is ascending:
+                    scanAscendingRun();
+                } else {
+                    // The next run is descending:
+                    scanDescendingRun();
+                }
+
+                ++left;
+                ++right;
+            }
+
+            if (left == last) {
+                // Deal with a single element run at the very tail of the
+                // input:
+                if (sequence.compare(last - 1, last) <= 0) {
+                    addToLastRun(1);
+                } else {
+                    queue.enqueue(pool.allocate(left, left));
+                }
+            }
+
+            return queue;
+        }
+
+        void scanAscendingRun() {
+            while (left < last && sequence.compare(left, right) <= 0) {
+                ++left;
+                ++right;
+            }
+
+            if (previousRunWasDesending) {
+                if (sequence.compare(head - 1, head) <= 0) {
+                    // We can just extend the previous run:
+                    addToLastRun(right - head);
+                } else {
+                    queue.enqueue(pool.allocate(head, left));
+                }
+            } else {
+                queue.enqueue(pool.allocate(head, left));
+            }
+
+            previousRunWasDesending = false;
+        }
+
+        void scanDescendingRun() {
+            while (left < last && sequence.compare(left, right) > 0) {
+                ++left;
+                ++right;
+            }
+
+            reverseRun(head, left);
+
+            if (previousRunWasDesending) {
+                if (sequence.compare(head - 1, head) <= 0) {
+                    // We can just extend the previous run:
+                    addToLastRun(right - head);
+                } else {
+                    queue.enqueue(pool.allocate(head, left));
+                }
+            } else {
+                queue.enqueue(pool.allocate(head, left));
+            }
+
+            previousRunWasDesending = true;
+        }
+
+        /**
+         * Extends the length of the tail run by {@code runLength} elements.
+         *
+         * @param runLength the number of elements to add to the tail run.
+         */
+        private void addToLastRun(int runLength) {
+            pool.to[queue.last()] += runLength;
+        }
+
+        private void reverseRun(int i, int j) {
+            for (; i < j; ++i, --j) {
+                sequence.swap(i, j);
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest index of an element in the given range that is not
+     * less than the element {@code value}.
+     *
+     * @param sequence  the sequence holding the target range.
+     * @param fromIndex the lowest index of the range to process.
+     * @param toIndex   the largest index of the range to process plus one.
+     * @param value     the index of the target element.
+     * @return          the element index.
+     */
+    private static int lowerBound(Sequence sequence,
+                                  int fromIndex,
+                                  int toIndex,
+                                  int value) {
+        int count = toIndex - fromIndex;
+        int it;
+
+        while (count > 0) {
+            it = fromIndex;
+            int step = count >>> 1;
+            it += step;
+
+            if (sequence.compare(it, value) < 0) {
+                fromIndex = ++it;
+                count -= step + 1;
+            } else {
+                count = step;
+            }
+        }
+
+        return fromIndex;
+    }
+
+    /**
+     * Returns the smallest index of an element in the given range that is
+     * greater than the element {@code value}.
+     *
+     * @param sequence  the sequence holding the target range.
+     * @param fromIndex the lowest index of the range to process.
+     * @param toIndex   the largest index of the range to process plus one.
+     * @param value     the index of the target element.
+     * @return          the element index.
+     */
+    private static int upperBound(Sequence sequence,
+                                  int fromIndex,
+                                  int toIndex,
+                                  int value) {
+        int count = toIndex - fromIndex;
+        int it;
+
+        while (count > 0) {
+            it = fromIndex;
+            int step = count >>> 1;
+            it += step;
+
+            if (sequence.compare(it, value) <= 0) {
+                fromIndex = ++it;
+                count -= step + 1;
+            } else {
+                count = step;
+            }
+        }
+
+        return fromIndex;
+    }
+
+    private static int findLowerBound(Sequence sequence,
+                                      int fromIndex,
+                                      int toIndex,
+                                      int value) {
+        int bound = 1;
+        int rangeLength = toIndex - fromIndex;
+
+        // Do the exponential search in order to find faster the subrange
+        // that might contain 'value':
+        while (bound < rangeLength
+                && sequence.compare(bound + fromIndex, value) < 0) {
+            bound <<= 1;
+        }
+
+        // The containing range found. Now search in it with binary search:
+        return lowerBound(sequence,
+                          fromIndex + (bound >>> 1),
+                          Math.min(toIndex, fromIndex + bound),
+                          value);
+    }
+
+    private static int findUpperBound(Sequence sequence,
+                                      int fromIndex,
+                                      int toIndex,
+                                      int value) {
+        int bound = 1;
+        int rangeLength = toIndex - fromIndex;
+
+        // Do the exponential search in order to find faster the subrange
+        // that might contain 'value':
+        while (bound < rangeLength
+                && sequence.compare(bound + fromIndex, value) <= 0) {
+            bound <<= 1;
+        }
+
+        // The containing range found. Now search in it with binary search:
+        return upperBound(sequence,
+                          fromIndex + (bound >>> 1),
+                          Math.min(toIndex, fromIndex + bound),
+                          value);
+    }
+}
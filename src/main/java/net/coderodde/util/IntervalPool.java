@@ -0,0 +1,93 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+
+/**
+ * This class stores sorted ascending intervals in flat parallel arrays instead
+ * of as separate objects. An interval is identified by its slot index; the 
+ * interval in slot {@code s} is {@code aux[from[s]], ..., aux[to[s]]}, and 
+ * {@code next[s]} is the slot of the interval following it in its run, or 
+ * {@link #NULL} if it is the last one. A run is identified by the slot of its 
+ * first interval.
+ * <p>
+ * Released slots are kept in a free list threaded through {@code next} and are
+ * handed out again before the arrays are grown.
+ */
+final class IntervalPool {
+
+    /**
+     * The slot index denoting "no interval".
+     */
+    static final int NULL = -1;
+
+    int[] from;
+    int[] to;
+    int[] next;
+
+    // The number of slots ever handed out since the last clear:
+    private int size;
+    private int freeListHead = NULL;
+
+    IntervalPool(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.from = new int[capacity];
+        this.to   = new int[capacity];
+        this.next = new int[capacity];
+    }
+
+    /**
+     * Allocates a single interval that is not linked to any other interval.
+     * 
+     * @param from the index of the first element of the interval.
+     * @param to   the index of the last element of the interval.
+     * @return the slot of the new interval.
+     */
+    int allocate(int from, int to) {
+        int slot;
+
+        if (freeListHead != NULL) {
+            slot = freeListHead;
+            freeListHead = next[slot];
+        } else {
+            if (size == this.from.length) {
+                grow();
+            }
+
+            slot = size++;
+        }
+
+        this.from[slot] = from;
+        this.to[slot] = to;
+        this.next[slot] = NULL;
+        return slot;
+    }
+
+    /**
+     * Returns the slot {@code slot} to the free list.
+     * 
+     * @param slot the slot to release.
+     */
+    void release(int slot) {
+        next[slot] = freeListHead;
+        freeListHead = slot;
+    }
+
+    /**
+     * Releases all the slots at once.
+     */
+    void clear() {
+        size = 0;
+        freeListHead = NULL;
+    }
+
+    int capacity() {
+        return from.length;
+    }
+
+    private void grow() {
+        int newCapacity = from.length << 1;
+        from = Arrays.copyOf(from, newCapacity);
+        to   = Arrays.copyOf(to, newCapacity);
+        next = Arrays.copyOf(next, newCapacity);
+    }
+}
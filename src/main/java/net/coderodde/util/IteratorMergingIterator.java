@@ -0,0 +1,131 @@
+package net.coderodde.util;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This class merges stably a list of iterators over sorted sequences into a
+ * single sorted sequence, lazily: each call to {@link #next()} takes the 
+ * least head out of a binary heap of the non-exhausted iterators and pulls 
+ * the next element of that iterator only. Equal elements come out in the 
+ * order of their iterators in the list. Reading {@code k} elements out of 
+ * {@code r} iterators costs {@code O(r + k log r)} comparisons.
+ *
+ * @param <T> the element type.
+ */
+final class IteratorMergingIterator<T> implements Iterator<T> {
+
+    private final Iterator<? extends T>[] iterators;
+    private final Comparator<Object> comparator;
+
+    // The current head of each iterator:
+    private final Object[] heads;
+
+    // The binary min-heap of the indices of the non-exhausted iterators. Ties
+    // are broken by the iterator index, which keeps the merge stable:
+    private final int[] heap;
+    private int heapSize;
+
+    /**
+     * Constructs an iterator merging {@code iterators}. Each iterator is 
+     * advanced once right away.
+     *
+     * @param iterators  the iterators to merge.
+     * @param comparator the comparator defining the order.
+     */
+    IteratorMergingIterator(List<? extends Iterator<? extends T>> iterators,
+                            Comparator<Object> comparator) {
+        this.iterators = 
+                iterators.toArray(newIteratorArray(iterators.size()));
+        this.comparator = comparator;
+        this.heads = new Object[this.iterators.length];
+        this.heap = new int[this.iterators.length];
+
+        for (int i = 0; i < this.iterators.length; ++i) {
+            if (this.iterators[i].hasNext()) {
+                heads[i] = this.iterators[i].next();
+                heap[heapSize++] = i;
+            }
+        }
+
+        for (int i = (heapSize >>> 1) - 1; i >= 0; --i) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Returns a new array of {@code length} iterators. The cast is safe, 
+     * since an array of wildcard iterators may hold any iterator.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Iterator<? extends T>[] newIteratorArray(int length) {
+        return (Iterator<? extends T>[]) new Iterator<?>[length];
+    }
+
+    @Override
+    public boolean hasNext() {
+        return heapSize > 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (heapSize == 0) {
+            throw new NoSuchElementException("The iterator is exhausted.");
+        }
+
+        int source = heap[0];
+        T element = (T) heads[source];
+
+        if (iterators[source].hasNext()) {
+            heads[source] = iterators[source].next();
+        } else {
+            // The iterator is exhausted:
+            heads[source] = null;
+            heap[0] = heap[--heapSize];
+        }
+
+        if (heapSize > 1) {
+            siftDown(0);
+        }
+
+        return element;
+    }
+
+    private void siftDown(int index) {
+        int source = heap[index];
+
+        while (true) {
+            int childIndex = (index << 1) + 1;
+
+            if (childIndex >= heapSize) {
+                break;
+            }
+
+            if (childIndex + 1 < heapSize 
+                    && precedes(heap[childIndex + 1], heap[childIndex])) {
+                ++childIndex;
+            }
+
+            if (!precedes(heap[childIndex], source)) {
+                break;
+            }
+
+            heap[index] = heap[childIndex];
+            index = childIndex;
+        }
+
+        heap[index] = source;
+    }
+
+    /**
+     * Returns {@code true} if the head of {@code source1} must be output 
+     * before the head of {@code source2}.
+     */
+    private boolean precedes(int source1, int source2) {
+        int cmp = comparator.compare(heads[source1], heads[source2]);
+        return cmp < 0 || (cmp == 0 && source1 < source2);
+    }
+}
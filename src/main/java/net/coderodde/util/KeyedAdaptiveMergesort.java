@@ -0,0 +1,484 @@
+package net.coderodde.util;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * This class implements the sorts of object references by extracted keys in
+ * the decorate-sort-undecorate fashion: the key of each element is extracted
+ * exactly once into a buffer, the keys are sorted together with the original
+ * indices of their elements, and finally the elements are permuted into the
+ * order of their keys. This pays off whenever computing a key is more
+ * expensive than comparing two keys.
+ */
+final class KeyedAdaptiveMergesort {
+
+    private KeyedAdaptiveMergesort() {}
+
+    /**
+     * Sorts stably the range {@code array[fromIndex], ...,
+     * array[toIndex - 1]} by the natural ordering of the keys extracted with
+     * {@code keyExtractor}. The arguments are assumed to be valid.
+     *
+     * @param <T>          the array component type.
+     * @param array        the array holding the target range.
+     * @param fromIndex    the index of the first element in the range.
+     * @param toIndex      the index of the last element in the range plus one.
+     * @param keyExtractor the function extracting {@link Comparable} keys.
+     * @param workspace    the workspace to sort in.
+     */
+    static <T> void sortByKey(T[] array,
+                              int fromIndex,
+                              int toIndex,
+                              Function<? super T, ?> keyExtractor,
+                              SortWorkspace workspace) {
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            Object[] keys = workspace.objectBuffer();
+            int[] indices = workspace.indexBuffer();
+
+            for (int i = 0; i < rangeLength; ++i) {
+                keys[i] = keyExtractor.apply(array[fromIndex + i]);
+                indices[i] = i;
+            }
+
+            int run = ObjectAdaptiveMergesort.sort(
+                    keys,
+                    indices,
+                    rangeLength,
+                    workspace.intervalPool(),
+                    workspace.runQueue(),
+                    ObjectAdaptiveMergesort.NATURAL_ORDER,
+                    SortConfiguration.DEFAULT);
+
+            // The keys are not needed anymore, so their buffer takes the
+            // permuted elements:
+            permute(array,
+                    fromIndex,
+                    keys,
+                    indices,
+                    workspace.intervalPool(),
+                    run);
+        } finally {
+            workspace.release(rangeLength);
+        }
+    }
+
+    /**
+     * Sorts stably the range {@code array[fromIndex], ...,
+     * array[toIndex - 1]} by the {@code int} keys extracted with
+     * {@code keyExtractor}. The arguments are assumed to be valid.
+     *
+     * @param <T>          the array component type.
+     * @param array        the array holding the target range.
+     * @param fromIndex    the index of the first element in the range.
+     * @param toIndex      the index of the last element in the range plus one.
+     * @param keyExtractor the function extracting the keys.
+     * @param workspace    the workspace to sort in.
+     */
+    static <T> void sortByIntKey(T[] array,
+                                 int fromIndex,
+                                 int toIndex,
+                                 ToIntFunction<? super T> keyExtractor,
+                                 SortWorkspace workspace) {
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            int[] keys = workspace.intBuffer();
+            int[] indices = workspace.indexBuffer();
+
+            for (int i = 0; i < rangeLength; ++i) {
+                keys[i] = keyExtractor.applyAsInt(array[fromIndex + i]);
+                indices[i] = i;
+            }
+
+            int run = IntAdaptiveMergesort.sort(keys,
+                                                indices,
+                                                rangeLength,
+                                                workspace.intervalPool(),
+                                                workspace.runQueue());
+
+            permute(array,
+                    fromIndex,
+                    workspace.objectBuffer(),
+                    indices,
+                    workspace.intervalPool(),
+                    run);
+        } finally {
+            workspace.release(rangeLength);
+        }
+    }
+
+    /**
+     * Sorts stably the range {@code array[fromIndex], ...,
+     * array[toIndex - 1]} by the {@code long} keys extracted with
+     * {@code keyExtractor}. The arguments are assumed to be valid.
+     *
+     * @param <T>          the array component type.
+     * @param array        the array holding the target range.
+     * @param fromIndex    the index of the first element in the range.
+     * @param toIndex      the index of the last element in the range plus one.
+     * @param keyExtractor the function extracting the keys.
+     * @param workspace    the workspace to sort in.
+     */
+    static <T> void sortByLongKey(T[] array,
+                                  int fromIndex,
+                                  int toIndex,
+                                  ToLongFunction<? super T> keyExtractor,
+                                  SortWorkspace workspace) {
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            long[] keys = workspace.longBuffer();
+            int[] indices = workspace.indexBuffer();
+
+            for (int i = 0; i < rangeLength; ++i) {
+                keys[i] = keyExtractor.applyAsLong(array[fromIndex + i]);
+                indices[i] = i;
+            }
+
+            int run = LongAdaptiveMergesort.sort(keys,
+                                                 indices,
+                                                 rangeLength,
+                                                 workspace.intervalPool(),
+                                                 workspace.runQueue());
+
+            permute(array,
+                    fromIndex,
+                    workspace.objectBuffer(),
+                    indices,
+                    workspace.intervalPool(),
+                    run);
+        } finally {
+            workspace.release(rangeLength);
+        }
+    }
+
+    /**
+     * Returns the stable sorting permutation of {@code array}: the indices of
+     * its elements listed in the order {@code comparator} imposes on the
+     * elements. The array is not modified.
+     *
+     * @param array      the array to sort.
+     * @param comparator the comparator defining the order.
+     * @param workspace  the workspace to sort in.
+     * @return the sorting permutation.
+     */
+    static int[] sortedIndices(Object[] array,
+                               Comparator<Object> comparator,
+                               SortWorkspace workspace) {
+        if (array.length < 2) {
+            return new int[array.length]; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(array.length);
+
+        try {
+            Object[] aux = workspace.objectBuffer();
+            int[] indices = workspace.indexBuffer();
+
+            for (int i = 0; i < array.length; ++i) {
+                aux[i] = array[i];
+                indices[i] = i;
+            }
+
+            int run = ObjectAdaptiveMergesort.sort(aux,
+                                                   indices,
+                                                   array.length,
+                                                   workspace.intervalPool(),
+                                                   workspace.runQueue(),
+                                                   comparator,
+                                                   SortConfiguration.DEFAULT);
+
+            return collectIndices(indices,
+                                  array.length,
+                                  workspace.intervalPool(),
+                                  run);
+        } finally {
+            workspace.release(array.length);
+        }
+    }
+
+    /**
+     * Returns the stable sorting permutation of {@code length} elements whose
+     * {@code int} keys are given by {@code keys}.
+     *
+     * @param length    the number of elements.
+     * @param keys      the function mapping an index to the key of the
+     *                  element at it.
+     * @param workspace the workspace to sort in.
+     * @return the sorting permutation.
+     */
+    static int[] sortedIndicesByIntKey(int length,
+                                       IntUnaryOperator keys,
+                                       SortWorkspace workspace) {
+        if (length < 2) {
+            return new int[length]; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(length);
+
+        try {
+            int[] aux = workspace.intBuffer();
+            int[] indices = workspace.indexBuffer();
+
+            for (int i = 0; i < length; ++i) {
+                aux[i] = keys.applyAsInt(i);
+                indices[i] = i;
+            }
+
+            int run = IntAdaptiveMergesort.sort(aux,
+                                                indices,
+                                                length,
+                                                workspace.intervalPool(),
+                                                workspace.runQueue());
+
+            return collectIndices(indices,
+                                  length,
+                                  workspace.intervalPool(),
+                                  run);
+        } finally {
+            workspace.release(length);
+        }
+    }
+
+    /**
+     * Returns the stable sorting permutation of {@code length} elements whose
+     * {@code long} keys are given by {@code keys}.
+     *
+     * @param length    the number of elements.
+     * @param keys      the function mapping an index to the key of the
+     *                  element at it.
+     * @param workspace the workspace to sort in.
+     * @return the sorting permutation.
+     */
+    static int[] sortedIndicesByLongKey(int length,
+                                        IntToLongFunction keys,
+                                        SortWorkspace workspace) {
+        if (length < 2) {
+            return new int[length]; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(length);
+
+        try {
+            long[] aux = workspace.longBuffer();
+            int[] indices = workspace.indexBuffer();
+
+            for (int i = 0; i < length; ++i) {
+                aux[i] = keys.applyAsLong(i);
+                indices[i] = i;
+            }
+
+            int run = LongAdaptiveMergesort.sort(aux,
+                                                 indices,
+                                                 length,
+                                                 workspace.intervalPool(),
+                                                 workspace.runQueue());
+
+            return collectIndices(indices,
+                                  length,
+                                  workspace.intervalPool(),
+                                  run);
+        } finally {
+            workspace.release(length);
+        }
+    }
+
+    /**
+     * Rearranges each of the {@code columns} so that its component at index
+     * {@code i} becomes the component formerly at {@code permutation[i]}. The
+     * permutation is decomposed into cycles once, and each cycle is rotated
+     * in all the columns with swaps. The arguments are assumed to be valid.
+     *
+     * @param permutation the permutation to apply.
+     * @param columns     the arrays to rearrange.
+     */
+    static void applyPermutation(int[] permutation, Object[] columns) {
+        Swapper[] swappers = new Swapper[columns.length];
+
+        for (int i = 0; i < columns.length; ++i) {
+            swappers[i] = swapperOf(columns[i]);
+        }
+
+        BitSet visited = new BitSet(permutation.length);
+
+        for (int start = 0; start < permutation.length; ++start) {
+            if (visited.get(start)) {
+                continue;
+            }
+
+            visited.set(start);
+
+            for (int i = start; permutation[i] != start; i = permutation[i]) {
+                visited.set(permutation[i]);
+
+                for (Swapper swapper : swappers) {
+                    swapper.swap(i, permutation[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Swaps two components of an array.
+     */
+    @FunctionalInterface
+    private interface Swapper {
+        void swap(int i, int j);
+    }
+
+    private static Swapper swapperOf(Object column) {
+        if (column instanceof Object[]) {
+            Object[] array = (Object[]) column;
+            return (i, j) -> {
+                Object tmp = array[i];
+                array[i] = array[j];
+                array[j] = tmp;
+            };
+        }
+
+        if (column instanceof int[]) {
+            int[] array = (int[]) column;
+            return (i, j) -> {
+                int tmp = array[i];
+                array[i] = array[j];
+                array[j] = tmp;
+            };
+        }
+
+        if (column instanceof long[]) {
+            long[] array = (long[]) column;
+            return (i, j) -> {
+                long tmp = array[i];
+                array[i] = array[j];
+                array[j] = tmp;
+            };
+        }
+
+        if (column instanceof double[]) {
+            double[] array = (double[]) column;
+            return (i, j) -> {
+                double tmp = array[i];
+                array[i] = array[j];
+                array[j] = tmp;
+            };
+        }
+
+        if (column instanceof float[]) {
+            float[] array = (float[]) column;
+            return (i, j) -> {
+                float tmp = array[i];
+                array[i] = array[j];
+                array[j] = tmp;
+            };
+        }
+
+        if (column instanceof short[]) {
+            short[] array = (short[]) column;
+            return (i, j) -> {
+                short tmp = array[i];
+                array[i] = array[j];
+                array[j] = tmp;
+            };
+        }
+
+        if (column instanceof char[]) {
+            char[] array = (char[]) column;
+            return (i, j) -> {
+                char tmp = array[i];
+                array[i] = array[j];
+                array[j] = tmp;
+            };
+        }
+
+        if (column instanceof byte[]) {
+            byte[] array = (byte[]) column;
+            return (i, j) -> {
+                byte tmp = array[i];
+                array[i] = array[j];
+                array[j] = tmp;
+            };
+        }
+
+        boolean[] array = (boolean[]) column;
+        return (i, j) -> {
+            boolean tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        };
+    }
+
+    /**
+     * Lists the original indices in the order of the run {@code run}.
+     */
+    private static int[] collectIndices(int[] indices,
+                                        int length,
+                                        IntervalPool pool,
+                                        int run) {
+        int[] permutation = new int[length];
+        int permutationIndex = 0;
+
+        for (int interval = run;
+                interval != IntervalPool.NULL;
+                interval = pool.next[interval]) {
+            int intervalLength = pool.to[interval] - pool.from[interval] + 1;
+            System.arraycopy(indices,
+                             pool.from[interval],
+                             permutation,
+                             permutationIndex,
+                             intervalLength);
+            permutationIndex += intervalLength;
+        }
+
+        return permutation;
+    }
+
+    /**
+     * Rearranges the range starting at {@code array[fromIndex]} in the order
+     * of the run {@code run}, reading the original position of each element
+     * from {@code indices}.
+     */
+    private static void permute(Object[] array,
+                                int fromIndex,
+                                Object[] buffer,
+                                int[] indices,
+                                IntervalPool pool,
+                                int run) {
+        int bufferIndex = 0;
+
+        for (int interval = run;
+                interval != IntervalPool.NULL;
+                interval = pool.next[interval]) {
+            for (int i = pool.from[interval]; i <= pool.to[interval]; ++i) {
+                buffer[bufferIndex++] = array[fromIndex + indices[i]];
+            }
+        }
+
+        System.arraycopy(buffer, 0, array, fromIndex, bufferIndex);
+    }
+}
@@ -0,0 +1,369 @@
+package net.coderodde.util;
+
+/**
+ * This class implements the adaptive mergesort over {@code long} values. It is
+ * also the engine behind the {@code double} sort in {@link AdaptiveMergesort},
+ * which maps its values to order-preserving {@code long} keys.
+ */
+final class LongAdaptiveMergesort {
+
+    private LongAdaptiveMergesort() {}
+
+    /**
+     * Sorts the leading {@code length} values of {@code aux}. The buffer is 
+     * not rearranged into sorted order; instead, the returned run lists the 
+     * intervals of {@code aux} in the order they must be read.
+     *
+     * @param aux     the buffer to sort.
+     * @param indices the satellite array whose leading {@code length} 
+     *                components are moved along with the values in 
+     *                {@code aux} while the runs are built, or {@code null}.
+     * @param length  the number of leading values in {@code aux} to sort. 
+     *                Must be at least two.
+     * @param pool    the empty pool for storing the intervals.
+     * @param queue   the empty run queue with room for 
+     *                {@code (length >>> 1) + 1} runs.
+     * @return the head interval slot of the single run describing the sorted
+     *         order of {@code aux[0], ..., aux[length - 1]}.
+     */
+    static int sort(long[] aux,
+                    int[] indices,
+                    int length,
+                    IntervalPool pool,
+                    RunQueue queue) {
+        new RunLengthQueueBuilder(aux, indices, length, pool, queue).run();
+
+        return MergeScheduler.mergeAll(
+                MergePolicy.FIFO,
+                queue,
+                pool,
+                length,
+                null,
+                (run1, run2) -> merge(aux, pool, run1, run2));
+    }
+
+    private static int merge(long[] aux,
+                             IntervalPool pool,
+                             int run1,
+                             int run2) {
+        int headInterval1 = run1;
+        int headInterval2 = run2;
+        int mergedRunHead = IntervalPool.NULL;
+        int mergedRunTail = IntervalPool.NULL;
+
+        // While both the left and right runs have intervals to offer, do:
+        while (headInterval1 != IntervalPool.NULL 
+                && headInterval2 != IntervalPool.NULL) {
+            long head1 = aux[pool.from[headInterval1]];
+            long head2 = aux[pool.from[headInterval2]];
+
+            if (head1 <= head2) {
+                if (aux[pool.to[headInterval1]] <= head2) {
+                    // Easy case, just append one interval to the other:
+                    if (mergedRunHead == IntervalPool.NULL) {
+                        mergedRunHead = headInterval1;
+                    } else {
+                        pool.next[mergedRunTail] = headInterval1;
+                    }
+
+                    mergedRunTail = headInterval1;
+                    headInterval1 = pool.next[headInterval1];
+                    continue;
+                }
+
+                // Cannot append. We need to split the left interval:
+                int index = findUpperBound(aux,
+                                           pool.from[headInterval1],
+                                           pool.to[headInterval1] + 1,
+                                           head2);
+
+                int newInterval = pool.allocate(pool.from[headInterval1],
+                                                index - 1);
+
+                // Remove some head elements from first interval:
+                pool.from[headInterval1] = index;
+
+                // Append a split interval to the tail of the merged run:
+                if (mergedRunHead == IntervalPool.NULL) {
+                    mergedRunHead = newInterval;
+                } else {
+                    pool.next[mergedRunTail] = newInterval;
+                }
+
+                mergedRunTail = newInterval;
+            } else {
+                if (aux[pool.to[headInterval2]] < head1) {
+                    // Easy case, just append one interval to the other:
+                    if (mergedRunHead == IntervalPool.NULL) {
+                        mergedRunHead = headInterval2;
+                    } else {
+                        pool.next[mergedRunTail] = headInterval2;
+                    }
+
+                    mergedRunTail = headInterval2;
+                    headInterval2 = pool.next[headInterval2];
+                    continue;
+                }
+
+                // Cannot append. We need to split the right interval:
+                int index = findLowerBound(aux,
+                                           pool.from[headInterval2],
+                                           pool.to[headInterval2] + 1,
+                                           head1);
+
+                int newInterval = pool.allocate(pool.from[headInterval2],
+                                                index - 1);
+
+                // Remove some head elements from second interval:
+                pool.from[headInterval2] = index;
+
+                // Append a split interval to the tail of the merge run:
+                if (mergedRunHead == IntervalPool.NULL) {
+                    mergedRunHead = newInterval;
+                } else {
+                    pool.next[mergedRunTail] = newInterval;
+                }
+
+                mergedRunTail = newInterval;
+            }
+        }
+
+        // Append the leftover intervals of a currently non-empty run to the
+        // tail of the merged run:
+        pool.next[mergedRunTail] = headInterval1 != IntervalPool.NULL ? 
+                                   headInterval1 : 
+                                   headInterval2;
+        return mergedRunHead;
+    }
+
+    private static final class RunLengthQueueBuilder {
+
+        private final RunQueue queue;
+        private final IntervalPool pool;
+        private final long[] array;
+        private final int[] indices;
+        private int head;
+        private int left;
+        private int right;
+        private final int last;
+        private boolean previousRunWasDesending;
+
+        RunLengthQueueBuilder(long[] array,
+                              int[] indices,
+                              int length,
+                              IntervalPool pool,
+                              RunQueue queue) {
+            this.queue = queue;
+            this.pool  = pool;
+            this.array = array;
+            this.indices = indices;
+            this.left  = 0;
+            this.right = 1;
+            this.last  = length - 1;
+        }
+
+        RunQueue run() {
+            while (left < last) {
+                head = left;
+
+                if (array[left++] <= array[right++]) {
+                    // The next run is ascending:
+                    scanAscendingRun();
+                } else {
+                    // The next run is descending:
+                    scanDescendingRun();
+                }
+
+                ++left;
+                ++right;
+            }
+
+            if (left == last) {
+                // Deal with a single element run at the very tail of the input
+                // array range:
+                if (array[last - 1] <= array[last]) {
+                    addToLastRun(1);
+                } else {
+                    queue.enqueue(pool.allocate(left, left));
+                }
+            }
+
+            return queue;
+        }
+
+        void scanAscendingRun() {
+            while (left < last && array[left] <= array[right]) {
+                ++left;
+                ++right;
+            }
+
+            if (previousRunWasDesending) {
+                if (array[head - 1] <= array[head]) {
+                    // We can just extend the previous run:
+                    addToLastRun(right - head);
+                } else {
+                    queue.enqueue(pool.allocate(head, left));
+                }
+            } else {
+                queue.enqueue(pool.allocate(head, left));
+            }
+
+            previousRunWasDesending = false;
+        }
+
+        void scanDescendingRun() {
+            while (left < last && array[left] > array[right]) {
+                ++left;
+                ++right;
+            }
+
+            reverseRun(head, left);
+
+            if (previousRunWasDesending) {
+                if (array[head - 1] <= array[head]) {
+                    // We can just extend the previous run:
+                    addToLastRun(right - head);
+                } else {
+                    queue.enqueue(pool.allocate(head, left));
+                }
+            } else {
+                queue.enqueue(pool.allocate(head, left));
+            }
+
+            previousRunWasDesending = true;
+        }
+
+        /**
+         * Extends the length of the tail run by {@code runLength} elements.
+         * 
+         * @param runLength the number of elements to add to the tail run.
+         */
+        private void addToLastRun(int runLength) {
+            pool.to[queue.last()] += runLength;
+        }
+
+        private void reverseRun(int i, int j) {
+            for (int k = i, l = j; k < l; ++k, --l) {
+                long tmp = array[k];
+                array[k] = array[l];
+                array[l] = tmp;
+            }
+
+            if (indices != null) {
+                for (; i < j; ++i, --j) {
+                    int tmp = indices[i];
+                    indices[i] = indices[j];
+                    indices[j] = tmp;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest index of an array component that is not less than
+     * {@code value}.
+     *
+     * @param array     the array holding the target range.
+     * @param fromIndex the lowest index of the array range to process.
+     * @param toIndex   the largest index of the array range to process plus
+     *                  one.
+     * @param value     the target value.
+     * @return          the array index.
+     */
+    private static int lowerBound(long[] array,
+                                  int fromIndex,
+                                  int toIndex,
+                                  long value) {
+        int count = toIndex - fromIndex;
+        int it;
+
+        while (count > 0) {
+            it = fromIndex;
+            int step = count >>> 1;
+            it += step;
+
+            if (array[it] < value) {
+                fromIndex = ++it;
+                count -= step + 1;
+            } else {
+                count = step;
+            }
+        }
+
+        return fromIndex;
+    }
+
+    /**
+     * Returns the smallest index of an array component that is greater than
+     * {@code value}.
+     *
+     * @param array     the array holding the target range.
+     * @param fromIndex the lowest index of the array range to process.
+     * @param toIndex   the largest index of the array range to process plus
+     *                  one.
+     * @param value     the target value.
+     * @return          the array index.
+     */
+    private static int upperBound(long[] array,
+                                  int fromIndex,
+                                  int toIndex,
+                                  long value) {
+        int count = toIndex - fromIndex;
+        int it;
+
+        while (count > 0) {
+            it = fromIndex;
+            int step = count >>> 1;
+            it += step;
+
+            if (array[it] <= value) {
+                fromIndex = ++it;
+                count -= step + 1;
+            } else {
+                count = step;
+            }
+        }
+
+        return fromIndex;
+    }
+
+    private static int findLowerBound(long[] array,
+                                      int fromIndex,
+                                      int toIndex,
+                                      long value) {
+        int bound = 1;
+        int rangeLength = toIndex - fromIndex;
+
+        // Do the exponential search in order to find faster the array subrange
+        // that might contain 'value':
+        while (bound < rangeLength && array[bound + fromIndex] < value) {
+            bound <<= 1;
+        }
+
+        // The containing range found. Now search in it with binary search:
+        return lowerBound(array,
+                          fromIndex + (bound >>> 1),
+                          Math.min(toIndex, fromIndex + bound),
+                          value);
+    }
+
+    private static int findUpperBound(long[] array,
+                                      int fromIndex,
+                                      int toIndex,
+                                      long value) {
+        int bound = 1;
+        int rangeLength = toIndex - fromIndex;
+
+        // Do the exponential search in order to find faster the array subrange
+        // that might contain 'value':
+        while (bound < rangeLength && array[bound + fromIndex] <= value) {
+            bound <<= 1;
+        }
+
+        // The containing range found. Now search in it with binary search:
+        return upperBound(array,
+                          fromIndex + (bound >>> 1),
+                          Math.min(toIndex, fromIndex + bound),
+                          value);
+    }
+}
@@ -0,0 +1,38 @@
+package net.coderodde.util;
+
+/**
+ * This enumeration lists the policies for choosing the order in which the 
+ * runs found in the input are merged. Every policy merges only neighbouring 
+ * runs, so all of them keep the sort stable; they differ in how well they 
+ * avoid merging a short run into a long one over and over again.
+ */
+public enum MergePolicy {
+
+    /**
+     * Merges the runs pairwise in passes from left to right, bouncing the 
+     * leftover run of an odd pass to the next pass. Ignores the run lengths.
+     */
+    FIFO,
+
+    /**
+     * Keeps the runs on a stack whose lengths grow at least as fast as the 
+     * Fibonacci numbers towards the bottom, merging whenever a new run breaks
+     * that invariant. This is the policy of TimSort.
+     */
+    STACK,
+
+    /**
+     * Assigns each boundary between two neighbouring runs a node power 
+     * computed from the run midpoints and merges on a stack whenever a 
+     * boundary of higher power lies below a boundary of lower power. This is 
+     * the policy of powersort; it stays within a small additive constant of 
+     * the optimal merge cost.
+     */
+    POWERSORT,
+
+    /**
+     * Repeatedly merges the pair of neighbouring runs with the smallest total
+     * length, keeping the pairs in a min-heap.
+     */
+    HUFFMAN
+}
@@ -0,0 +1,374 @@
+package net.coderodde.util;
+
+/**
+ * This class decides in which order the runs found by a run length queue
+ * builder are merged into a single run, according to a {@link MergePolicy}.
+ * The actual merging is left to the engine through a {@link RunMerger}.
+ */
+final class MergeScheduler {
+
+    /**
+     * The run stack of {@link MergePolicy#STACK} grows at least as fast as
+     * the Fibonacci numbers, and the one of {@link MergePolicy#POWERSORT}
+     * holds at most one run per node power, so neither gets this deep for
+     * any array length.
+     */
+    private static final int MAXIMUM_STACK_SIZE = 64;
+
+    /**
+     * Merges two neighbouring runs.
+     */
+    interface RunMerger {
+
+        /**
+         * Merges stably {@code run1} and the run {@code run2} immediately
+         * following it.
+         *
+         * @param run1 the head interval slot of the left run.
+         * @param run2 the head interval slot of the right run.
+         * @return the head interval slot of the merged run.
+         */
+        int merge(int run1, int run2);
+    }
+
+    private MergeScheduler() {}
+
+    /**
+     * Merges all the runs in {@code queue} into one.
+     *
+     * @param policy     the merge policy to follow.
+     * @param queue      the queue of runs in the order they appear in the 
+     *                   buffer. Each run must still consist of a single 
+     *                   interval.
+     * @param pool       the pool holding the intervals.
+     * @param length     the total length of all the runs.
+     * @param statistics the statistics to record the merge passes into, or
+     *                   {@code null}.
+     * @param merger     the merger of two runs.
+     * @return the head interval slot of the resulting run.
+     */
+    static int mergeAll(MergePolicy policy,
+                        RunQueue queue,
+                        IntervalPool pool,
+                        int length,
+                        SortStatistics statistics,
+                        RunMerger merger) {
+        switch (policy) {
+            case STACK:
+                return mergeStack(queue, pool, merger);
+
+            case POWERSORT:
+                return mergePowersort(queue, pool, length, merger);
+
+            case HUFFMAN:
+                return mergeHuffman(queue, pool, merger);
+
+            default:
+                return mergeFifo(queue, statistics, merger);
+        }
+    }
+
+    @SuppressWarnings("fallthrough")
+    private static int mergeFifo(RunQueue queue,
+                                 SortStatistics statistics,
+                                 RunMerger merger) {
+        // Number of runs not yet processed in the current merge pass over the
+        // data:
+        int runsLeft = queue.size();
+
+        if (statistics != null && runsLeft > 1) {
+            ++statistics.mergePasses;
+        }
+
+        while (queue.size() > 1) {
+            switch (runsLeft) {
+                case 1:
+                    // Bounce the lonely leftover run back to the tail of the
+                    // queue:
+                    queue.enqueue(queue.dequeue());
+                    // Fall through!
+
+                case 0:
+                    // Get to know how many runs there is to process in the
+                    // next merge pass:
+                    runsLeft = queue.size();
+
+                    if (statistics != null) {
+                        ++statistics.mergePasses;
+                    }
+
+                    continue;
+            }
+
+            // Remove the first two consecutive runs, merge them and append the
+            // resulting merged run to the tail of the run queue:
+            queue.enqueue(merger.merge(queue.dequeue(), queue.dequeue()));
+            // Update the number of runs not yet processed in this merge pass:
+            runsLeft -= 2;
+        }
+
+        return queue.dequeue();
+    }
+
+    private static int mergeStack(RunQueue queue,
+                                  IntervalPool pool,
+                                  RunMerger merger) {
+        int[] runs = new int[MAXIMUM_STACK_SIZE];
+        int[] lengths = new int[MAXIMUM_STACK_SIZE];
+        int size = 0;
+
+        while (queue.size() > 0) {
+            int run = queue.dequeue();
+            runs[size] = run;
+            lengths[size] = pool.to[run] - pool.from[run] + 1;
+            ++size;
+
+            // Restore the invariants lengths[i - 2] > lengths[i - 1] +
+            // lengths[i] and lengths[i - 1] > lengths[i] over the whole stack:
+            while (size > 1) {
+                int n = size - 2;
+
+                if (n > 0 && lengths[n - 1] <= lengths[n] + lengths[n + 1]
+                        || n > 1 &&
+                           lengths[n - 2] <= lengths[n - 1] + lengths[n]) {
+                    if (lengths[n - 1] < lengths[n + 1]) {
+                        --n;
+                    }
+                } else if (lengths[n] > lengths[n + 1]) {
+                    break;
+                }
+
+                size = mergeAt(runs, lengths, size, n, merger);
+            }
+        }
+
+        while (size > 1) {
+            int n = size - 2;
+
+            if (n > 0 && lengths[n - 1] < lengths[n + 1]) {
+                --n;
+            }
+
+            size = mergeAt(runs, lengths, size, n, merger);
+        }
+
+        return runs[0];
+    }
+
+    private static int mergePowersort(RunQueue queue,
+                                      IntervalPool pool,
+                                      int length,
+                                      RunMerger merger) {
+        int[] runs = new int[MAXIMUM_STACK_SIZE];
+        int[] lengths = new int[MAXIMUM_STACK_SIZE];
+        // powers[i] is the node power of the boundary between the runs i and
+        // i + 1:
+        int[] powers = new int[MAXIMUM_STACK_SIZE];
+        int size = 0;
+        int runStart = 0;
+
+        while (queue.size() > 0) {
+            int run = queue.dequeue();
+            int runLength = pool.to[run] - pool.from[run] + 1;
+
+            if (size > 0) {
+                int power = nodePower(runStart - lengths[size - 1],
+                                      lengths[size - 1],
+                                      runLength,
+                                      length);
+
+                while (size > 1 && powers[size - 2] > power) {
+                    size = mergeAt(runs, lengths, size, size - 2, merger);
+                }
+
+                powers[size - 1] = power;
+            }
+
+            runs[size] = run;
+            lengths[size] = runLength;
+            ++size;
+            runStart += runLength;
+        }
+
+        while (size > 1) {
+            size = mergeAt(runs, lengths, size, size - 2, merger);
+        }
+
+        return runs[0];
+    }
+
+    private static int mergeHuffman(RunQueue queue,
+                                    IntervalPool pool,
+                                    RunMerger merger) {
+        int runCount = queue.size();
+        int[] runs = new int[runCount];
+        // The length of a run merged into its left neighbour is set to -1:
+        int[] lengths = new int[runCount];
+        int[] previous = new int[runCount];
+        int[] next = new int[runCount];
+
+        for (int i = 0; i < runCount; ++i) {
+            runs[i] = queue.dequeue();
+            lengths[i] = pool.to[runs[i]] - pool.from[runs[i]] + 1;
+            previous[i] = i - 1;
+            next[i] = i + 1 < runCount ? i + 1 : IntervalPool.NULL;
+        }
+
+        // Each merge pushes at most two new pairs. The stale pairs are skipped
+        // when they surface:
+        PairHeap heap = new PairHeap(3 * runCount);
+
+        for (int i = 0; i + 1 < runCount; ++i) {
+            heap.push(lengths[i] + lengths[i + 1], i);
+        }
+
+        for (int merges = 1; merges < runCount; ) {
+            long pair = heap.pop();
+            int left = (int) pair;
+            int right = next[left];
+
+            if (lengths[left] < 0
+                    || right == IntervalPool.NULL
+                    || lengths[left] + lengths[right] != (int)(pair >>> 32)) {
+                // A stale pair: the lengths only grow, so a pair whose total
+                // length changed has been superseded by another one.
+                continue;
+            }
+
+            runs[left] = merger.merge(runs[left], runs[right]);
+            lengths[left] += lengths[right];
+            lengths[right] = -1;
+            next[left] = next[right];
+            ++merges;
+
+            if (next[left] != IntervalPool.NULL) {
+                previous[next[left]] = left;
+                heap.push(lengths[left] + lengths[next[left]], left);
+            }
+
+            if (previous[left] != IntervalPool.NULL) {
+                heap.push(lengths[previous[left]] + lengths[left],
+                          previous[left]);
+            }
+        }
+
+        // The leftmost run absorbs everything to its right:
+        return runs[0];
+    }
+
+    /**
+     * Merges the runs {@code i} and {@code i + 1} of a run stack and closes
+     * the gap.
+     *
+     * @return the new size of the stack.
+     */
+    private static int mergeAt(int[] runs,
+                               int[] lengths,
+                               int size,
+                               int i,
+                               RunMerger merger) {
+        runs[i] = merger.merge(runs[i], runs[i + 1]);
+        lengths[i] += lengths[i + 1];
+
+        if (i == size - 3) {
+            runs[i + 1] = runs[i + 2];
+            lengths[i + 1] = lengths[i + 2];
+        }
+
+        return size - 1;
+    }
+
+    /**
+     * Computes the powersort node power of the boundary between the
+     * neighbouring runs of lengths {@code length1} and {@code length2}, the
+     * first of which starts at {@code start1}. The power is the number of the
+     * leading bits that the binary fractions of the two run midpoints,
+     * relative to {@code totalLength}, have in common plus one.
+     */
+    private static int nodePower(int start1,
+                                 int length1,
+                                 int length2,
+                                 int totalLength) {
+        long midpoint1 = 2L * start1 + length1;  // Twice the first midpoint.
+        long midpoint2 = midpoint1 + length1 + length2;
+        int power = 0;
+
+        while (true) {
+            ++power;
+
+            if (midpoint1 >= totalLength) {
+                // Both the next bits are 1:
+                midpoint1 -= totalLength;
+                midpoint2 -= totalLength;
+            } else if (midpoint2 >= totalLength) {
+                // The bits differ:
+                return power;
+            }
+
+            midpoint1 <<= 1;
+            midpoint2 <<= 1;
+        }
+    }
+
+    /**
+     * A binary min-heap of neighbouring run pairs ordered by their total
+     * length, then by the index of the left run. A pair is packed into a
+     * {@code long} with the total length in the high half.
+     */
+    private static final class PairHeap {
+
+        private final long[] heap;
+        private int size;
+
+        PairHeap(int capacity) {
+            this.heap = new long[Math.max(capacity, 1)];
+        }
+
+        void push(int totalLength, int leftRun) {
+            long pair = ((long) totalLength << 32) | leftRun;
+            int index = size++;
+
+            while (index > 0) {
+                int parentIndex = (index - 1) >>> 1;
+
+                if (heap[parentIndex] <= pair) {
+                    break;
+                }
+
+                heap[index] = heap[parentIndex];
+                index = parentIndex;
+            }
+
+            heap[index] = pair;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long pair = heap[--size];
+            int index = 0;
+
+            while (true) {
+                int childIndex = (index << 1) + 1;
+
+                if (childIndex >= size) {
+                    break;
+                }
+
+                if (childIndex + 1 < size
+                        && heap[childIndex + 1] < heap[childIndex]) {
+                    ++childIndex;
+                }
+
+                if (pair <= heap[childIndex]) {
+                    break;
+                }
+
+                heap[index] = heap[childIndex];
+                index = childIndex;
+            }
+
+            heap[index] = pair;
+            return top;
+        }
+    }
+}
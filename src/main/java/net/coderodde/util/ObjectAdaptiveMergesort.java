@@ -0,0 +1,1386 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * This class implements the stable adaptive mergesort over object references
+ * ordered by a {@link Comparator}. The buffer is typed as {@code Object[]} so
+ * that it may come from a {@link SortWorkspace} shared between sorts of 
+ * different element types.
+ */
+final class ObjectAdaptiveMergesort {
+
+    /**
+     * The comparator imposing the natural ordering of {@link Comparable}
+     * objects.
+     */
+    @SuppressWarnings("unchecked")
+    static final Comparator<Object> NATURAL_ORDER = 
+            (object1, object2) -> 
+                    ((Comparable<Object>) object1).compareTo(object2);
+
+    // The length of the blocks the plain mergesort sorts by insertion sort:
+    private static final int PLAIN_BLOCK_LENGTH = 32;
+
+    private ObjectAdaptiveMergesort() {}
+
+    /**
+     * Sorts stably the range {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} using the scratch memory of {@code workspace}. The
+     * arguments are assumed to be valid.
+     * 
+     * @param array         the array holding the target range.
+     * @param fromIndex     the index of the first element in the range.
+     * @param toIndex       the index of the last element in the range plus 
+     *                      one.
+     * @param comparator    the comparator defining the order.
+     * @param configuration the sort configuration.
+     * @param workspace     the workspace to sort in.
+     */
+    static void sortRange(Object[] array,
+                          int fromIndex,
+                          int toIndex,
+                          Comparator<Object> comparator,
+                          SortConfiguration configuration,
+                          SortWorkspace workspace) {
+        int rangeLength = toIndex - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
+        }
+
+        // A compacting sort moves the runs between the halves of a buffer 
+        // twice the range length:
+        int bufferLength = 
+                configuration.getCompactionThreshold() == 
+                        SortConfiguration.NO_COMPACTION
+                || rangeLength > Integer.MAX_VALUE / 2 ?
+                rangeLength :
+                2 * rangeLength;
+
+        workspace = workspace.acquire(bufferLength);
+
+        try {
+            Object[] aux = workspace.objectBuffer();
+            IntervalPool pool = workspace.intervalPool();
+            SortStatistics statistics = configuration.getStatistics();
+            long copyStartTime = nanoTime(statistics);
+            System.arraycopy(array, fromIndex, aux, 0, rangeLength);
+            long copyEndTime = nanoTime(statistics);
+
+            int run = sort(aux,
+                           null,
+                           rangeLength,
+                           pool,
+                           workspace.runQueue(),
+                           comparator,
+                           configuration);
+
+            long writeBackStartTime = nanoTime(statistics);
+
+            // Put the elements in their correct positions such that the input 
+            // array range becomes stabily sorted:
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                int intervalFrom = pool.from[interval];
+                int intervalLength = pool.to[interval] - intervalFrom + 1;
+                System.arraycopy(aux, 
+                                 intervalFrom, 
+                                 array, 
+                                 arrayIndex, 
+                                 intervalLength);
+                arrayIndex += intervalLength;
+            }
+
+            if (statistics != null) {
+                statistics.copyingNanos += copyEndTime - copyStartTime + 
+                                           System.nanoTime() - 
+                                           writeBackStartTime;
+            }
+        } finally {
+            workspace.release(bufferLength);
+        }
+    }
+
+    /**
+     * Sorts stably the range {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} by a plain bottom-up mergesort that ignores any 
+     * existing order: blocks of {@value #PLAIN_BLOCK_LENGTH} elements are 
+     * sorted by binary insertion sort, and then merged pairwise in passes 
+     * alternating between the array and the object buffer of 
+     * {@code workspace}. The arguments are assumed to be valid.
+     * 
+     * @param array      the array holding the target range.
+     * @param fromIndex  the index of the first element in the range.
+     * @param toIndex    the index of the last element in the range plus one.
+     * @param comparator the comparator defining the order.
+     * @param workspace  the workspace to sort in.
+     */
+    static void plainSortRange(Object[] array,
+                               int fromIndex,
+                               int toIndex,
+                               Comparator<Object> comparator,
+                               SortWorkspace workspace) {
+        int rangeLength = toIndex - fromIndex;
+
+        for (int blockFrom = fromIndex; 
+                blockFrom < toIndex; 
+                blockFrom += PLAIN_BLOCK_LENGTH) {
+            insertionSort(array,
+                          blockFrom,
+                          Math.min(toIndex, blockFrom + PLAIN_BLOCK_LENGTH),
+                          comparator);
+        }
+
+        if (rangeLength <= PLAIN_BLOCK_LENGTH) {
+            return; // A single block, already sorted.
+        }
+
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            Object[] source = array;
+            Object[] target = workspace.objectBuffer();
+            int sourceOffset = fromIndex;
+            int targetOffset = 0;
+
+            for (int width = PLAIN_BLOCK_LENGTH; 
+                    width < rangeLength; 
+                    width <<= 1) {
+                for (int left = 0; left < rangeLength; left += 2 * width) {
+                    int middle = Math.min(rangeLength, left + width);
+                    int right = Math.min(rangeLength, left + 2 * width);
+                    mergeInto(source,
+                              sourceOffset + left,
+                              sourceOffset + middle,
+                              sourceOffset + right,
+                              target,
+                              targetOffset + left,
+                              comparator);
+                }
+
+                Object[] tmpArray = source;
+                source = target;
+                target = tmpArray;
+
+                int tmpOffset = sourceOffset;
+                sourceOffset = targetOffset;
+                targetOffset = tmpOffset;
+            }
+
+            if (source != array) {
+                System.arraycopy(source, 0, array, fromIndex, rangeLength);
+            }
+        } finally {
+            workspace.release(rangeLength);
+        }
+    }
+
+    /**
+     * Sorts stably the range {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} in place by binary insertion sort. An element 
+     * already following its predecessor costs a single comparison, so a 
+     * sorted range takes linear time. The arguments are assumed to be valid.
+     * 
+     * @param array      the array holding the target range.
+     * @param fromIndex  the index of the first element in the range.
+     * @param toIndex    the index of the last element in the range plus one.
+     * @param comparator the comparator defining the order.
+     */
+    static void insertionSort(Object[] array,
+                              int fromIndex,
+                              int toIndex,
+                              Comparator<Object> comparator) {
+        for (int i = fromIndex + 1; i < toIndex; ++i) {
+            Object pivot = array[i];
+
+            if (comparator.compare(array[i - 1], pivot) <= 0) {
+                continue; // Already in place.
+            }
+
+            // Insert after the equal elements in order to keep stability:
+            int index = upperBound(array, fromIndex, i - 1, pivot, comparator);
+            System.arraycopy(array, index, array, index + 1, i - index);
+            array[index] = pivot;
+        }
+    }
+
+    /**
+     * Returns a sorted view of the range {@code array[fromIndex], ..., 
+     * array[toIndex - 1]}. The range is copied into a buffer of the view's
+     * own and sorted there, leaving the array intact. The arguments are 
+     * assumed to be valid.
+     * 
+     * @param <T>        the element type.
+     * @param array      the array holding the target range.
+     * @param fromIndex  the index of the first element in the range.
+     * @param toIndex    the index of the last element in the range plus one.
+     * @param comparator the comparator defining the order.
+     * @return the sorted view.
+     */
+    static <T> SortedView<T> sortedView(Object[] array,
+                                        int fromIndex,
+                                        int toIndex,
+                                        Comparator<Object> comparator) {
+        int rangeLength = toIndex - fromIndex;
+        Object[] aux = Arrays.copyOfRange(array, fromIndex, toIndex);
+
+        if (rangeLength < 2) {
+            return new SortedView<>(aux, rangeLength, null, IntervalPool.NULL);
+        }
+
+        // The view outlives the sort, so no workspace is involved:
+        int maximumRuns = (rangeLength >>> 1) + 1;
+        IntervalPool pool = new IntervalPool(maximumRuns);
+        int run = sort(aux,
+                       null,
+                       rangeLength,
+                       pool,
+                       new RunQueue(maximumRuns),
+                       comparator,
+                       SortConfiguration.DEFAULT);
+
+        return new SortedView<>(aux, rangeLength, pool, run);
+    }
+
+    /**
+     * Restores the sorted order of {@code array} after the components at 
+     * the {@code dirtyCount} strictly increasing valid indices in 
+     * {@code dirtyIndices} were modified. Only the modified elements are 
+     * sorted; the gaps they leave are closed by moving the clean blocks in
+     * bulk, after which the modified elements are inserted from the right,
+     * each after the clean elements equal to it, with exponential search. 
+     * This takes {@code O(d log n)} comparisons for {@code d} modified 
+     * elements.
+     * 
+     * @param array        the array sorted except for the dirty components.
+     * @param dirtyIndices the indices of the modified components.
+     * @param dirtyCount   the number of modified components. Must be 
+     *                     positive.
+     * @param comparator   the comparator defining the order.
+     */
+    static void resort(Object[] array,
+                       int[] dirtyIndices,
+                       int dirtyCount,
+                       Comparator<Object> comparator) {
+        Object[] dirty = new Object[dirtyCount];
+
+        for (int i = 0; i < dirtyCount; ++i) {
+            dirty[i] = array[dirtyIndices[i]];
+        }
+
+        sortRange(dirty, 
+                  0, 
+                  dirtyCount, 
+                  comparator, 
+                  SortConfiguration.DEFAULT, 
+                  SortWorkspace.singleUse());
+
+        // Close the gaps, moving each clean block between two dirty 
+        // components to the left:
+        int targetIndex = dirtyIndices[0];
+
+        for (int i = 0; i < dirtyCount; ++i) {
+            int blockStart = dirtyIndices[i] + 1;
+            int blockEnd = i + 1 < dirtyCount ? 
+                           dirtyIndices[i + 1] : 
+                           array.length;
+
+            System.arraycopy(array, 
+                             blockStart, 
+                             array, 
+                             targetIndex, 
+                             blockEnd - blockStart);
+
+            targetIndex += blockEnd - blockStart;
+        }
+
+        // Now the clean elements occupy array[0], ..., array[cleanEnd - 1]. 
+        // Insert the dirty ones from the greatest on:
+        int cleanEnd = array.length - dirtyCount;
+
+        for (int i = dirtyCount - 1; i >= 0; --i) {
+            int index = findUpperBoundFromRight(array, 
+                                                0, 
+                                                cleanEnd, 
+                                                dirty[i], 
+                                                comparator);
+
+            // Make room for the i + 1 dirty elements yet to insert:
+            System.arraycopy(array, 
+                             index, 
+                             array, 
+                             index + i + 1, 
+                             cleanEnd - index);
+
+            array[index + i] = dirty[i];
+            cleanEnd = index;
+        }
+    }
+
+    /**
+     * Sorts the leading {@code length} values of {@code aux}. The buffer is 
+     * not rearranged into sorted order; instead, the returned run lists the 
+     * intervals of {@code aux} in the order they must be read.
+     *
+     * @param aux           the buffer to sort. The runs are compacted as 
+     *                      {@code configuration} asks only if it has room 
+     *                      for {@code 2 * length} components, the upper half
+     *                      serving as scratch space.
+     * @param indices       the satellite array whose leading {@code length}
+     *                      components are moved along with the values in
+     *                      {@code aux} while the runs are built, or 
+     *                      {@code null}. Afterwards, {@code indices[i]} is
+     *                      the original index of the value in {@code aux[i]}
+     *                      if the array held the identity permutation.
+     * @param length        the number of leading values in {@code aux} to 
+     *                      sort. Must be at least two.
+     * @param pool          the empty pool for storing the intervals.
+     * @param queue         the empty run queue with room for 
+     *                      {@code (length >>> 1) + 1} runs.
+     * @param comparator    the comparator defining the order.
+     * @param configuration the sort configuration.
+     * @return the head interval slot of the single run describing the sorted
+     *         order of {@code aux[0], ..., aux[length - 1]}.
+     */
+    static int sort(Object[] aux,
+                    int[] indices,
+                    int length,
+                    IntervalPool pool,
+                    RunQueue queue,
+                    Comparator<Object> comparator,
+                    SortConfiguration configuration) {
+        SortStatistics statistics = configuration.getStatistics();
+        // Only a recording sort pays for counting the comparisons:
+        Comparator<Object> activeComparator = 
+                statistics == null ? 
+                comparator : 
+                countingComparator(comparator, statistics);
+
+        if (statistics != null) {
+            ++statistics.sorts;
+            statistics.elements += length;
+        }
+
+        long startTime = nanoTime(statistics);
+
+        new RunLengthQueueBuilder(
+                aux,
+                indices,
+                0,
+                length,
+                pool,
+                queue,
+                activeComparator,
+                configuration.resolveMinimumRunLength(length),
+                statistics).run();
+
+        long runsBuiltTime = nanoTime(statistics);
+
+        if (statistics != null) {
+            statistics.runs += queue.size();
+        }
+
+        int run = mergeRuns(aux, 
+                            indices, 
+                            length, 
+                            pool, 
+                            queue, 
+                            activeComparator, 
+                            configuration, 
+                            statistics);
+
+        if (statistics != null) {
+            statistics.runBuildingNanos += runsBuiltTime - startTime;
+            statistics.mergingNanos += System.nanoTime() - runsBuiltTime;
+        }
+
+        return run;
+    }
+
+    /**
+     * Merges stably the sorted slices {@code array[boundaries[i]], ..., 
+     * array[boundaries[i + 1] - 1]} into one, so that the range from 
+     * {@code array[boundaries[0]]} to 
+     * {@code array[boundaries[boundaries.length - 1] - 1]} becomes sorted. 
+     * The slices are taken as the runs as they are, without scanning them. 
+     * The arguments are assumed to be valid.
+     * 
+     * @param array         the array holding the slices.
+     * @param boundaries    the non-decreasing boundaries of the slices.
+     * @param comparator    the comparator defining the order.
+     * @param configuration the configuration of the merging.
+     * @param workspace     the workspace to merge in.
+     */
+    static void mergeSlices(Object[] array,
+                            int[] boundaries,
+                            Comparator<Object> comparator,
+                            SortConfiguration configuration,
+                            SortWorkspace workspace) {
+        if (boundaries.length < 2) {
+            return; // No slices.
+        }
+
+        int fromIndex = boundaries[0];
+        int rangeLength = boundaries[boundaries.length - 1] - fromIndex;
+
+        if (rangeLength < 2) {
+            return; // Trivially sorted.
+        }
+
+        workspace = workspace.acquire(rangeLength);
+
+        try {
+            Object[] aux = workspace.objectBuffer();
+            IntervalPool pool = workspace.intervalPool();
+            RunQueue queue = workspace.runQueue();
+
+            if (queue.capacity() < boundaries.length - 1) {
+                // Many short slices make more runs than a scan would:
+                queue = new RunQueue(boundaries.length - 1);
+            }
+
+            System.arraycopy(array, fromIndex, aux, 0, rangeLength);
+
+            for (int i = 0; i + 1 < boundaries.length; ++i) {
+                if (boundaries[i] < boundaries[i + 1]) {
+                    queue.enqueue(pool.allocate(boundaries[i] - fromIndex, 
+                                                boundaries[i + 1] - 
+                                                fromIndex - 1));
+                }
+            }
+
+            int run = mergeRuns(aux, 
+                                null, 
+                                rangeLength, 
+                                pool, 
+                                queue, 
+                                comparator, 
+                                configuration, 
+                                null);
+
+            int arrayIndex = fromIndex;
+
+            for (int interval = run; 
+                    interval != IntervalPool.NULL; 
+                    interval = pool.next[interval]) {
+                int intervalFrom = pool.from[interval];
+                int intervalLength = pool.to[interval] - intervalFrom + 1;
+                System.arraycopy(aux, 
+                                 intervalFrom, 
+                                 array, 
+                                 arrayIndex, 
+                                 intervalLength);
+                arrayIndex += intervalLength;
+            }
+        } finally {
+            workspace.release(rangeLength);
+        }
+    }
+
+    /**
+     * Merges all the runs in {@code queue}, each still a single interval, 
+     * into one as instructed by {@code configuration}.
+     */
+    private static int mergeRuns(Object[] aux,
+                                 int[] indices,
+                                 int length,
+                                 IntervalPool pool,
+                                 RunQueue queue,
+                                 Comparator<Object> comparator,
+                                 SortConfiguration configuration,
+                                 SortStatistics statistics) {
+        Gallop gallop = new Gallop(configuration.getMinimumGallop());
+        // Compacting needs the upper half of a buffer twice the length:
+        Compactor compactor = 
+                configuration.getCompactionThreshold() == 
+                        SortConfiguration.NO_COMPACTION
+                || aux.length < 2L * length
+                || indices != null && indices.length < 2L * length ?
+                null :
+                new Compactor(aux, 
+                              indices, 
+                              length, 
+                              pool, 
+                              configuration.getCompactionThreshold(),
+                              statistics);
+
+        return MergeScheduler.mergeAll(
+                configuration.getMergePolicy(),
+                queue,
+                pool,
+                length,
+                statistics,
+                (run1, run2) -> {
+                    int mergedRun = merge(aux, 
+                                          pool, 
+                                          comparator, 
+                                          gallop,
+                                          statistics, 
+                                          run1, 
+                                          run2);
+
+                    return compactor == null ? 
+                           mergedRun : 
+                           compactor.compact(mergedRun);
+                });
+    }
+
+    /**
+     * Splits the range {@code aux[fromIndex], ..., aux[toIndex - 1]} into 
+     * natural runs, reversing the descending ones, without merging them.
+     * 
+     * @param aux        the buffer holding the range to split into runs.
+     * @param fromIndex  the index of the first element in the range.
+     * @param toIndex    the index of the last element in the range plus one.
+     *                   The range must hold at least two elements.
+     * @param pool       the empty pool for storing the intervals.
+     * @param queue      the empty run queue with room for 
+     *                   {@code ((toIndex - fromIndex) >>> 1) + 1} runs.
+     * @param comparator the comparator defining the order.
+     */
+    static void buildRuns(Object[] aux,
+                          int fromIndex,
+                          int toIndex,
+                          IntervalPool pool,
+                          RunQueue queue,
+                          Comparator<Object> comparator) {
+        new RunLengthQueueBuilder(aux, 
+                                  null, 
+                                  fromIndex,
+                                  toIndex, 
+                                  pool, 
+                                  queue, 
+                                  comparator, 
+                                  1, 
+                                  null).run();
+    }
+
+    /**
+     * Merges stably the adjacent sorted ranges {@code array[fromIndex], ...,
+     * array[middleIndex - 1]} and {@code array[middleIndex], ..., 
+     * array[toIndex - 1]} in place, buffering only the left range into
+     * {@code buffer} starting from index {@code bufferIndex}.
+     * 
+     * @param array       the array holding the ranges.
+     * @param buffer      the buffer for the left range.
+     * @param bufferIndex the index of the first buffer component to use.
+     * @param fromIndex   the index of the first element of the left range.
+     * @param middleIndex the index of the first element of the right range.
+     * @param toIndex     the index of the last element of the right range 
+     *                    plus one.
+     * @param comparator  the comparator defining the order.
+     */
+    static void mergeAdjacentRuns(Object[] array,
+                                  Object[] buffer,
+                                  int bufferIndex,
+                                  int fromIndex,
+                                  int middleIndex,
+                                  int toIndex,
+                                  Comparator<Object> comparator) {
+        int leftLength = middleIndex - fromIndex;
+        int bufferEnd = bufferIndex + leftLength;
+        System.arraycopy(array, fromIndex, buffer, bufferIndex, leftLength);
+
+        int rightIndex = middleIndex;
+        int targetIndex = fromIndex;
+
+        while (bufferIndex < bufferEnd && rightIndex < toIndex) {
+            if (comparator.compare(array[rightIndex], 
+                                   buffer[bufferIndex]) < 0) {
+                array[targetIndex++] = array[rightIndex++];
+            } else {
+                array[targetIndex++] = buffer[bufferIndex++];
+            }
+        }
+
+        // The leftover right elements are already in place:
+        System.arraycopy(buffer,
+                         bufferIndex,
+                         array,
+                         targetIndex,
+                         bufferEnd - bufferIndex);
+    }
+
+    /**
+     * Merges stably the adjacent sorted ranges {@code source[fromIndex], ...,
+     * source[middleIndex - 1]} and {@code source[middleIndex], ..., 
+     * source[toIndex - 1]} into {@code target} starting from index 
+     * {@code targetIndex}.
+     */
+    private static void mergeInto(Object[] source,
+                                  int fromIndex,
+                                  int middleIndex,
+                                  int toIndex,
+                                  Object[] target,
+                                  int targetIndex,
+                                  Comparator<Object> comparator) {
+        int leftIndex = fromIndex;
+        int rightIndex = middleIndex;
+
+        while (leftIndex < middleIndex && rightIndex < toIndex) {
+            if (comparator.compare(source[rightIndex], 
+                                   source[leftIndex]) < 0) {
+                target[targetIndex++] = source[rightIndex++];
+            } else {
+                target[targetIndex++] = source[leftIndex++];
+            }
+        }
+
+        System.arraycopy(source, 
+                         leftIndex, 
+                         target, 
+                         targetIndex, 
+                         middleIndex - leftIndex);
+
+        System.arraycopy(source, 
+                         rightIndex, 
+                         target, 
+                         targetIndex + middleIndex - leftIndex, 
+                         toIndex - rightIndex);
+    }
+
+    private static int merge(Object[] aux,
+                             IntervalPool pool,
+                             Comparator<Object> comparator,
+                             Gallop gallop,
+                             SortStatistics statistics,
+                             int run1,
+                             int run2) {
+        if (statistics != null) {
+            ++statistics.merges;
+        }
+
+        int headInterval1 = run1;
+        int headInterval2 = run2;
+        int mergedRunHead = IntervalPool.NULL;
+        int mergedRunTail = IntervalPool.NULL;
+
+        // While both the left and right runs have intervals to offer, do:
+        while (headInterval1 != IntervalPool.NULL 
+                && headInterval2 != IntervalPool.NULL) {
+            Object head1 = aux[pool.from[headInterval1]];
+            Object head2 = aux[pool.from[headInterval2]];
+
+            if (comparator.compare(head1, head2) <= 0) {
+                Object tail1 = aux[pool.to[headInterval1]];
+
+                if (comparator.compare(tail1, head2) <= 0) {
+                    // Easy case, just append one interval to the other:
+                    if (mergedRunHead == IntervalPool.NULL) {
+                        mergedRunHead = headInterval1;
+                    } else {
+                        pool.next[mergedRunTail] = headInterval1;
+                    }
+
+                    if (statistics != null) {
+                        ++statistics.wholeIntervals;
+                    }
+
+                    mergedRunTail = headInterval1;
+                    headInterval1 = pool.next[headInterval1];
+                    continue;
+                }
+
+                // Cannot append. We need to split the left interval:
+                int index = scanUpperBound(aux,
+                                           pool.from[headInterval1],
+                                           pool.to[headInterval1] + 1,
+                                           head2,
+                                           comparator,
+                                           gallop,
+                                           statistics);
+
+                int newInterval = pool.allocate(pool.from[headInterval1],
+                                                index - 1);
+
+                if (statistics != null) {
+                    ++statistics.splitIntervals;
+                }
+
+                // Remove some head elements from first interval:
+                pool.from[headInterval1] = index;
+
+                // Append a split interval to the tail of the merged run:
+                if (mergedRunHead == IntervalPool.NULL) {
+                    mergedRunHead = newInterval;
+                } else {
+                    pool.next[mergedRunTail] = newInterval;
+                }
+
+                mergedRunTail = newInterval;
+            } else {
+                Object tail2 = aux[pool.to[headInterval2]];
+
+                if (comparator.compare(tail2, head1) < 0) {
+                    // Easy case, just append one interval to the other:
+                    if (mergedRunHead == IntervalPool.NULL) {
+                        mergedRunHead = headInterval2;
+                    } else {
+                        pool.next[mergedRunTail] = headInterval2;
+                    }
+
+                    if (statistics != null) {
+                        ++statistics.wholeIntervals;
+                    }
+
+                    mergedRunTail = headInterval2;
+                    headInterval2 = pool.next[headInterval2];
+                    continue;
+                }
+
+                // Cannot append. We need to split the right interval:
+                int index = scanLowerBound(aux,
+                                           pool.from[headInterval2],
+                                           pool.to[headInterval2] + 1,
+                                           head1,
+                                           comparator,
+                                           gallop,
+                                           statistics);
+
+                int newInterval = pool.allocate(pool.from[headInterval2],
+                                                index - 1);
+
+                if (statistics != null) {
+                    ++statistics.splitIntervals;
+                }
+
+                // Remove some head elements from second interval:
+                pool.from[headInterval2] = index;
+
+                // Append a split interval to the tail of the merge run:
+                if (mergedRunHead == IntervalPool.NULL) {
+                    mergedRunHead = newInterval;
+                } else {
+                    pool.next[mergedRunTail] = newInterval;
+                }
+
+                mergedRunTail = newInterval;
+            }
+        }
+
+        // Append the leftover intervals of a currently non-empty run to the
+        // tail of the merged run:
+        pool.next[mergedRunTail] = headInterval1 != IntervalPool.NULL ? 
+                                   headInterval1 : 
+                                   headInterval2;
+        return mergedRunHead;
+    }
+
+    private static final class RunLengthQueueBuilder {
+
+        private final RunQueue queue;
+        private final IntervalPool pool;
+        private final Object[] array;
+        private final int[] indices;
+        private final Comparator<Object> comparator;
+        private int head;
+        private int left;
+        private int right;
+        private final int last;
+        private final int minimumRunLength;
+        private final SortStatistics statistics;
+        private boolean previousRunWasDesending;
+
+        RunLengthQueueBuilder(Object[] array,
+                              int[] indices,
+                              int fromIndex,
+                              int toIndex,
+                              IntervalPool pool,
+                              RunQueue queue,
+                              Comparator<Object> comparator,
+                              int minimumRunLength,
+                              SortStatistics statistics) {
+            this.queue = queue;
+            this.pool  = pool;
+            this.array = array;
+            this.indices = indices;
+            this.comparator = comparator;
+            this.left  = fromIndex;
+            this.right = fromIndex + 1;
+            this.last  = toIndex - 1;
+            this.minimumRunLength = minimumRunLength;
+            this.statistics = statistics;
+        }
+
+        RunQueue run() {
+            while (left < last) {
+                head = left;
+
+                if (comparator.compare(array[left++], array[right++]) <= 0) {
+                    // The next run is ascending:
+                    scanAscendingRun();
+                } else {
+                    // The next run is descending:
+                    scanDescendingRun();
+                }
+
+                ++left;
+                ++right;
+            }
+
+            if (left == last) {
+                // Deal with a single element run at the very tail of the input
+                // array range:
+                if (comparator.compare(array[last - 1], array[last]) <= 0) {
+                    addToLastRun(1);
+                } else {
+                    queue.enqueue(pool.allocate(left, left));
+                }
+            }
+
+            return queue;
+        }
+
+        void scanAscendingRun() {
+            while (left < last 
+                    && comparator.compare(array[left], array[right]) <= 0) {
+                ++left;
+                ++right;
+            }
+
+            if (statistics != null) {
+                ++statistics.ascendingRuns;
+            }
+
+            boolean extended = extendToMinimumRunLength();
+
+            if (previousRunWasDesending) {
+                if (comparator.compare(array[head - 1], array[head]) <= 0) {
+                    // We can just extend the previous run:
+                    addToLastRun(right - head);
+                } else {
+                    queue.enqueue(pool.allocate(head, left));
+                }
+            } else {
+                queue.enqueue(pool.allocate(head, left));
+            }
+
+            // An extended run does not necessarily end where the order breaks,
+            // so just like after a reversed descending run, the next run must 
+            // check whether it continues this one:
+            previousRunWasDesending = extended;
+        }
+
+        void scanDescendingRun() {
+            while (left < last 
+                    && comparator.compare(array[left], array[right]) > 0) {
+                ++left;
+                ++right;
+            }
+
+            if (statistics != null) {
+                ++statistics.descendingRuns;
+            }
+
+            reverseRun(head, left);
+            extendToMinimumRunLength();
+
+            if (previousRunWasDesending) {
+                if (comparator.compare(array[head - 1], array[head]) <= 0) {
+                    // We can just extend the previous run:
+                    addToLastRun(right - head);
+                } else {
+                    queue.enqueue(pool.allocate(head, left));
+                }
+            } else {
+                queue.enqueue(pool.allocate(head, left));
+            }
+
+            previousRunWasDesending = true;
+        }
+
+        /**
+         * Extends the length of the tail run by {@code runLength} elements.
+         * 
+         * @param runLength the number of elements to add to the tail run.
+         */
+        private void addToLastRun(int runLength) {
+            pool.to[queue.last()] += runLength;
+        }
+
+        /**
+         * Extends the current run {@code array[head], ..., array[left]} by 
+         * binary insertion sort to {@code minimumRunLength} elements or to the
+         * end of the range, whichever comes first.
+         * 
+         * @return {@code true} if the run was extended.
+         */
+        private boolean extendToMinimumRunLength() {
+            int end = last - head < minimumRunLength - 1 ? 
+                      last : 
+                      head + minimumRunLength - 1;
+
+            if (end <= left) {
+                return false;
+            }
+
+            for (int i = left + 1; i <= end; ++i) {
+                Object pivot = array[i];
+                // Insert after the equal elements in order to keep stability:
+                int index = upperBound(array, head, i, pivot, comparator);
+                System.arraycopy(array, index, array, index + 1, i - index);
+                array[index] = pivot;
+
+                if (indices != null) {
+                    int pivotIndex = indices[i];
+                    System.arraycopy(indices, 
+                                     index, 
+                                     indices, 
+                                     index + 1, 
+                                     i - index);
+                    indices[index] = pivotIndex;
+                }
+            }
+
+            left = end;
+            right = end + 1;
+            return true;
+        }
+
+        private void reverseRun(int i, int j) {
+            for (int k = i, l = j; k < l; ++k, --l) {
+                Object tmp = array[k];
+                array[k] = array[l];
+                array[l] = tmp;
+            }
+
+            if (indices != null) {
+                for (; i < j; ++i, --j) {
+                    int tmp = indices[i];
+                    indices[i] = indices[j];
+                    indices[j] = tmp;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest index of an array component that does not compare 
+     * less than {@code value}.
+     *
+     * @param array      the array holding the target range.
+     * @param fromIndex  the lowest index of the array range to process.
+     * @param toIndex    the largest index of the array range to process plus
+     *                   one.
+     * @param value      the target value.
+     * @param comparator the comparator defining the order.
+     * @return           the array index.
+     */
+    static int lowerBound(Object[] array,
+                          int fromIndex,
+                          int toIndex,
+                          Object value,
+                          Comparator<Object> comparator) {
+        int count = toIndex - fromIndex;
+        int it;
+
+        while (count > 0) {
+            it = fromIndex;
+            int step = count >>> 1;
+            it += step;
+
+            if (comparator.compare(array[it], value) < 0) {
+                fromIndex = ++it;
+                count -= step + 1;
+            } else {
+                count = step;
+            }
+        }
+
+        return fromIndex;
+    }
+
+    /**
+     * Returns the smallest index of an array component that compares greater 
+     * than {@code value}.
+     *
+     * @param array      the array holding the target range.
+     * @param fromIndex  the lowest index of the array range to process.
+     * @param toIndex    the largest index of the array range to process plus
+     *                   one.
+     * @param value      the target value.
+     * @param comparator the comparator defining the order.
+     * @return           the array index.
+     */
+    static int upperBound(Object[] array,
+                          int fromIndex,
+                          int toIndex,
+                          Object value,
+                          Comparator<Object> comparator) {
+        int count = toIndex - fromIndex;
+        int it;
+
+        while (count > 0) {
+            it = fromIndex;
+            int step = count >>> 1;
+            it += step;
+
+            if (comparator.compare(array[it], value) <= 0) {
+                fromIndex = ++it;
+                count -= step + 1;
+            } else {
+                count = step;
+            }
+        }
+
+        return fromIndex;
+    }
+
+    static int findLowerBound(Object[] array,
+                              int fromIndex,
+                              int toIndex,
+                              Object value,
+                              Comparator<Object> comparator) {
+        int bound = 1;
+        int rangeLength = toIndex - fromIndex;
+
+        // Do the exponential search in order to find faster the array subrange
+        // that might contain 'value':
+        while (bound < rangeLength
+                && comparator.compare(array[bound + fromIndex], value) < 0) {
+            bound <<= 1;
+        }
+
+        // The containing range found. Now search in it with binary search:
+        return lowerBound(array,
+                          fromIndex + (bound >>> 1),
+                          Math.min(toIndex, fromIndex + bound),
+                          value,
+                          comparator);
+    }
+
+    static int findUpperBound(Object[] array,
+                              int fromIndex,
+                              int toIndex,
+                              Object value,
+                              Comparator<Object> comparator) {
+        int bound = 1;
+        int rangeLength = toIndex - fromIndex;
+
+        // Do the exponential search in order to find faster the array subrange
+        // that might contain 'value':
+        while (bound < rangeLength
+                && comparator.compare(array[bound + fromIndex], value) <= 0) {
+            bound <<= 1;
+        }
+
+        // The containing range found. Now search in it with binary search:
+        return upperBound(array,
+                          fromIndex + (bound >>> 1),
+                          Math.min(toIndex, fromIndex + bound),
+                          value,
+                          comparator);
+    }
+
+    /**
+     * Returns the smallest index of a component of the sorted range 
+     * {@code array[fromIndex], ..., array[toIndex - 1]} that compares greater
+     * than {@code value}, searching exponentially from the right end.
+     */
+    static int findUpperBoundFromRight(Object[] array,
+                                       int fromIndex,
+                                       int toIndex,
+                                       Object value,
+                                       Comparator<Object> comparator) {
+        int bound = 1;
+        int rangeLength = toIndex - fromIndex;
+
+        while (bound <= rangeLength 
+                && comparator.compare(array[toIndex - bound], value) > 0) {
+            bound <<= 1;
+        }
+
+        // array[toIndex - (bound >>> 1)] and everything to its right compare
+        // greater than 'value':
+        return upperBound(array,
+                          Math.max(fromIndex, toIndex - bound),
+                          toIndex - (bound >>> 1),
+                          value,
+                          comparator);
+    }
+
+    /**
+     * Holds the gallop threshold of a sort, which adapts to the data as the 
+     * merges proceed.
+     */
+    private static final class Gallop {
+
+        private final int minimumGallop;
+        private int threshold;
+
+        Gallop(int minimumGallop) {
+            this.minimumGallop = minimumGallop;
+            this.threshold = minimumGallop;
+        }
+
+        /**
+         * Returns the number of leading elements of an interval to scan 
+         * linearly, its head included, before searching exponentially.
+         */
+        int threshold() {
+            return threshold;
+        }
+
+        /**
+         * Adapts the threshold to an exponential search that skipped 
+         * {@code distance} elements: a long skip makes the next search begin
+         * sooner, a short one later.
+         */
+        void searched(int distance) {
+            if (distance >= minimumGallop) {
+                threshold = Math.max(1, threshold - 1);
+            } else if (threshold <= Integer.MAX_VALUE - 2) {
+                threshold += 2;
+            }
+        }
+    }
+
+    /**
+     * Moves the merged runs whose intervals got too short on average into 
+     * contiguous stretches of the buffer. The buffer has room for twice the
+     * elements sorted, and the upper half serves as the scratch space: the
+     * slot of a position is the position modulo the number of elements, and
+     * every slot holds exactly one element, in one of the halves. Since the 
+     * runs merged are always neighbours, the slots of a run form a 
+     * contiguous stretch. The compactor gathers the run into that stretch of
+     * the half holding fewer of its elements, first moving those elements to
+     * the same slots of the other half. A run thus ping-pongs between the
+     * halves and is never copied back.
+     */
+    private static final class Compactor {
+
+        private final Object[] aux;
+        private final int[] indices;
+        private final int length;
+        private final IntervalPool pool;
+        private final int threshold;
+        private final SortStatistics statistics;
+
+        Compactor(Object[] aux,
+                  int[] indices,
+                  int length,
+                  IntervalPool pool,
+                  int threshold,
+                  SortStatistics statistics) {
+            this.aux = aux;
+            this.indices = indices;
+            this.length = length;
+            this.pool = pool;
+            this.threshold = threshold;
+            this.statistics = statistics;
+        }
+
+        /**
+         * Compacts {@code run} if its intervals hold fewer than the threshold
+         * elements on average.
+         *
+         * @param run the head interval slot of the run.
+         * @return the head interval slot of the possibly compacted run.
+         */
+        int compact(int run) {
+            int intervals = 0;
+            int runLength = 0;
+            int upperLength = 0;
+            int runSlot = Integer.MAX_VALUE;
+
+            for (int interval = run;
+                    interval != IntervalPool.NULL;
+                    interval = pool.next[interval]) {
+                int intervalFrom = pool.from[interval];
+                int intervalLength = pool.to[interval] - intervalFrom + 1;
+                ++intervals;
+                runLength += intervalLength;
+
+                if (intervalFrom >= length) {
+                    upperLength += intervalLength;
+                    intervalFrom -= length;
+                }
+
+                runSlot = Math.min(runSlot, intervalFrom);
+            }
+
+            // The final run is read in order just once, no need to compact:
+            if (intervals == 1 
+                    || runLength == length 
+                    || runLength >= (long) intervals * threshold) {
+                return run;
+            }
+
+            // Gather into the half holding fewer elements of the run:
+            boolean toUpper = upperLength <= runLength - upperLength;
+            int targetIndex = toUpper ? runSlot + length : runSlot;
+
+            if (upperLength != 0 && upperLength != runLength) {
+                // Clear the target half of the run first:
+                for (int interval = run;
+                        interval != IntervalPool.NULL;
+                        interval = pool.next[interval]) {
+                    if ((pool.from[interval] >= length) == toUpper) {
+                        int shift = toUpper ? -length : length;
+                        move(pool.from[interval], 
+                             pool.from[interval] + shift,
+                             pool.to[interval] - pool.from[interval] + 1);
+                        pool.from[interval] += shift;
+                        pool.to[interval] += shift;
+                    }
+                }
+            }
+
+            int interval = run;
+
+            while (interval != IntervalPool.NULL) {
+                int intervalFrom = pool.from[interval];
+                int intervalLength = pool.to[interval] - intervalFrom + 1;
+                move(intervalFrom, targetIndex, intervalLength);
+                targetIndex += intervalLength;
+
+                // Keep the head slot for the compacted run:
+                int nextInterval = pool.next[interval];
+
+                if (interval != run) {
+                    pool.release(interval);
+                }
+
+                interval = nextInterval;
+            }
+
+            pool.from[run] = targetIndex - runLength;
+            pool.to[run] = targetIndex - 1;
+            pool.next[run] = IntervalPool.NULL;
+
+            if (statistics != null) {
+                ++statistics.compactions;
+                statistics.compactedElements += runLength;
+            }
+
+            return run;
+        }
+
+        private void move(int fromIndex, int toIndex, int moveLength) {
+            System.arraycopy(aux, fromIndex, aux, toIndex, moveLength);
+
+            if (indices != null) {
+                System.arraycopy(indices, 
+                                 fromIndex, 
+                                 indices, 
+                                 toIndex, 
+                                 moveLength);
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest index of a component of the sorted range 
+     * {@code aux[fromIndex], ..., aux[toIndex - 1]} that compares greater 
+     * than {@code value}, given that {@code aux[fromIndex]} does not and 
+     * {@code aux[toIndex - 1]} does. The range is scanned linearly up to the
+     * gallop threshold, and searched exponentially past it.
+     */
+    private static int scanUpperBound(Object[] aux,
+                                      int fromIndex,
+                                      int toIndex,
+                                      Object value,
+                                      Comparator<Object> comparator,
+                                      Gallop gallop,
+                                      SortStatistics statistics) {
+        int index = fromIndex + 1;
+        int limit = gallop.threshold() < toIndex - fromIndex ? 
+                    fromIndex + gallop.threshold() : 
+                    toIndex;
+
+        while (index < limit && comparator.compare(aux[index], value) <= 0) {
+            ++index;
+        }
+
+        if (statistics != null) {
+            statistics.searchSteps += index - fromIndex - 1;
+        }
+
+        if (index < limit) {
+            return index;
+        }
+
+        // A long streak, continue by galloping:
+        int bound = findUpperBound(aux, index, toIndex, value, comparator);
+        gallop.searched(bound - index);
+
+        if (statistics != null) {
+            statistics.searchSteps += searchSteps(bound - index);
+        }
+
+        return bound;
+    }
+
+    /**
+     * Returns the smallest index of a component of the sorted range 
+     * {@code aux[fromIndex], ..., aux[toIndex - 1]} that does not compare 
+     * less than {@code value}, given that {@code aux[fromIndex]} does and 
+     * {@code aux[toIndex - 1]} does not. The range is scanned linearly up to
+     * the gallop threshold, and searched exponentially past it.
+     */
+    private static int scanLowerBound(Object[] aux,
+                                      int fromIndex,
+                                      int toIndex,
+                                      Object value,
+                                      Comparator<Object> comparator,
+                                      Gallop gallop,
+                                      SortStatistics statistics) {
+        int index = fromIndex + 1;
+        int limit = gallop.threshold() < toIndex - fromIndex ? 
+                    fromIndex + gallop.threshold() : 
+                    toIndex;
+
+        while (index < limit && comparator.compare(aux[index], value) < 0) {
+            ++index;
+        }
+
+        if (statistics != null) {
+            statistics.searchSteps += index - fromIndex - 1;
+        }
+
+        if (index < limit) {
+            return index;
+        }
+
+        // A long streak, continue by galloping:
+        int bound = findLowerBound(aux, index, toIndex, value, comparator);
+        gallop.searched(bound - index);
+
+        if (statistics != null) {
+            statistics.searchSteps += searchSteps(bound - index);
+        }
+
+        return bound;
+    }
+
+    /**
+     * Returns the number of doubling steps of an exponential search skipping
+     * {@code distance} elements, that is, the ceiling of the binary logarithm
+     * of {@code distance}.
+     */
+    private static int searchSteps(int distance) {
+        return 32 - Integer.numberOfLeadingZeros(distance - 1);
+    }
+
+    /**
+     * Returns the current time for the phase timers, or zero if the 
+     * statistics are not recorded.
+     */
+    private static long nanoTime(SortStatistics statistics) {
+        return statistics == null ? 0L : System.nanoTime();
+    }
+
+    private static Comparator<Object> countingComparator(
+            Comparator<Object> comparator,
+            SortStatistics statistics) {
+        return (object1, object2) -> {
+            ++statistics.comparisons;
+            return comparator.compare(object1, object2);
+        };
+    }
+}
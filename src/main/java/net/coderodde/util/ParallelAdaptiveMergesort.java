@@ -0,0 +1,357 @@
+package net.coderodde.util;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class implements the parallel adaptive mergesort over object 
+ * references ordered by a {@link Comparator}. The range is split into chunks
+ * that are sorted concurrently with {@link ObjectAdaptiveMergesort}, after
+ * which the sorted neighbouring chunks are merged pairwise, each pair in a 
+ * task of its own. A merge with more than a chunk worth of elements out of 
+ * place is split further by co-ranking, so that the last merge passes, which
+ * see only a couple of huge runs, keep all the workers busy.
+ * <p>
+ * A run crossing a chunk boundary is stitched back together for free: if the
+ * two chunks are already in order, the merge does nothing, and otherwise the
+ * merge first skips with exponential search the elements that are already in
+ * their final positions at both ends.
+ */
+final class ParallelAdaptiveMergesort {
+
+    private ParallelAdaptiveMergesort() {}
+
+    /**
+     * Sorts stably the range {@code array[fromIndex], ...,
+     * array[toIndex - 1]}. The arguments are assumed to be valid.
+     *
+     * @param array      the array holding the target range.
+     * @param fromIndex  the index of the first element in the range.
+     * @param toIndex    the index of the last element in the range plus one.
+     * @param comparator the comparator defining the order.
+     * @param threshold  the length of the shortest range worth sorting in
+     *                   parallel.
+     */
+    static void sort(Object[] array,
+                     int fromIndex,
+                     int toIndex,
+                     Comparator<Object> comparator,
+                     int threshold) {
+        int rangeLength = toIndex - fromIndex;
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+
+        if (rangeLength <= threshold || parallelism == 1) {
+            ObjectAdaptiveMergesort.sortRange(array,
+                                              fromIndex,
+                                              toIndex,
+                                              comparator,
+                                              SortConfiguration.DEFAULT,
+                                              SortWorkspace.singleUse());
+            return;
+        }
+
+        // Aim at four chunks per worker, but not at chunks shorter than the
+        // threshold:
+        int chunkLength = Math.max(rangeLength / (parallelism << 2),
+                                   threshold);
+
+        Object[] buffer = new Object[rangeLength];
+        new SortTask(array,
+                     buffer,
+                     fromIndex,
+                     fromIndex,
+                     toIndex,
+                     comparator,
+                     chunkLength).invoke();
+    }
+
+    /**
+     * Merges stably the two adjacent sorted ranges {@code array[fromIndex],
+     * ..., array[middleIndex - 1]} and {@code array[middleIndex], ...,
+     * array[toIndex - 1]}. The buffer {@code buffer} must have room for the
+     * range starting from index {@code fromIndex - bufferOffset}. If more than
+     * {@code chunkLength} elements are out of place, the merge is split into
+     * independent parts merged in parallel.
+     */
+    private static void mergeRanges(Object[] array,
+                                    Object[] buffer,
+                                    int bufferOffset,
+                                    int fromIndex,
+                                    int middleIndex,
+                                    int toIndex,
+                                    Comparator<Object> comparator,
+                                    int chunkLength) {
+        Object leftTail = array[middleIndex - 1];
+        Object rightHead = array[middleIndex];
+
+        if (comparator.compare(leftTail, rightHead) <= 0) {
+            // The ranges are already in order:
+            return;
+        }
+
+        // The left elements not greater than the first right element, and the
+        // right elements not less than the last left element, are already in
+        // their final positions:
+        fromIndex = ObjectAdaptiveMergesort.findUpperBound(array,
+                                                           fromIndex,
+                                                           middleIndex,
+                                                           rightHead,
+                                                           comparator);
+
+        toIndex = ObjectAdaptiveMergesort.findLowerBound(array,
+                                                         middleIndex,
+                                                         toIndex,
+                                                         leftTail,
+                                                         comparator);
+
+        if (toIndex - fromIndex <= chunkLength) {
+            ObjectAdaptiveMergesort.mergeAdjacentRuns(array,
+                                                      buffer,
+                                                      fromIndex - bufferOffset,
+                                                      fromIndex,
+                                                      middleIndex,
+                                                      toIndex,
+                                                      comparator);
+            return;
+        }
+
+        // The parallel parts write all over the range, so both the ranges are
+        // read from the buffer:
+        System.arraycopy(array,
+                         fromIndex,
+                         buffer,
+                         fromIndex - bufferOffset,
+                         toIndex - fromIndex);
+
+        new MergeTask(buffer,
+                      array,
+                      fromIndex - bufferOffset,
+                      middleIndex - bufferOffset,
+                      middleIndex - bufferOffset,
+                      toIndex - bufferOffset,
+                      fromIndex,
+                      comparator,
+                      chunkLength).invoke();
+    }
+
+    /**
+     * Returns the number of elements of the sorted range 
+     * {@code source[leftFromIndex], ..., source[leftToIndex - 1]} among the 
+     * first {@code rank} elements of its stable merge with the sorted range
+     * {@code source[rightFromIndex], ..., source[rightToIndex - 1]}. This is 
+     * the binary search along the {@code rank}th cross diagonal of the merge 
+     * path.
+     */
+    private static int coRank(Object[] source,
+                              int leftFromIndex,
+                              int leftToIndex,
+                              int rightFromIndex,
+                              int rightToIndex,
+                              int rank,
+                              Comparator<Object> comparator) {
+        int leftLength = leftToIndex - leftFromIndex;
+        int rightLength = rightToIndex - rightFromIndex;
+        int low = Math.max(0, rank - rightLength);
+        int high = Math.min(rank, leftLength);
+
+        while (low < high) {
+            int leftTaken = (low + high) >>> 1;
+            int rightTaken = rank - leftTaken;
+
+            // If the next left element precedes the last taken right element
+            // (ties go to the left), more left elements must be taken:
+            if (comparator.compare(
+                    source[leftFromIndex + leftTaken],
+                    source[rightFromIndex + rightTaken - 1]) <= 0) {
+                low = leftTaken + 1;
+            } else {
+                high = leftTaken;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Merges two sorted ranges of {@code source} into {@code target}, 
+     * splitting the output into two halves merged in parallel as long as the 
+     * halves are longer than the chunk length.
+     */
+    private static final class MergeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -5059888221292759949L;
+
+        private final Object[] source;
+        private final Object[] target;
+        private final int leftFromIndex;
+        private final int leftToIndex;
+        private final int rightFromIndex;
+        private final int rightToIndex;
+        private final int targetIndex;
+        private final Comparator<Object> comparator;
+        private final int chunkLength;
+
+        MergeTask(Object[] source,
+                  Object[] target,
+                  int leftFromIndex,
+                  int leftToIndex,
+                  int rightFromIndex,
+                  int rightToIndex,
+                  int targetIndex,
+                  Comparator<Object> comparator,
+                  int chunkLength) {
+            this.source = source;
+            this.target = target;
+            this.leftFromIndex = leftFromIndex;
+            this.leftToIndex = leftToIndex;
+            this.rightFromIndex = rightFromIndex;
+            this.rightToIndex = rightToIndex;
+            this.targetIndex = targetIndex;
+            this.comparator = comparator;
+            this.chunkLength = chunkLength;
+        }
+
+        @Override
+        protected void compute() {
+            int length = leftToIndex - leftFromIndex +
+                         rightToIndex - rightFromIndex;
+
+            if (length <= chunkLength) {
+                merge();
+                return;
+            }
+
+            int rank = length >>> 1;
+            int leftSplitIndex = leftFromIndex + coRank(source,
+                                                        leftFromIndex,
+                                                        leftToIndex,
+                                                        rightFromIndex,
+                                                        rightToIndex,
+                                                        rank,
+                                                        comparator);
+            int rightSplitIndex = 
+                    rightFromIndex + rank - (leftSplitIndex - leftFromIndex);
+
+            invokeAll(new MergeTask(source,
+                                    target,
+                                    leftFromIndex,
+                                    leftSplitIndex,
+                                    rightFromIndex,
+                                    rightSplitIndex,
+                                    targetIndex,
+                                    comparator,
+                                    chunkLength),
+                      new MergeTask(source,
+                                    target,
+                                    leftSplitIndex,
+                                    leftToIndex,
+                                    rightSplitIndex,
+                                    rightToIndex,
+                                    targetIndex + rank,
+                                    comparator,
+                                    chunkLength));
+        }
+
+        private void merge() {
+            int leftIndex = leftFromIndex;
+            int rightIndex = rightFromIndex;
+            int index = targetIndex;
+
+            while (leftIndex < leftToIndex && rightIndex < rightToIndex) {
+                if (comparator.compare(source[rightIndex], 
+                                       source[leftIndex]) < 0) {
+                    target[index++] = source[rightIndex++];
+                } else {
+                    target[index++] = source[leftIndex++];
+                }
+            }
+
+            System.arraycopy(source, 
+                             leftIndex, 
+                             target, 
+                             index, 
+                             leftToIndex - leftIndex);
+
+            System.arraycopy(source,
+                             rightIndex,
+                             target,
+                             index + leftToIndex - leftIndex,
+                             rightToIndex - rightIndex);
+        }
+    }
+
+    /**
+     * Sorts a range by sorting its halves in parallel and merging them.
+     */
+    private static final class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -2529551406535519804L;
+
+        private final Object[] array;
+        private final Object[] buffer;
+        private final int bufferOffset;
+        private final int fromIndex;
+        private final int toIndex;
+        private final Comparator<Object> comparator;
+        private final int chunkLength;
+
+        SortTask(Object[] array,
+                 Object[] buffer,
+                 int bufferOffset,
+                 int fromIndex,
+                 int toIndex,
+                 Comparator<Object> comparator,
+                 int chunkLength) {
+            this.array = array;
+            this.buffer = buffer;
+            this.bufferOffset = bufferOffset;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.comparator = comparator;
+            this.chunkLength = chunkLength;
+        }
+
+        @Override
+        protected void compute() {
+            if (toIndex - fromIndex <= chunkLength) {
+                // Worker threads live in a pool, so their workspaces survive
+                // from one chunk to the next:
+                ObjectAdaptiveMergesort.sortRange(
+                        array,
+                        fromIndex,
+                        toIndex,
+                        comparator,
+                        SortConfiguration.DEFAULT,
+                        SortWorkspace.forCurrentThread());
+                return;
+            }
+
+            int middleIndex = (fromIndex + toIndex) >>> 1;
+
+            invokeAll(new SortTask(array,
+                                   buffer,
+                                   bufferOffset,
+                                   fromIndex,
+                                   middleIndex,
+                                   comparator,
+                                   chunkLength),
+                      new SortTask(array,
+                                   buffer,
+                                   bufferOffset,
+                                   middleIndex,
+                                   toIndex,
+                                   comparator,
+                                   chunkLength));
+
+            mergeRanges(array,
+                        buffer,
+                        bufferOffset,
+                        fromIndex,
+                        middleIndex,
+                        toIndex,
+                        comparator,
+                        chunkLength);
+        }
+    }
+}
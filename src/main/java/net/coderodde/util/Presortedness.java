@@ -0,0 +1,235 @@
+package net.coderodde.util;
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the estimates of how much order a range of elements
+ * already has, as measured by 
+ * {@link AdaptiveMergesort#probe(Object[], int, int, Comparator)}. The probe
+ * spends a bounded number of comparisons regardless of the range length: it
+ * counts the run breaks within a few windows of neighbouring elements spread
+ * evenly over the range, and compares a fixed number of pseudorandom pairs
+ * of elements for inversions and duplicates. The pairs are drawn from a 
+ * generator seeded with the range length, so the same range always gets the
+ * same estimates.
+ */
+public final class Presortedness {
+
+    // The number of windows and their length:
+    private static final int WINDOWS = 16;
+    private static final int WINDOW_LENGTH = 16;
+
+    // The number of pseudorandom pairs compared:
+    private static final int PAIRS = 128;
+
+    // The average run length at which merging the natural runs pays off:
+    private static final int ADAPTIVE_RUN_LENGTH = 32;
+
+    // The pair ratios beyond which the range counts as nearly sorted, nearly
+    // reversed or full of duplicates:
+    private static final double LOW_INVERSION_RATIO = 0.25;
+    private static final double HIGH_INVERSION_RATIO = 0.75;
+    private static final double HIGH_DUPLICATE_RATIO = 0.25;
+
+    private final int length;
+    private final long estimatedRuns;
+    private final double inversionRatio;
+    private final double duplicateRatio;
+    private final int comparisons;
+
+    private Presortedness(int length,
+                          long estimatedRuns,
+                          double inversionRatio,
+                          double duplicateRatio,
+                          int comparisons) {
+        this.length = length;
+        this.estimatedRuns = estimatedRuns;
+        this.inversionRatio = inversionRatio;
+        this.duplicateRatio = duplicateRatio;
+        this.comparisons = comparisons;
+    }
+
+    /**
+     * Probes the range {@code array[fromIndex], ..., array[toIndex - 1]}. The
+     * arguments are assumed to be valid.
+     *
+     * @param array      the array holding the range.
+     * @param fromIndex  the index of the first element in the range.
+     * @param toIndex    the index of the last element in the range plus one.
+     * @param comparator the comparator defining the order.
+     * @return the estimates.
+     */
+    static Presortedness probe(Object[] array,
+                               int fromIndex,
+                               int toIndex,
+                               Comparator<Object> comparator) {
+        int length = toIndex - fromIndex;
+
+        if (length < 2) {
+            return new Presortedness(length, length, 0.0, 0.0, 0);
+        }
+
+        int comparisons = 0;
+
+        // Count the run breaks the run builder would find in each window:
+        int windows = Math.min(WINDOWS, Math.max(1, length / WINDOW_LENGTH));
+        int windowLength = Math.min(length, WINDOW_LENGTH);
+        long windowStride = windows == 1 ? 
+                            0 : 
+                            (long) (length - windowLength) / (windows - 1);
+        int pairs = 0;
+        int breaks = 0;
+
+        for (int window = 0; window < windows; ++window) {
+            int windowFrom = fromIndex + (int) (window * windowStride);
+            int windowTo = windowFrom + windowLength;
+            int i = windowFrom;
+
+            while (i < windowTo - 1) {
+                boolean descending = 
+                        comparator.compare(array[i], array[i + 1]) > 0;
+                ++comparisons;
+                ++pairs;
+                ++i;
+
+                while (i < windowTo - 1) {
+                    int cmp = comparator.compare(array[i], array[i + 1]);
+                    ++comparisons;
+                    ++pairs;
+
+                    if (descending ? cmp <= 0 : cmp > 0) {
+                        break;
+                    }
+
+                    ++i;
+                }
+
+                if (i < windowTo - 1) {
+                    // The pair array[i], array[i + 1] breaks the run:
+                    ++breaks;
+                    ++i;
+                }
+            }
+        }
+
+        long estimatedRuns = 1 + Math.round((double) breaks * (length - 1) / 
+                                            pairs);
+
+        // Compare pseudorandom pairs for inversions and duplicates:
+        SplittableRandom random = new SplittableRandom(length);
+        int inversions = 0;
+        int duplicates = 0;
+
+        for (int pair = 0; pair < PAIRS; ++pair) {
+            int index1 = random.nextInt(length);
+            int index2 = random.nextInt(length - 1);
+
+            // Draw two distinct indices, the smaller one first:
+            if (index2 >= index1) {
+                ++index2;
+            } else {
+                int tmp = index1;
+                index1 = index2;
+                index2 = tmp;
+            }
+
+            int cmp = comparator.compare(array[fromIndex + index1], 
+                                         array[fromIndex + index2]);
+            ++comparisons;
+
+            if (cmp > 0) {
+                ++inversions;
+            } else if (cmp == 0) {
+                ++duplicates;
+            }
+        }
+
+        return new Presortedness(length,
+                                 estimatedRuns,
+                                 (double) inversions / PAIRS,
+                                 (double) duplicates / PAIRS,
+                                 comparisons);
+    }
+
+    /**
+     * Returns the length of the range probed.
+     *
+     * @return the range length.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the estimated number of natural runs in the range, ascending 
+     * and strictly descending ones alike.
+     *
+     * @return the estimated number of runs.
+     */
+    public long getEstimatedRuns() {
+        return estimatedRuns;
+    }
+
+    /**
+     * Returns the estimated fraction of the pairs of elements that are out of
+     * order: about zero for a sorted range, one half for a shuffled one and
+     * about one for a reversed one.
+     *
+     * @return the estimated inversion ratio.
+     */
+    public double getInversionRatio() {
+        return inversionRatio;
+    }
+
+    /**
+     * Returns the estimated fraction of the pairs of elements that compare 
+     * equal.
+     *
+     * @return the estimated duplicate ratio.
+     */
+    public double getDuplicateRatio() {
+        return duplicateRatio;
+    }
+
+    /**
+     * Returns the number of comparisons the probe took.
+     *
+     * @return the number of comparisons.
+     */
+    public int getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Returns the algorithm expected to sort the probed range the fastest:
+     * {@link SortStrategy#ADAPTIVE_MERGE} if the runs are long on average, 
+     * otherwise {@link SortStrategy#MINIMUM_RUN_MERGE} if the range is nearly
+     * sorted, nearly reversed or full of duplicates, and 
+     * {@link SortStrategy#PLAIN_MERGE} if it looks shuffled.
+     *
+     * @return the recommended strategy.
+     */
+    public SortStrategy getRecommendedStrategy() {
+        if (estimatedRuns * ADAPTIVE_RUN_LENGTH <= length) {
+            return SortStrategy.ADAPTIVE_MERGE;
+        }
+
+        if (inversionRatio <= LOW_INVERSION_RATIO 
+                || inversionRatio >= HIGH_INVERSION_RATIO
+                || duplicateRatio >= HIGH_DUPLICATE_RATIO) {
+            return SortStrategy.MINIMUM_RUN_MERGE;
+        }
+
+        return SortStrategy.PLAIN_MERGE;
+    }
+
+    @Override
+    public String toString() {
+        return "[length: "           + length +
+               ", estimated runs: "  + estimatedRuns +
+               ", inversion ratio: " + inversionRatio +
+               ", duplicate ratio: " + duplicateRatio +
+               ", comparisons: "     + comparisons + "]";
+    }
+}
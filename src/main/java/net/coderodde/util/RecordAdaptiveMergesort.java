@@ -0,0 +1,156 @@
+package net.coderodde.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class implements the adaptive mergesort over fixed-width binary
+ * records held in a byte buffer. Record {@code i} occupies the bytes
+ * {@code i * recordLength, ..., (i + 1) * recordLength - 1} of the buffer.
+ * The sorting itself is left to {@link IndexedAdaptiveMergesort}, which 
+ * moves only the records of the descending runs, reversing them in place 
+ * within the buffer.
+ */
+final class RecordAdaptiveMergesort {
+
+    private RecordAdaptiveMergesort() {}
+
+    /**
+     * Sorts stably the {@code length} records starting at the byte index 
+     * {@code fromOffset} of {@code buffer}. The records are copied into an 
+     * auxiliary buffer, which is direct if {@code buffer} is, sorted there 
+     * and copied back interval by interval. The auxiliary buffer takes the
+     * byte order of {@code buffer}, so that the comparator decodes the 
+     * records the same way in both. The position, limit and byte order of
+     * {@code buffer} are left intact.
+     *
+     * @param buffer       the buffer holding the records.
+     * @param fromOffset   the byte index of the first record.
+     * @param length       the number of records to sort.
+     * @param recordLength the length of a record in bytes.
+     * @param comparator   the comparator defining the order of the records.
+     * @param workspace    the workspace providing the interval pool and the
+     *                     run queue.
+     */
+    static void sortRange(ByteBuffer buffer,
+                          int fromOffset,
+                          int length,
+                          int recordLength,
+                          RecordComparator comparator,
+                          SortWorkspace workspace) {
+        if (length < 2) {
+            return; // Trivially sorted.
+        }
+
+        int rangeBytes = length * recordLength;
+        ByteBuffer aux = (buffer.isDirect() ?
+                          ByteBuffer.allocateDirect(rangeBytes) :
+                          ByteBuffer.allocate(rangeBytes))
+                         .order(buffer.order());
+
+        // A view of the buffer whose position and limit we may change:
+        ByteBuffer view = buffer.duplicate();
+        view.limit(fromOffset + rangeBytes);
+        view.position(fromOffset);
+        aux.put(view);
+
+        workspace = workspace.acquire(length);
+
+        try {
+            IntervalPool pool = workspace.intervalPool();
+            int run = sort(aux,
+                           recordLength,
+                           length,
+                           pool,
+                           workspace.runQueue(),
+                           comparator);
+
+            view.position(fromOffset);
+
+            for (int interval = run;
+                    interval != IntervalPool.NULL;
+                    interval = pool.next[interval]) {
+                aux.limit((pool.to[interval] + 1) * recordLength);
+                aux.position(pool.from[interval] * recordLength);
+                view.put(aux);
+            }
+        } finally {
+            workspace.release(length);
+        }
+    }
+
+    /**
+     * Sorts the leading {@code length} records of {@code aux}. The buffer is
+     * not rearranged into sorted order; instead, the returned run lists the
+     * intervals of record indices in the order they must be read.
+     *
+     * @param aux          the buffer to sort.
+     * @param recordLength the length of a record in bytes.
+     * @param length       the number of leading records in {@code aux} to
+     *                     sort. Must be at least two.
+     * @param pool         the empty pool for storing the intervals.
+     * @param queue        the empty run queue with room for
+     *                     {@code (length >>> 1) + 1} runs.
+     * @param comparator   the comparator defining the order of the records.
+     * @return the head interval slot of the single run describing the sorted
+     *         order of the records.
+     */
+    static int sort(ByteBuffer aux,
+                    int recordLength,
+                    int length,
+                    IntervalPool pool,
+                    RunQueue queue,
+                    RecordComparator comparator) {
+        return IndexedAdaptiveMergesort.sort(
+                new Records(aux, recordLength, comparator),
+                length,
+                pool,
+                queue);
+    }
+
+    /**
+     * Addresses the records of a buffer by their index.
+     */
+    private static final class Records
+            implements IndexedAdaptiveMergesort.Sequence {
+
+        private final ByteBuffer buffer;
+        private final int recordLength;
+        private final RecordComparator comparator;
+
+        Records(ByteBuffer buffer,
+                int recordLength,
+                RecordComparator comparator) {
+            this.buffer = buffer;
+            this.recordLength = recordLength;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public int compare(int index1, int index2) {
+            return comparator.compare(buffer,
+                                      index1 * recordLength,
+                                      buffer,
+                                      index2 * recordLength);
+        }
+
+        @Override
+        public void swap(int index1, int index2) {
+            int offset1 = index1 * recordLength;
+            int offset2 = index2 * recordLength;
+            int i = 0;
+
+            // Swap eight bytes at a time as long as possible:
+            for (; i + Long.BYTES <= recordLength; i += Long.BYTES) {
+                long tmp = buffer.getLong(offset1 + i);
+                buffer.putLong(offset1 + i, buffer.getLong(offset2 + i));
+                buffer.putLong(offset2 + i, tmp);
+            }
+
+            for (; i < recordLength; ++i) {
+                byte tmp = buffer.get(offset1 + i);
+                buffer.put(offset1 + i, buffer.get(offset2 + i));
+                buffer.put(offset2 + i, tmp);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package net.coderodde.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This interface defines the order of fixed-width binary records stored in
+ * byte buffers. The records are addressed by the absolute index of their
+ * first byte, so comparing two records neither allocates anything nor moves
+ * the positions of the buffers.
+ */
+@FunctionalInterface
+public interface RecordComparator {
+
+    /**
+     * Compares the record starting at {@code buffer1.get(offset1)} to the
+     * record starting at {@code buffer2.get(offset2)}. The two buffers may be
+     * the same. The implementation must not modify the buffers, including
+     * their positions and limits.
+     *
+     * @param buffer1 the buffer holding the first record.
+     * @param offset1 the index of the first byte of the first record.
+     * @param buffer2 the buffer holding the second record.
+     * @param offset2 the index of the first byte of the second record.
+     * @return a negative integer, zero, or a positive integer as the first
+     *         record is less than, equal to, or greater than the second.
+     */
+    int compare(ByteBuffer buffer1,
+                int offset1,
+                ByteBuffer buffer2,
+                int offset2);
+}
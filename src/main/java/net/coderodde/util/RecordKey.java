@@ -0,0 +1,134 @@
+package net.coderodde.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * This class orders fixed-width records by an integer key field embedded in
+ * them. The field is described by its offset within the record, its width in
+ * bytes, its signedness and its byte order, and is read straight out of the
+ * buffers without decoding the records. A field wider than eight bytes is
+ * compared byte by byte from its most significant byte; only that byte is
+ * read as signed if the key is signed.
+ */
+public final class RecordKey implements RecordComparator {
+
+    private final int offset;
+    private final int width;
+    private final boolean signed;
+    private final ByteOrder byteOrder;
+
+    /**
+     * Constructs a key read out of the bytes {@code offset, ...,
+     * offset + width - 1} of each record.
+     *
+     * @param offset    the offset of the key field within a record.
+     * @param width     the width of the key field in bytes.
+     * @param signed    whether the key is a two's complement integer.
+     * @param byteOrder the byte order of the key field.
+     */
+    public RecordKey(int offset,
+                     int width,
+                     boolean signed,
+                     ByteOrder byteOrder) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset(" + offset + ") < 0");
+        }
+
+        if (width < 1) {
+            throw new IllegalArgumentException("width(" + width + ") < 1");
+        }
+
+        this.offset = offset;
+        this.width = width;
+        this.signed = signed;
+        this.byteOrder = Objects.requireNonNull(byteOrder,
+                                                "The input byte order is " +
+                                                "null.");
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public boolean isSigned() {
+        return signed;
+    }
+
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    @Override
+    public int compare(ByteBuffer buffer1,
+                       int offset1,
+                       ByteBuffer buffer2,
+                       int offset2) {
+        offset1 += offset;
+        offset2 += offset;
+
+        if (width <= Long.BYTES) {
+            long key1 = readKey(buffer1, offset1);
+            long key2 = readKey(buffer2, offset2);
+            return signed ?
+                   Long.compare(key1, key2) :
+                   Long.compareUnsigned(key1, key2);
+        }
+
+        // Compare the most significant bytes first:
+        int step = byteOrder == ByteOrder.BIG_ENDIAN ? 1 : -1;
+        int index1 = step == 1 ? offset1 : offset1 + width - 1;
+        int index2 = step == 1 ? offset2 : offset2 + width - 1;
+        int cmp = signed ?
+                  Byte.compare(buffer1.get(index1), buffer2.get(index2)) :
+                  Integer.compare(buffer1.get(index1) & 0xff,
+                                  buffer2.get(index2) & 0xff);
+
+        for (int i = 1; i < width && cmp == 0; ++i) {
+            index1 += step;
+            index2 += step;
+            cmp = Integer.compare(buffer1.get(index1) & 0xff,
+                                  buffer2.get(index2) & 0xff);
+        }
+
+        return cmp;
+    }
+
+    /**
+     * Reads the key starting at {@code buffer.get(index)}, sign-extended if
+     * the key is signed.
+     */
+    private long readKey(ByteBuffer buffer, int index) {
+        if (buffer.order() == byteOrder) {
+            // The buffer can decode the common widths by itself:
+            if (width == Long.BYTES) {
+                return buffer.getLong(index);
+            }
+
+            if (width == Integer.BYTES) {
+                int key = buffer.getInt(index);
+                return signed ? key : key & 0xffffffffL;
+            }
+        }
+
+        int step = byteOrder == ByteOrder.BIG_ENDIAN ? 1 : -1;
+
+        if (step == -1) {
+            index += width - 1;
+        }
+
+        long key = signed ? buffer.get(index) : buffer.get(index) & 0xff;
+
+        for (int i = 1; i < width; ++i) {
+            index += step;
+            key = (key << 8) | (buffer.get(index) & 0xff);
+        }
+
+        return key;
+    }
+}
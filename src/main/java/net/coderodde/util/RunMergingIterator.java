@@ -0,0 +1,150 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class iterates stably over a sorted copy of an array range without 
+ * sorting it: the range is split into natural runs, after which each call to
+ * {@link #next()} takes the least head out of a binary heap of the runs. 
+ * Reading the first {@code k} elements out of {@code n} with {@code r} runs
+ * thus costs {@code O(n + k log r)} instead of the {@code O(n log r)} of a 
+ * full sort.
+ *
+ * @param <T> the element type.
+ */
+final class RunMergingIterator<T> implements Iterator<T> {
+
+    private final Object[] aux;
+    private final Comparator<Object> comparator;
+
+    // The index of the current head of each run and the index of the last 
+    // element of each run:
+    private final int[] heads;
+    private final int[] lasts;
+
+    // The binary min-heap of the indices of the non-empty runs. Ties are 
+    // broken by the run index, which keeps the iteration stable:
+    private final int[] heap;
+    private int heapSize;
+
+    /**
+     * Constructs an iterator over the range {@code array[fromIndex], ..., 
+     * array[toIndex - 1]} in sorted order. The range is copied, so the array
+     * may be modified afterwards.
+     *
+     * @param array      the array holding the target range.
+     * @param fromIndex  the index of the first element in the range.
+     * @param toIndex    the index of the last element in the range plus one.
+     * @param comparator the comparator defining the order.
+     */
+    RunMergingIterator(Object[] array,
+                       int fromIndex,
+                       int toIndex,
+                       Comparator<Object> comparator) {
+        int rangeLength = toIndex - fromIndex;
+        this.aux = Arrays.copyOfRange(array, fromIndex, toIndex);
+        this.comparator = comparator;
+
+        if (rangeLength < 2) {
+            // Trivially sorted:
+            this.heads = new int[]{ 0 };
+            this.lasts = new int[]{ rangeLength - 1 };
+            this.heap = new int[]{ 0 };
+            this.heapSize = rangeLength;
+            return;
+        }
+
+        int maximumRuns = (rangeLength >>> 1) + 1;
+        IntervalPool pool = new IntervalPool(maximumRuns);
+        RunQueue queue = new RunQueue(maximumRuns);
+        ObjectAdaptiveMergesort.buildRuns(aux, 
+                                          0,
+                                          rangeLength, 
+                                          pool, 
+                                          queue, 
+                                          comparator);
+
+        int runs = queue.size();
+        this.heads = new int[runs];
+        this.lasts = new int[runs];
+        this.heap = new int[runs];
+
+        for (int run = 0; run < runs; ++run) {
+            int interval = queue.dequeue();
+            heads[run] = pool.from[interval];
+            lasts[run] = pool.to[interval];
+            heap[run] = run;
+        }
+
+        heapSize = runs;
+
+        for (int i = (heapSize >>> 1) - 1; i >= 0; --i) {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return heapSize > 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (heapSize == 0) {
+            throw new NoSuchElementException("The iterator is exhausted.");
+        }
+
+        int run = heap[0];
+        T element = (T) aux[heads[run]];
+
+        if (heads[run]++ == lasts[run]) {
+            // The run is exhausted:
+            heap[0] = heap[--heapSize];
+        }
+
+        if (heapSize > 1) {
+            siftDown(0);
+        }
+
+        return element;
+    }
+
+    private void siftDown(int index) {
+        int run = heap[index];
+
+        while (true) {
+            int childIndex = (index << 1) + 1;
+
+            if (childIndex >= heapSize) {
+                break;
+            }
+
+            if (childIndex + 1 < heapSize 
+                    && precedes(heap[childIndex + 1], heap[childIndex])) {
+                ++childIndex;
+            }
+
+            if (!precedes(heap[childIndex], run)) {
+                break;
+            }
+
+            heap[index] = heap[childIndex];
+            index = childIndex;
+        }
+
+        heap[index] = run;
+    }
+
+    /**
+     * Returns {@code true} if the head of {@code run1} must be output before
+     * the head of {@code run2}.
+     */
+    private boolean precedes(int run1, int run2) {
+        int cmp = comparator.compare(aux[heads[run1]], aux[heads[run2]]);
+        return cmp < 0 || (cmp == 0 && run1 < run2);
+    }
+}
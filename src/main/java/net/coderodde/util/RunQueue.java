@@ -0,0 +1,70 @@
+package net.coderodde.util;
+
+/**
+ * This class holds a queue of runs yet to merge. Each run is represented by 
+ * the {@link IntervalPool} slot of its first interval.
+ */
+final class RunQueue {
+
+    private final int[] runArray;
+    // Used for bit level modulo arithmetic. Instead of
+    // 'index % runArray.length' we can write 'index & mask'.
+    private final int mask; 
+    private int head;
+    private int tail;
+    private int size;
+
+    RunQueue(int capacity) {
+        capacity = ceilCapacityToPowerOfTwo(capacity);
+        this.mask = capacity - 1;
+        this.runArray = new int[capacity];
+    }
+
+    void enqueue(int run) {
+        runArray[tail] = run;
+        tail = (tail + 1) & mask;
+        ++size;
+    }
+
+    /**
+     * Returns the head interval slot of the tail run without removing it.
+     * 
+     * @return the tail run.
+     */
+    int last() {
+        return runArray[(tail - 1) & mask];
+    }
+
+    int dequeue() {
+        int run = runArray[head];
+        head = (head + 1) & mask;
+        --size;
+        return run;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return runArray.length;
+    }
+
+    void clear() {
+        head = 0;
+        tail = 0;
+        size = 0;
+    }
+
+    /**
+     * If {@code capacity} is not a power of two, this method ceils it up 
+     * towards the smallest power of two no less than {@code capacity}.
+     * 
+     * @param capacity the candidate capacity.
+     * @return a smallest power of two no less than {@code capacity}.
+     */
+    private static int ceilCapacityToPowerOfTwo(int capacity) {
+        int ret = Integer.highestOneBit(capacity);
+        return ret != capacity ? ret << 1 : ret;
+    }
+}
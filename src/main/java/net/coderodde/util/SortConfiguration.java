@@ -0,0 +1,253 @@
+package net.coderodde.util;
+
+import java.util.Objects;
+
+/**
+ * This class holds the tunable parameters of the adaptive mergesort. The 
+ * instances are immutable; the {@code with...} methods return a modified 
+ * copy.
+ */
+public final class SortConfiguration {
+
+    /**
+     * The minimum run length standing for a length computed from the length 
+     * of the range to sort, as in TimSort: a value between 16 and 32 chosen 
+     * so that the number of runs in random data is a power of two or close 
+     * to one. Ranges shorter than 32 elements become a single run.
+     */
+    public static final int COMPUTED_MINIMUM_RUN_LENGTH = 0;
+
+    /**
+     * The compaction threshold leaving the merged runs scattered over the 
+     * buffer, however fragmented.
+     */
+    public static final int NO_COMPACTION = 0;
+
+    /**
+     * The default minimum gallop, the same as in TimSort.
+     */
+    public static final int DEFAULT_MINIMUM_GALLOP = 7;
+
+    /**
+     * The configuration the sorts use unless told otherwise: FIFO merging of 
+     * the natural runs.
+     */
+    public static final SortConfiguration DEFAULT = 
+            new SortConfiguration(MergePolicy.FIFO, 
+                                  1, 
+                                  DEFAULT_MINIMUM_GALLOP, 
+                                  NO_COMPACTION,
+                                  null);
+
+    // Ranges shorter than this are sorted by binary insertion sort when the 
+    // minimum run length is computed:
+    private static final int MINIMUM_MERGE_LENGTH = 32;
+
+    private final MergePolicy mergePolicy;
+    private final int minimumRunLength;
+    private final int minimumGallop;
+    private final int compactionThreshold;
+    private final SortStatistics statistics;
+
+    private SortConfiguration(MergePolicy mergePolicy, 
+                              int minimumRunLength,
+                              int minimumGallop,
+                              int compactionThreshold,
+                              SortStatistics statistics) {
+        this.mergePolicy = mergePolicy;
+        this.minimumRunLength = minimumRunLength;
+        this.minimumGallop = minimumGallop;
+        this.compactionThreshold = compactionThreshold;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the policy deciding which neighbouring runs are merged next.
+     * 
+     * @return the merge policy.
+     */
+    public MergePolicy getMergePolicy() {
+        return mergePolicy;
+    }
+
+    /**
+     * Returns the length natural runs are extended to before they are 
+     * merged, or {@link #COMPUTED_MINIMUM_RUN_LENGTH} if the length depends
+     * on the range length.
+     * 
+     * @return the minimum run length.
+     */
+    public int getMinimumRunLength() {
+        return minimumRunLength;
+    }
+
+    /**
+     * Returns the number of elements the merge scans linearly before it 
+     * switches to the exponential search, at the start of each sort.
+     * 
+     * @return the minimum gallop.
+     */
+    public int getMinimumGallop() {
+        return minimumGallop;
+    }
+
+    /**
+     * Returns the average interval length below which a merged run is 
+     * compacted into a single interval, or {@link #NO_COMPACTION} if runs 
+     * are never compacted.
+     * 
+     * @return the compaction threshold.
+     */
+    public int getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Returns the statistics the sorts record their work into, or 
+     * {@code null} if recording is off.
+     * 
+     * @return the statistics, or {@code null}.
+     */
+    public SortStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns a copy of this configuration with the merge policy set to 
+     * {@code mergePolicy}.
+     * 
+     * @param mergePolicy the merge policy.
+     * @return the modified configuration.
+     */
+    public SortConfiguration withMergePolicy(MergePolicy mergePolicy) {
+        Objects.requireNonNull(mergePolicy, "The input merge policy is null.");
+        return new SortConfiguration(mergePolicy, 
+                                     minimumRunLength, 
+                                     minimumGallop, 
+                                     compactionThreshold,
+                                     statistics);
+    }
+
+    /**
+     * Returns a copy of this configuration with the minimum run length set to
+     * {@code minimumRunLength}. Natural runs shorter than that are extended 
+     * with binary insertion sort before they are merged, which trades a 
+     * little adaptivity for far fewer runs in unstructured data. The value 1
+     * leaves the natural runs as they are, and 
+     * {@link #COMPUTED_MINIMUM_RUN_LENGTH} picks the length depending on the
+     * range length.
+     * 
+     * @param minimumRunLength the minimum run length.
+     * @return the modified configuration.
+     */
+    public SortConfiguration withMinimumRunLength(int minimumRunLength) {
+        if (minimumRunLength < 0) {
+            throw new IllegalArgumentException(
+                    "minimumRunLength(" + minimumRunLength + ") < 0");
+        }
+
+        return new SortConfiguration(mergePolicy, 
+                                     minimumRunLength, 
+                                     minimumGallop, 
+                                     compactionThreshold,
+                                     statistics);
+    }
+
+    /**
+     * Returns a copy of this configuration with the minimum gallop set to 
+     * {@code minimumGallop}. When the merge has to split an interval, it 
+     * scans it linearly for up to that many elements before it switches to
+     * the exponential search. Each search that skips at least 
+     * {@code minimumGallop} elements lowers the threshold by one for the rest
+     * of the sort, and each one that does not raises it by two, so that 
+     * interleaved runs are merged with about one comparison per element and
+     * runs with long streaks with logarithmically many. The value 1 searches
+     * exponentially right away, and {@link Integer#MAX_VALUE} never does. 
+     * With expensive comparators, a lower value pays off sooner on 
+     * structured inputs.
+     * 
+     * @param minimumGallop the minimum gallop.
+     * @return the modified configuration.
+     */
+    public SortConfiguration withMinimumGallop(int minimumGallop) {
+        if (minimumGallop < 1) {
+            throw new IllegalArgumentException(
+                    "minimumGallop(" + minimumGallop + ") < 1");
+        }
+
+        return new SortConfiguration(mergePolicy, 
+                                     minimumRunLength, 
+                                     minimumGallop, 
+                                     compactionThreshold,
+                                     statistics);
+    }
+
+    /**
+     * Returns a copy of this configuration with the compaction threshold set
+     * to {@code compactionThreshold}. A merged run consists of intervals 
+     * scattered over the buffer; once its intervals hold fewer than 
+     * {@code compactionThreshold} elements on average, the run is moved 
+     * into a contiguous stretch of the other half of a buffer twice the 
+     * range length and becomes a single interval again. Compacting costs a 
+     * single copy of the run, or up to one and a half if the run already 
+     * spans both halves, but spares the later merges and the final copy from
+     * hopping between tiny intervals. Higher values compact more eagerly; 
+     * {@link #NO_COMPACTION}, the default, never compacts.
+     * 
+     * @param compactionThreshold the compaction threshold.
+     * @return the modified configuration.
+     */
+    public SortConfiguration withCompactionThreshold(int compactionThreshold) {
+        if (compactionThreshold < 0) {
+            throw new IllegalArgumentException(
+                    "compactionThreshold(" + compactionThreshold + ") < 0");
+        }
+
+        return new SortConfiguration(mergePolicy, 
+                                     minimumRunLength, 
+                                     minimumGallop, 
+                                     compactionThreshold,
+                                     statistics);
+    }
+
+    /**
+     * Returns a copy of this configuration that records the work of each sort
+     * into {@code statistics}, or records nothing if {@code statistics} is 
+     * {@code null}. Recording is off by default; while it is off, the 
+     * comparisons are not counted at all and the rest of the counters cost a
+     * single branch per run or interval. Only the sequential sorts of object 
+     * arrays record statistics.
+     * 
+     * @param statistics the statistics to add to, or {@code null}.
+     * @return the modified configuration.
+     */
+    public SortConfiguration withStatistics(SortStatistics statistics) {
+        return new SortConfiguration(mergePolicy, 
+                                     minimumRunLength, 
+                                     minimumGallop, 
+                                     compactionThreshold,
+                                     statistics);
+    }
+
+    /**
+     * Returns the minimum run length to use when sorting a range of 
+     * {@code rangeLength} elements.
+     * 
+     * @param rangeLength the length of the range to sort.
+     * @return the minimum run length.
+     */
+    int resolveMinimumRunLength(int rangeLength) {
+        if (minimumRunLength != COMPUTED_MINIMUM_RUN_LENGTH) {
+            return minimumRunLength;
+        }
+
+        int lowBits = 0;
+
+        while (rangeLength >= MINIMUM_MERGE_LENGTH) {
+            lowBits |= rangeLength & 1;
+            rangeLength >>= 1;
+        }
+
+        return rangeLength + lowBits;
+    }
+}
@@ -0,0 +1,229 @@
+package net.coderodde.util;
+
+/**
+ * This class accumulates counters describing the work done by the sorts 
+ * configured with {@link SortConfiguration#withStatistics(SortStatistics)}.
+ * The counters keep growing over consecutive sorts until {@link #reset()} is
+ * called, so a single instance may aggregate any number of sorts before it is
+ * exported. An instance must not be shared by sorts running concurrently.
+ * <p>
+ * Comparing the counters with the range length reveals how well the input
+ * suits the algorithm: few runs and few split intervals mean that the 
+ * existing order was exploited, while about {@code n / 2} runs and as many 
+ * split intervals as merged ones point at an input with no order to exploit.
+ */
+public final class SortStatistics {
+
+    long sorts;
+    long elements;
+    long comparisons;
+    long ascendingRuns;
+    long descendingRuns;
+    long runs;
+    long merges;
+    long mergePasses;
+    long wholeIntervals;
+    long splitIntervals;
+    long searchSteps;
+    long compactions;
+    long compactedElements;
+    long runBuildingNanos;
+    long mergingNanos;
+    long copyingNanos;
+
+    /**
+     * Returns the number of sorts recorded.
+     * 
+     * @return the number of sorts.
+     */
+    public long getSorts() {
+        return sorts;
+    }
+
+    /**
+     * Returns the total length of the ranges sorted.
+     * 
+     * @return the number of elements sorted.
+     */
+    public long getElements() {
+        return elements;
+    }
+
+    /**
+     * Returns the number of calls to the comparator or {@code compareTo}.
+     * 
+     * @return the number of comparisons.
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Returns the number of natural ascending runs scanned.
+     * 
+     * @return the number of ascending runs.
+     */
+    public long getAscendingRuns() {
+        return ascendingRuns;
+    }
+
+    /**
+     * Returns the number of natural strictly descending runs scanned and 
+     * reversed.
+     * 
+     * @return the number of descending runs.
+     */
+    public long getDescendingRuns() {
+        return descendingRuns;
+    }
+
+    /**
+     * Returns the number of runs left to merge once the neighbouring natural
+     * runs in order were joined and the short ones were extended to the 
+     * minimum run length.
+     * 
+     * @return the number of runs merged.
+     */
+    public long getRuns() {
+        return runs;
+    }
+
+    /**
+     * Returns the number of merges of two runs.
+     * 
+     * @return the number of merges.
+     */
+    public long getMerges() {
+        return merges;
+    }
+
+    /**
+     * Returns the number of passes over the run queue made by 
+     * {@link MergePolicy#FIFO}. The other policies do not merge in passes 
+     * and leave this counter as is.
+     * 
+     * @return the number of merge passes.
+     */
+    public long getMergePasses() {
+        return mergePasses;
+    }
+
+    /**
+     * Returns the number of intervals appended to a merged run as a whole.
+     * 
+     * @return the number of whole intervals.
+     */
+    public long getWholeIntervals() {
+        return wholeIntervals;
+    }
+
+    /**
+     * Returns the number of intervals that had to be split during merging.
+     * 
+     * @return the number of split intervals.
+     */
+    public long getSplitIntervals() {
+        return splitIntervals;
+    }
+
+    /**
+     * Returns the number of steps the searches for the split points of the 
+     * intervals took before their final binary searches: the elements 
+     * scanned linearly plus the doubling steps of the exponential searches.
+     * 
+     * @return the number of search steps.
+     */
+    public long getSearchSteps() {
+        return searchSteps;
+    }
+
+    /**
+     * Returns the number of merged runs compacted into a single interval as
+     * configured with 
+     * {@link SortConfiguration#withCompactionThreshold(int)}.
+     * 
+     * @return the number of compactions.
+     */
+    public long getCompactions() {
+        return compactions;
+    }
+
+    /**
+     * Returns the total length of the runs compacted.
+     * 
+     * @return the number of elements compacted.
+     */
+    public long getCompactedElements() {
+        return compactedElements;
+    }
+
+    /**
+     * Returns the time spent on scanning, reversing and extending the runs.
+     * 
+     * @return the run building time in nanoseconds.
+     */
+    public long getRunBuildingNanos() {
+        return runBuildingNanos;
+    }
+
+    /**
+     * Returns the time spent on merging the runs.
+     * 
+     * @return the merging time in nanoseconds.
+     */
+    public long getMergingNanos() {
+        return mergingNanos;
+    }
+
+    /**
+     * Returns the time spent on copying the range into the buffer and the 
+     * sorted elements back.
+     * 
+     * @return the copying time in nanoseconds.
+     */
+    public long getCopyingNanos() {
+        return copyingNanos;
+    }
+
+    /**
+     * Sets all the counters to zero.
+     */
+    public void reset() {
+        sorts = 0;
+        elements = 0;
+        comparisons = 0;
+        ascendingRuns = 0;
+        descendingRuns = 0;
+        runs = 0;
+        merges = 0;
+        mergePasses = 0;
+        wholeIntervals = 0;
+        splitIntervals = 0;
+        searchSteps = 0;
+        compactions = 0;
+        compactedElements = 0;
+        runBuildingNanos = 0;
+        mergingNanos = 0;
+        copyingNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "[sorts: "            + sorts +
+               ", elements: "        + elements +
+               ", comparisons: "     + comparisons +
+               ", ascending runs: "  + ascendingRuns +
+               ", descending runs: " + descendingRuns +
+               ", runs: "            + runs +
+               ", merges: "          + merges +
+               ", merge passes: "    + mergePasses +
+               ", whole intervals: " + wholeIntervals +
+               ", split intervals: " + splitIntervals +
+               ", search steps: "    + searchSteps +
+               ", compactions: "     + compactions +
+               ", compacted: "       + compactedElements +
+               ", run building ns: " + runBuildingNanos +
+               ", merging ns: "      + mergingNanos +
+               ", copying ns: "      + copyingNanos + "]";
+    }
+}
@@ -0,0 +1,32 @@
+package net.coderodde.util;
+
+/**
+ * This enumeration lists the algorithms 
+ * {@link AdaptiveMergesort#smartSort(Object[], int, int, 
+ * java.util.Comparator)} chooses from after probing the input for existing
+ * order. All of them sort stably.
+ */
+public enum SortStrategy {
+
+    /**
+     * Merges the natural runs as they are, splitting and relinking intervals 
+     * instead of moving elements. Pays off on inputs consisting of long runs,
+     * ascending or descending.
+     */
+    ADAPTIVE_MERGE,
+
+    /**
+     * Extends the natural runs by binary insertion sort to a minimum length 
+     * computed as in TimSort and merges them with the stack policy of 
+     * TimSort. Pays off on inputs with short runs but few inversions or many
+     * duplicates overall.
+     */
+    MINIMUM_RUN_MERGE,
+
+    /**
+     * Sorts blocks of a fixed length by binary insertion sort and merges them
+     * bottom-up between the array and a buffer, without looking for runs or
+     * galloping. The fastest choice for inputs with no order to exploit.
+     */
+    PLAIN_MERGE
+}
@@ -0,0 +1,253 @@
+package net.coderodde.util;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the scratch memory of the sorts in 
+ * {@link AdaptiveMergesort}: the auxiliary buffers the range or its keys are
+ * copied to, the run queue and the interval pool. Passing the same workspace
+ * to many sorts lets them reuse that memory instead of allocating it on every
+ * call.
+ * <p>
+ * The buffers grow on demand up to {@link #getMaximumCapacity()} elements. A
+ * sort of a longer range runs on temporary buffers that are not retained. If
+ * the retained buffers stay much larger than the ranges actually sorted for 
+ * a number of consecutive sorts, they are dropped and reallocated at the 
+ * smaller size on the next sort.
+ * <p>
+ * A workspace must not be used by several threads at the same time; 
+ * {@link #forCurrentThread()} returns a workspace private to the calling 
+ * thread. A sort that finds its workspace busy (for example, because a 
+ * {@code compareTo} method sorts with the same workspace) falls back to 
+ * temporary buffers.
+ */
+public final class SortWorkspace {
+
+    /**
+     * The default maximum number of elements the buffers may hold.
+     */
+    public static final int DEFAULT_MAXIMUM_CAPACITY = 1 << 22;
+
+    // Retained buffers more than SHRINK_FACTOR times larger than the range 
+    // length count as underused:
+    private static final int SHRINK_FACTOR = 4;
+
+    // The number of consecutive underused sorts after which the buffers are 
+    // dropped:
+    private static final int SHRINK_THRESHOLD = 32;
+
+    private static final ThreadLocal<SortWorkspace> THREAD_WORKSPACES =
+            ThreadLocal.withInitial(SortWorkspace::new);
+
+    private final int maximumCapacity;
+    private final boolean retainBuffers;
+    private boolean busy;
+    private int underusedSorts;
+    private int capacity;
+
+    private Object[] objectBuffer;
+    private int[] intBuffer;
+    private long[] longBuffer;
+    private int[] indexBuffer;
+    private IntervalPool pool;
+    private RunQueue queue;
+
+    /**
+     * Constructs a workspace with the default maximum capacity.
+     */
+    public SortWorkspace() {
+        this(DEFAULT_MAXIMUM_CAPACITY);
+    }
+
+    /**
+     * Constructs a workspace whose buffers may hold at most 
+     * {@code maximumCapacity} elements.
+     * 
+     * @param maximumCapacity the maximum capacity.
+     */
+    public SortWorkspace(int maximumCapacity) {
+        this(maximumCapacity, true);
+
+        if (maximumCapacity < 0) {
+            throw new IllegalArgumentException(
+                    "maximumCapacity(" + maximumCapacity + ") < 0");
+        }
+    }
+
+    private SortWorkspace(int maximumCapacity, boolean retainBuffers) {
+        this.maximumCapacity = maximumCapacity;
+        this.retainBuffers = retainBuffers;
+    }
+
+    /**
+     * Returns the workspace of the calling thread. The workspace is created
+     * with the default maximum capacity on first use.
+     * 
+     * @return the workspace of the calling thread.
+     */
+    public static SortWorkspace forCurrentThread() {
+        return THREAD_WORKSPACES.get();
+    }
+
+    /**
+     * Returns a workspace for a single sort. It allocates its buffers at the 
+     * exact length requested and does not clean them up after the sort.
+     * 
+     * @return a single use workspace.
+     */
+    static SortWorkspace singleUse() {
+        return new SortWorkspace(Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Returns the number of elements the retained buffers may grow to. Longer
+     * ranges are sorted on temporary buffers.
+     * 
+     * @return the maximum capacity.
+     */
+    public int getMaximumCapacity() {
+        return maximumCapacity;
+    }
+
+    /**
+     * Returns the number of elements the currently retained buffers can hold.
+     * 
+     * @return the current capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Drops all the retained buffers.
+     */
+    public void trim() {
+        capacity = 0;
+        underusedSorts = 0;
+        objectBuffer = null;
+        intBuffer = null;
+        longBuffer = null;
+        indexBuffer = null;
+        pool = null;
+        queue = null;
+    }
+
+    /**
+     * Prepares this workspace for a sort of {@code length} elements. If the 
+     * workspace is busy or {@code length} exceeds the maximum capacity, a 
+     * single use workspace is returned instead.
+     * 
+     * @param length the length of the range to sort.
+     * @return the workspace to use for the sort.
+     */
+    SortWorkspace acquire(int length) {
+        if (busy || length > maximumCapacity) {
+            return singleUse().acquire(length);
+        }
+
+        busy = true;
+
+        if (length > capacity) {
+            // Grow geometrically, but never past the maximum capacity:
+            capacity = (int) Math.min(maximumCapacity,
+                                      Math.max(length, 
+                                               capacity + (long) capacity / 2));
+            objectBuffer = null;
+            intBuffer = null;
+            longBuffer = null;
+            indexBuffer = null;
+            underusedSorts = 0;
+        }
+
+        int maximumRuns = (length >>> 1) + 1;
+
+        if (queue == null || queue.capacity() < maximumRuns) {
+            queue = new RunQueue(retainBuffers ? (capacity >>> 1) + 1 :
+                                                 maximumRuns);
+        } else {
+            queue.clear();
+        }
+
+        if (pool == null) {
+            pool = new IntervalPool(maximumRuns);
+        } else {
+            pool.clear();
+        }
+
+        return this;
+    }
+
+    /**
+     * Ends the sort of {@code length} elements started by the latest call to
+     * {@link #acquire(int)}.
+     * 
+     * @param length the length of the range sorted.
+     */
+    void release(int length) {
+        if (!retainBuffers) {
+            return;
+        }
+
+        if (objectBuffer != null) {
+            // Do not keep the sorted objects reachable:
+            Arrays.fill(objectBuffer, 0, length, null);
+        }
+
+        if (capacity > SHRINK_FACTOR * length) {
+            if (++underusedSorts == SHRINK_THRESHOLD) {
+                trim();
+            }
+        } else {
+            underusedSorts = 0;
+        }
+
+        busy = false;
+    }
+
+    Object[] objectBuffer() {
+        if (objectBuffer == null) {
+            objectBuffer = new Object[capacity];
+        }
+
+        return objectBuffer;
+    }
+
+    int[] intBuffer() {
+        if (intBuffer == null) {
+            intBuffer = new int[capacity];
+        }
+
+        return intBuffer;
+    }
+
+    long[] longBuffer() {
+        if (longBuffer == null) {
+            longBuffer = new long[capacity];
+        }
+
+        return longBuffer;
+    }
+
+    /**
+     * Returns the buffer for the satellite indices moved along with the 
+     * values being sorted. It is separate from {@link #intBuffer()}, since a
+     * sort by {@code int} keys needs both.
+     * 
+     * @return the index buffer.
+     */
+    int[] indexBuffer() {
+        if (indexBuffer == null) {
+            indexBuffer = new int[capacity];
+        }
+
+        return indexBuffer;
+    }
+
+    IntervalPool intervalPool() {
+        return pool;
+    }
+
+    RunQueue runQueue() {
+        return queue;
+    }
+}
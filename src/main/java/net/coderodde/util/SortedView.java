@@ -0,0 +1,188 @@
+package net.coderodde.util;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * This class is a read-only list of the elements of a sorted range, backed
+ * directly by the buffer the range was sorted in and the intervals listing
+ * the buffer in sorted order. Creating the view skips writing the sorted
+ * elements back into the array, which pays off when the sorted order is only
+ * iterated once or only a prefix of it is read.
+ * <p>
+ * The intervals are flattened into an index of their starting positions in
+ * the sorted order, so {@link #get(int)} runs in time logarithmic in the
+ * number of intervals and the iterator in constant time per element. The
+ * array the view was created from may be modified freely afterwards without
+ * affecting the view.
+ *
+ * @param <T> the element type.
+ */
+public final class SortedView<T> extends AbstractList<T>
+                                 implements RandomAccess {
+
+    private final Object[] aux;
+
+    // offsets[k] is the position of the first element of the k-th interval in
+    // the sorted order, and offsets[intervals] equals the size:
+    private final int[] offsets;
+
+    // froms[k] is the index of the first element of the k-th interval in aux:
+    private final int[] froms;
+
+    private final int intervals;
+
+    /**
+     * Constructs a view of the sorted order of {@code aux[0], ...,
+     * aux[size - 1]} described by the run starting at the interval slot
+     * {@code run}, or of the unsorted buffer if {@code run} is
+     * {@link IntervalPool#NULL}.
+     */
+    SortedView(Object[] aux, int size, IntervalPool pool, int run) {
+        this.aux = aux;
+
+        if (run == IntervalPool.NULL) {
+            // Trivially sorted:
+            this.intervals = size == 0 ? 0 : 1;
+            this.offsets = new int[]{ 0, size };
+            this.froms = new int[]{ 0 };
+            return;
+        }
+
+        int count = 0;
+
+        for (int interval = run;
+                interval != IntervalPool.NULL;
+                interval = pool.next[interval]) {
+            ++count;
+        }
+
+        this.intervals = count;
+        this.offsets = new int[count + 1];
+        this.froms = new int[count];
+
+        int k = 0;
+        int offset = 0;
+
+        for (int interval = run;
+                interval != IntervalPool.NULL;
+                interval = pool.next[interval], ++k) {
+            offsets[k] = offset;
+            froms[k] = pool.from[interval];
+            offset += pool.to[interval] - pool.from[interval] + 1;
+        }
+
+        offsets[count] = offset;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(
+                    "index(" + index + ") is out of bounds [0, " + size() +
+                    ")");
+        }
+
+        int k = Arrays.binarySearch(offsets, 0, intervals, index);
+
+        if (k < 0) {
+            // index falls inside the interval before the insertion point:
+            k = -k - 2;
+        }
+
+        return (T) aux[froms[k] + index - offsets[k]];
+    }
+
+    @Override
+    public int size() {
+        return offsets[intervals];
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new SortedViewIterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] array = new Object[size()];
+        copyTo(array, 0);
+        return array;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> E[] toArray(E[] array) {
+        Objects.requireNonNull(array, "The input array is null.");
+
+        if (array.length < size()) {
+            array = (E[]) Array.newInstance(
+                    array.getClass().getComponentType(),
+                    size());
+        } else if (array.length > size()) {
+            array[size()] = null;
+        }
+
+        copyTo(array, 0);
+        return array;
+    }
+
+    /**
+     * Writes the elements of this view in sorted order into
+     * {@code array[fromIndex], ..., array[fromIndex + size() - 1]}, copying
+     * each interval in bulk.
+     *
+     * @param array     the target array.
+     * @param fromIndex the index of the first target component.
+     */
+    public void copyTo(Object[] array, int fromIndex) {
+        Objects.requireNonNull(array, "The input array is null.");
+
+        if (fromIndex < 0 || fromIndex > array.length - size()) {
+            throw new ArrayIndexOutOfBoundsException(
+                    "Cannot copy " + size() + " elements to index " +
+                    fromIndex + " of an array of length " + array.length);
+        }
+
+        for (int k = 0; k < intervals; ++k) {
+            int intervalLength = offsets[k + 1] - offsets[k];
+            System.arraycopy(aux, froms[k], array, fromIndex, intervalLength);
+            fromIndex += intervalLength;
+        }
+    }
+
+    private final class SortedViewIterator implements Iterator<T> {
+
+        private int interval;
+        private int index = froms.length > 0 ? froms[0] : 0;
+        private int intervalEnd = intervals > 0 ? index + offsets[1] : 0;
+
+        @Override
+        public boolean hasNext() {
+            return interval < intervals;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (interval >= intervals) {
+                throw new NoSuchElementException("The view is exhausted.");
+            }
+
+            T element = (T) aux[index++];
+
+            if (index == intervalEnd && ++interval < intervals) {
+                index = froms[interval];
+                intervalEnd = index + offsets[interval + 1] - offsets[interval];
+            }
+
+            return element;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package net.coderodde.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AdaptiveCollectorsTest {
+
+    private static final int BRUTE_FORCE_ITERATIONS = 100;
+    private static final int MAXIMUM_LENGTH = 5000;
+    private static final int MAXIMUM_KEY = 100;
+
+    @Test
+    public void testBruteForce() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveCollectorsTest.testBruteForce(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int length = random.nextInt(MAXIMUM_LENGTH);
+            boolean presorted = random.nextBoolean();
+            List<Entry> entries = new ArrayList<>(length);
+
+            for (int j = 0; j < length; ++j) {
+                entries.add(new Entry(presorted ? 
+                                      j / 3 : 
+                                      random.nextInt(MAXIMUM_KEY),
+                                      j));
+            }
+
+            List<Entry> expected = new ArrayList<>(entries);
+            Collections.sort(expected);
+
+            // Collect parallel streams too, the result must keep the 
+            // encounter order of equal entries either way:
+            List<Entry> list = 
+                    (random.nextBoolean() ? 
+                     entries.stream() : 
+                     entries.parallelStream())
+                            .collect(AdaptiveCollectors.toSortedList());
+
+            Entry[] array = 
+                    entries.parallelStream()
+                           .collect(AdaptiveCollectors.toSortedArray(
+                                    Entry[]::new));
+
+            assertEquals(expected, list);
+            assertEquals(length, array.length);
+
+            for (int j = 0; j < length; ++j) {
+                assertSame(expected.get(j), array[j]);
+            }
+        }
+    }
+
+    @Test
+    public void testComparator() {
+        Integer[] array = 
+                IntStream.range(0, 1000)
+                         .boxed()
+                         .parallel()
+                         .collect(AdaptiveCollectors.toSortedArray(
+                                  Integer[]::new, 
+                                  Comparator.reverseOrder()));
+
+        for (int i = 0; i < array.length; ++i) {
+            assertEquals(Integer.valueOf(array.length - 1 - i), array[i]);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testListIsUnmodifiable() {
+        IntStream.range(0, 10)
+                 .boxed()
+                 .collect(AdaptiveCollectors.toSortedList())
+                 .add(10);
+    }
+
+    /**
+     * An element ordered by its key only, so that the collectors keep the 
+     * equal entries in the order of their ids if and only if they are stable.
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        private final int key;
+        private final int id;
+
+        Entry(int key, int id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Integer.compare(key, other.key);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + key + ", " + id + ")";
+        }
+    }
+}
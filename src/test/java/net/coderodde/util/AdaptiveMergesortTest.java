@@ -1,6 +1,14 @@
 package net.coderodde.util;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -37,9 +45,1294 @@ public final class AdaptiveMergesortTest {
         }
     }
 
+    @Test
+    public void testPrimitiveBruteForce() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testPrimitiveBruteForce(): seed = " +
+                seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH + 1);
+            arrayLength = Math.max(arrayLength, MINIMUM_ARRAY_LENGTH);
+
+            int fromIndex = random.nextInt(arrayLength / 2);
+            int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+            Integer[] source = getRandomArray(arrayLength, random);
+
+            int[] intArray1 = new int[arrayLength];
+            long[] longArray1 = new long[arrayLength];
+            double[] doubleArray1 = new double[arrayLength];
+            float[] floatArray1 = new float[arrayLength];
+            short[] shortArray1 = new short[arrayLength];
+            char[] charArray1 = new char[arrayLength];
+            byte[] byteArray1 = new byte[arrayLength];
+
+            for (int j = 0; j < arrayLength; ++j) {
+                intArray1[j] = source[j];
+                longArray1[j] = (long) source[j] << 32;
+                doubleArray1[j] = source[j] / 7.0;
+                floatArray1[j] = source[j] / 7.0f;
+                shortArray1[j] = (short) (source[j] * 500);
+                charArray1[j] = (char) (source[j] * 500);
+                byteArray1[j] = (byte) (source[j] * 3);
+            }
+
+            int[] intArray2 = intArray1.clone();
+            long[] longArray2 = longArray1.clone();
+            double[] doubleArray2 = doubleArray1.clone();
+            float[] floatArray2 = floatArray1.clone();
+            short[] shortArray2 = shortArray1.clone();
+            char[] charArray2 = charArray1.clone();
+            byte[] byteArray2 = byteArray1.clone();
+
+            Arrays.sort(intArray1, fromIndex, toIndex);
+            Arrays.sort(longArray1, fromIndex, toIndex);
+            Arrays.sort(doubleArray1, fromIndex, toIndex);
+            Arrays.sort(floatArray1, fromIndex, toIndex);
+            Arrays.sort(shortArray1, fromIndex, toIndex);
+            Arrays.sort(charArray1, fromIndex, toIndex);
+            Arrays.sort(byteArray1, fromIndex, toIndex);
+
+            AdaptiveMergesort.sort(intArray2, fromIndex, toIndex);
+            AdaptiveMergesort.sort(longArray2, fromIndex, toIndex);
+            AdaptiveMergesort.sort(doubleArray2, fromIndex, toIndex);
+            AdaptiveMergesort.sort(floatArray2, fromIndex, toIndex);
+            AdaptiveMergesort.sort(shortArray2, fromIndex, toIndex);
+            AdaptiveMergesort.sort(charArray2, fromIndex, toIndex);
+            AdaptiveMergesort.sort(byteArray2, fromIndex, toIndex);
+
+            assertTrue(Arrays.equals(intArray1, intArray2));
+            assertTrue(Arrays.equals(longArray1, longArray2));
+            assertTrue(Arrays.equals(doubleArray1, doubleArray2));
+            assertTrue(Arrays.equals(floatArray1, floatArray2));
+            assertTrue(Arrays.equals(shortArray1, shortArray2));
+            assertTrue(Arrays.equals(charArray1, charArray2));
+            assertTrue(Arrays.equals(byteArray1, byteArray2));
+        }
+    }
+
+    @Test
+    public void testFloatingPointSpecialValues() {
+        double[] doubleArray1 = { 
+            Double.NaN, 0.0, -0.0, Double.POSITIVE_INFINITY, -1.0, 
+            Double.NEGATIVE_INFINITY, -0.0, Double.NaN, 0.0, 1.0, 
+            Double.MIN_VALUE, -Double.MIN_VALUE
+        };
+
+        float[] floatArray1 = new float[doubleArray1.length];
+
+        for (int i = 0; i < doubleArray1.length; ++i) {
+            floatArray1[i] = (float) doubleArray1[i];
+        }
+
+        double[] doubleArray2 = doubleArray1.clone();
+        float[] floatArray2 = floatArray1.clone();
+
+        Arrays.sort(doubleArray1);
+        Arrays.sort(floatArray1);
+        AdaptiveMergesort.sort(doubleArray2);
+        AdaptiveMergesort.sort(floatArray2);
+
+        assertTrue(Arrays.equals(doubleArray1, doubleArray2));
+        assertTrue(Arrays.equals(floatArray1, floatArray2));
+    }
+
+    @Test
+    public void testNaNBitsArePreserved() {
+        double nan1 = Double.longBitsToDouble(0xfff8000000000001L);
+        double nan2 = Double.longBitsToDouble(0x7ff8000000000002L);
+        double nan3 = Double.longBitsToDouble(0x7ff0000000000003L);
+        double[] doubleArray = { 
+            nan1, 1.0, nan2, Double.POSITIVE_INFINITY, -0.0, nan3, -1.0 
+        };
+
+        AdaptiveMergesort.sort(doubleArray);
+
+        long[] expectedDoubleBits = {
+            Double.doubleToRawLongBits(-1.0),
+            Double.doubleToRawLongBits(-0.0),
+            Double.doubleToRawLongBits(1.0),
+            Double.doubleToRawLongBits(Double.POSITIVE_INFINITY),
+            0xfff8000000000001L,
+            0x7ff8000000000002L,
+            0x7ff0000000000003L,
+        };
+
+        for (int i = 0; i < doubleArray.length; ++i) {
+            assertEquals(expectedDoubleBits[i], 
+                         Double.doubleToRawLongBits(doubleArray[i]));
+        }
+
+        float nan4 = Float.intBitsToFloat(0xffc00001);
+        float nan5 = Float.intBitsToFloat(0x7fc00002);
+        float[] floatArray = { nan4, 1.0f, nan5, -0.0f, -1.0f };
+
+        AdaptiveMergesort.sort(floatArray);
+
+        int[] expectedFloatBits = {
+            Float.floatToRawIntBits(-1.0f),
+            Float.floatToRawIntBits(-0.0f),
+            Float.floatToRawIntBits(1.0f),
+            0xffc00001,
+            0x7fc00002,
+        };
+
+        for (int i = 0; i < floatArray.length; ++i) {
+            assertEquals(expectedFloatBits[i], 
+                         Float.floatToRawIntBits(floatArray[i]));
+        }
+    }
+
+    @Test
+    public void testWorkspaceReuse() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+        SortWorkspace workspace = new SortWorkspace(MAXIMUM_ARRAY_LENGTH / 2);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testWorkspaceReuse(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH + 1);
+            arrayLength = Math.max(arrayLength, MINIMUM_ARRAY_LENGTH);
+
+            int fromIndex = random.nextInt(arrayLength / 2);
+            int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+            Integer[] array1 = getRandomArray(arrayLength, random);
+            Integer[] array2 = array1.clone();
+            long[] longArray1 = new long[arrayLength];
+
+            for (int j = 0; j < arrayLength; ++j) {
+                longArray1[j] = array1[j];
+            }
+
+            long[] longArray2 = longArray1.clone();
+
+            Arrays.sort(array1, fromIndex, toIndex);
+            Arrays.sort(longArray1, fromIndex, toIndex);
+            AdaptiveMergesort.sort(array2, fromIndex, toIndex, workspace);
+            AdaptiveMergesort.sort(longArray2, 
+                                   fromIndex, 
+                                   toIndex, 
+                                   SortWorkspace.forCurrentThread());
+
+            assertTrue(Arrays.equals(array1, array2));
+            assertTrue(Arrays.equals(longArray1, longArray2));
+            assertTrue(workspace.getCapacity() <= 
+                       workspace.getMaximumCapacity());
+        }
+    }
+
+    @Test
+    public void testParallelSort() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testParallelSort(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS / 10; ++i) {
+            int arrayLength = 
+                    MINIMUM_ARRAY_LENGTH + random.nextInt(100_000);
+            int fromIndex = random.nextInt(arrayLength / 2);
+            int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+            Entry[] array1 = getRandomEntryArray(arrayLength, random);
+            
+            // Plant a few long runs in order to exercise stitching:
+            Arrays.sort(array1, 0, arrayLength / 3);
+            Arrays.sort(array1, arrayLength / 2, arrayLength);
+
+            Entry[] array2 = array1.clone();
+
+            Arrays.sort(array1, fromIndex, toIndex);
+            AdaptiveMergesort.parallelSort(array2, 
+                                           fromIndex, 
+                                           toIndex, 
+                                           1 + random.nextInt(1000));
+
+            assertTrue(Arrays.equals(array1, array2));
+        }
+    }
+
+    @Test
+    public void testParallelMergeOfInterleavedRuns() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testParallelMergeOfInterleavedRuns(): " +
+                "seed = " + seed);
+
+        for (int i = 0; i < 10; ++i) {
+            int arrayLength = 100_000 + random.nextInt(100_000);
+            int middleIndex = arrayLength >>> 1;
+            Entry[] array1 = getRandomEntryArray(arrayLength, random);
+
+            // Two huge runs drawing on the same few keys interleave all over,
+            // so the final merge is split by co-ranking at many ties:
+            Arrays.sort(array1, 0, middleIndex);
+            Arrays.sort(array1, middleIndex, arrayLength);
+
+            Entry[] array2 = array1.clone();
+
+            Arrays.sort(array1);
+            AdaptiveMergesort.parallelSort(array2, 
+                                           0, 
+                                           arrayLength, 
+                                           1 + random.nextInt(100));
+
+            assertTrue(Arrays.equals(array1, array2));
+        }
+    }
+
+    @Test
+    public void testMergePolicies() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testMergePolicies(): seed = " + seed);
+
+        for (MergePolicy mergePolicy : MergePolicy.values()) {
+            SortConfiguration configuration = 
+                    SortConfiguration.DEFAULT.withMergePolicy(mergePolicy);
+
+            for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+                int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH + 1);
+                arrayLength = Math.max(arrayLength, MINIMUM_ARRAY_LENGTH);
+
+                int fromIndex = random.nextInt(arrayLength / 2);
+                int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+                Entry[] array1 = getRandomEntryArray(arrayLength, random);
+                Entry[] array2 = array1.clone();
+
+                Arrays.sort(array1, fromIndex, toIndex);
+                AdaptiveMergesort.sort(array2, 
+                                       fromIndex, 
+                                       toIndex,
+                                       configuration);
+
+                // Entries are equal only to themselves, so this checks the
+                // stability too:
+                assertTrue(Arrays.equals(array1, array2));
+            }
+        }
+    }
+
+    @Test
+    public void testCompaction() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testCompaction(): seed = " + seed);
+
+        int[] compactionThresholds = { 1, 4, 64, Integer.MAX_VALUE };
+        SortWorkspace workspace = new SortWorkspace();
+
+        for (MergePolicy mergePolicy : MergePolicy.values()) {
+            for (int compactionThreshold : compactionThresholds) {
+                SortStatistics statistics = new SortStatistics();
+                SortConfiguration configuration = 
+                        SortConfiguration.DEFAULT
+                                         .withMergePolicy(mergePolicy)
+                                         .withCompactionThreshold(
+                                                 compactionThreshold)
+                                         .withStatistics(statistics);
+
+                for (int i = 0; i < BRUTE_FORCE_ITERATIONS / 10; ++i) {
+                    int arrayLength = 
+                            MINIMUM_ARRAY_LENGTH + random.nextInt(1000);
+                    int fromIndex = random.nextInt(arrayLength / 2);
+                    int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+                    Entry[] array1 = getRandomEntryArray(arrayLength, random);
+                    Entry[] array2 = array1.clone();
+
+                    Entry[] array3 = array1.clone();
+
+                    Arrays.sort(array1, fromIndex, toIndex);
+                    AdaptiveMergesort.sort(array2, 
+                                           fromIndex, 
+                                           toIndex,
+                                           configuration);
+                    // The scratch half of a reused workspace holds stale 
+                    // elements:
+                    AdaptiveMergesort.sort(array3,
+                                           fromIndex,
+                                           toIndex,
+                                           null,
+                                           configuration,
+                                           workspace);
+
+                    assertTrue(Arrays.equals(array1, array2));
+                    assertTrue(Arrays.equals(array1, array3));
+                }
+
+                if (compactionThreshold == Integer.MAX_VALUE) {
+                    // Every fragmented run but the final one is compacted:
+                    assertTrue(statistics.getCompactions() > 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMinimumRunLength() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testMinimumRunLength(): seed = " + 
+                seed);
+
+        int[] minimumRunLengths = { 
+            SortConfiguration.COMPUTED_MINIMUM_RUN_LENGTH, 1, 2, 7, 1000
+        };
+
+        for (int minimumRunLength : minimumRunLengths) {
+            SortConfiguration configuration = 
+                    SortConfiguration.DEFAULT
+                                     .withMergePolicy(MergePolicy.POWERSORT)
+                                     .withMinimumRunLength(minimumRunLength);
+
+            for (int i = 0; i < BRUTE_FORCE_ITERATIONS / 10; ++i) {
+                int arrayLength = MINIMUM_ARRAY_LENGTH + random.nextInt(1000);
+                int fromIndex = random.nextInt(arrayLength / 2);
+                int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+                Entry[] array1 = getRandomEntryArray(arrayLength, random);
+
+                // Plant a descending run:
+                Arrays.sort(array1, 0, arrayLength / 4, 
+                            Collections.reverseOrder());
+
+                Entry[] array2 = array1.clone();
+
+                Arrays.sort(array1, fromIndex, toIndex);
+                AdaptiveMergesort.sort(array2, 
+                                       fromIndex, 
+                                       toIndex,
+                                       configuration);
+
+                assertTrue(Arrays.equals(array1, array2));
+            }
+        }
+    }
+
+    @Test
+    public void testMinimumGallop() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testMinimumGallop(): seed = " + seed);
+
+        int[] minimumGallops = { 1, 2, SortConfiguration.DEFAULT_MINIMUM_GALLOP,
+                                 Integer.MAX_VALUE };
+
+        for (int minimumGallop : minimumGallops) {
+            SortConfiguration configuration = 
+                    SortConfiguration.DEFAULT.withMinimumGallop(minimumGallop);
+
+            for (int i = 0; i < BRUTE_FORCE_ITERATIONS / 10; ++i) {
+                int arrayLength = MINIMUM_ARRAY_LENGTH + random.nextInt(1000);
+                Entry[] array1 = getRandomEntryArray(arrayLength, random);
+
+                // Plant a long run to gallop over:
+                Arrays.sort(array1, 0, arrayLength / 2);
+
+                Entry[] array2 = array1.clone();
+
+                Arrays.sort(array1);
+                AdaptiveMergesort.sort(array2, configuration);
+
+                assertTrue(Arrays.equals(array1, array2));
+            }
+        }
+
+        // Two perfectly interleaved runs are merged faster linearly:
+        Integer[] array = new Integer[1000];
+
+        for (int i = 0; i < array.length / 2; ++i) {
+            array[i] = 2 * i;
+            array[i + array.length / 2] = 2 * i + 1;
+        }
+
+        SortStatistics linearStatistics = new SortStatistics();
+        SortStatistics gallopingStatistics = new SortStatistics();
+
+        AdaptiveMergesort.sort(array.clone(),
+                               SortConfiguration.DEFAULT
+                                                .withStatistics(
+                                                        linearStatistics));
+        AdaptiveMergesort.sort(array.clone(),
+                               SortConfiguration.DEFAULT
+                                                .withMinimumGallop(1)
+                                                .withStatistics(
+                                                        gallopingStatistics));
+
+        assertTrue(linearStatistics.getComparisons() < 
+                   gallopingStatistics.getComparisons());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnZeroMinimumGallop() {
+        SortConfiguration.DEFAULT.withMinimumGallop(0);
+    }
+
+    @Test
+    public void testSmartSort() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSmartSort(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH + 1);
+            arrayLength = Math.max(arrayLength, MINIMUM_ARRAY_LENGTH);
+
+            int fromIndex = random.nextInt(arrayLength / 2);
+            int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+            Entry[] array1 = getRandomEntryArray(arrayLength, random);
+
+            // Plant some order for the probe to find:
+            switch (random.nextInt(3)) {
+                case 0:
+                    Arrays.sort(array1, 0, arrayLength / 2);
+                    break;
+
+                case 1:
+                    Arrays.sort(array1, 0, arrayLength / 2, 
+                                Collections.reverseOrder());
+                    break;
+            }
+
+            Entry[] array2 = array1.clone();
+
+            Arrays.sort(array1, fromIndex, toIndex);
+            AdaptiveMergesort.smartSort(array2, fromIndex, toIndex, null);
+
+            assertTrue(Arrays.equals(array1, array2));
+        }
+    }
+
+    @Test
+    public void testProbe() {
+        Integer[] array = new Integer[100_000];
+
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = i;
+        }
+
+        Presortedness presortedness = AdaptiveMergesort.probe(array, null);
+
+        assertEquals(array.length, presortedness.getLength());
+        assertEquals(1, presortedness.getEstimatedRuns());
+        assertEquals(0.0, presortedness.getInversionRatio(), 0.0);
+        assertEquals(0.0, presortedness.getDuplicateRatio(), 0.0);
+        assertTrue(presortedness.getComparisons() < 1000);
+        assertEquals(SortStrategy.ADAPTIVE_MERGE, 
+                     presortedness.getRecommendedStrategy());
+
+        // Swapping the neighbours leaves runs of two, but few inversions:
+        for (int i = 0; i + 1 < array.length; i += 2) {
+            Integer tmp = array[i];
+            array[i] = array[i + 1];
+            array[i + 1] = tmp;
+        }
+
+        assertEquals(SortStrategy.MINIMUM_RUN_MERGE,
+                     AdaptiveMergesort.probe(array, null)
+                                      .getRecommendedStrategy());
+
+        Collections.shuffle(Arrays.asList(array), new Random(0L));
+
+        assertEquals(SortStrategy.PLAIN_MERGE,
+                     AdaptiveMergesort.smartSort(array));
+
+        for (int i = 0; i < array.length; ++i) {
+            assertEquals(Integer.valueOf(i), array[i]);
+        }
+    }
+
+    @Test
+    public void testSortAll() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSortAll(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS / 10; ++i) {
+            Entry[][] arrays1 = new Entry[random.nextInt(100)][];
+
+            for (int j = 0; j < arrays1.length; ++j) {
+                arrays1[j] = getRandomEntryArray(random.nextInt(200), random);
+            }
+
+            Entry[][] arrays2 = new Entry[arrays1.length][];
+            Entry[][] arrays3 = new Entry[arrays1.length][];
+
+            for (int j = 0; j < arrays1.length; ++j) {
+                arrays2[j] = arrays1[j].clone();
+                arrays3[j] = arrays1[j].clone();
+                Arrays.sort(arrays1[j]);
+            }
+
+            AdaptiveMergesort.sortAll(arrays2);
+            AdaptiveMergesort.parallelSortAll(arrays3, null);
+
+            assertTrue(Arrays.deepEquals(arrays1, arrays2));
+            assertTrue(Arrays.deepEquals(arrays1, arrays3));
+        }
+    }
+
+    @Test
+    public void testSortRanges() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSortRanges(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS / 10; ++i) {
+            int[] boundaries = new int[1 + random.nextInt(100)];
+            boundaries[0] = random.nextInt(10);
+
+            for (int j = 1; j < boundaries.length; ++j) {
+                boundaries[j] = boundaries[j - 1] + random.nextInt(200);
+            }
+
+            int arrayLength = 
+                    boundaries[boundaries.length - 1] + random.nextInt(10);
+            Entry[] array1 = getRandomEntryArray(arrayLength, random);
+            Entry[] array2 = array1.clone();
+            Entry[] array3 = array1.clone();
+
+            for (int j = 0; j + 1 < boundaries.length; ++j) {
+                Arrays.sort(array1, boundaries[j], boundaries[j + 1]);
+            }
+
+            AdaptiveMergesort.sortRanges(array2, boundaries);
+            AdaptiveMergesort.parallelSortRanges(array3, 
+                                                 boundaries, 
+                                                 Comparator.reverseOrder());
+
+            assertTrue(Arrays.equals(array1, array2));
+
+            for (int j = 0; j + 1 < boundaries.length; ++j) {
+                Entry[] slice = Arrays.copyOfRange(array1,
+                                                   boundaries[j],
+                                                   boundaries[j + 1]);
+                Arrays.sort(slice, Comparator.reverseOrder());
+                System.arraycopy(slice, 
+                                 0, 
+                                 array1, 
+                                 boundaries[j], 
+                                 slice.length);
+            }
+
+            assertTrue(Arrays.equals(array1, array3));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortRangesThrowsOnDecreasingBoundaries() {
+        AdaptiveMergesort.sortRanges(new Integer[10], new int[]{ 0, 5, 4 });
+    }
+
+    @Test
+    public void testMerge() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testMerge(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS / 10; ++i) {
+            Entry[][] arrays = new Entry[random.nextInt(300)][];
+            List<Entry> expected = new ArrayList<>();
+            List<Iterator<Entry>> iterators = new ArrayList<>();
+
+            for (int j = 0; j < arrays.length; ++j) {
+                arrays[j] = getRandomEntryArray(random.nextInt(20), random);
+                Arrays.sort(arrays[j]);
+                expected.addAll(Arrays.asList(arrays[j]));
+                iterators.add(Arrays.asList(arrays[j]).iterator());
+            }
+
+            // Sorting the concatenation stably keeps the equal entries in the
+            // order of their arrays:
+            Collections.sort(expected);
+
+            Entry[] merged = AdaptiveMergesort.merge(arrays);
+            Iterator<Entry> iterator = AdaptiveMergesort.merge(iterators);
+
+            assertEquals(Entry[].class, merged.getClass());
+            assertEquals(expected, Arrays.asList(merged));
+
+            for (Entry entry : expected) {
+                assertTrue(iterator.hasNext());
+                assertSame(entry, iterator.next());
+            }
+
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testMergeRuns() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testMergeRuns(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS / 10; ++i) {
+            int[] boundaries = new int[1 + random.nextInt(100)];
+            boundaries[0] = random.nextInt(10);
+
+            for (int j = 1; j < boundaries.length; ++j) {
+                boundaries[j] = boundaries[j - 1] + random.nextInt(50);
+            }
+
+            int arrayLength = 
+                    boundaries[boundaries.length - 1] + random.nextInt(10);
+            Entry[] array1 = getRandomEntryArray(arrayLength, random);
+
+            for (int j = 0; j + 1 < boundaries.length; ++j) {
+                Arrays.sort(array1, 
+                            boundaries[j], 
+                            boundaries[j + 1], 
+                            Comparator.reverseOrder());
+            }
+
+            Entry[] array2 = array1.clone();
+
+            Arrays.sort(array1, 
+                        boundaries[0], 
+                        boundaries[boundaries.length - 1], 
+                        Comparator.reverseOrder());
+            AdaptiveMergesort.mergeRuns(array2, 
+                                        boundaries, 
+                                        Comparator.reverseOrder());
+
+            assertTrue(Arrays.equals(array1, array2));
+        }
+    }
+
+    @Test
+    public void testSortBounded() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSortBounded(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(20 * MAXIMUM_ARRAY_LENGTH);
+            Entry[] array1 = getRandomEntryArray(arrayLength, random);
+
+            // Plant some ascending and descending runs:
+            for (int j = random.nextInt(10); j > 0; --j) {
+                int fromIndex = random.nextInt(arrayLength + 1);
+                int toIndex = fromIndex +
+                              random.nextInt(arrayLength - fromIndex + 1);
+                Arrays.sort(array1,
+                            fromIndex,
+                            toIndex,
+                            random.nextBoolean() ?
+                                    Comparator.naturalOrder() :
+                                    Comparator.reverseOrder());
+            }
+
+            Entry[] array2 = array1.clone();
+            int fromIndex = random.nextInt(arrayLength + 1);
+            int toIndex = fromIndex +
+                          random.nextInt(arrayLength - fromIndex + 1);
+            int maximumScratchLength = random.nextBoolean() ?
+                                       random.nextInt(3) :
+                                       random.nextInt(arrayLength + 1);
+
+            Arrays.sort(array1, fromIndex, toIndex);
+            AdaptiveMergesort.sortBounded(array2,
+                                          fromIndex,
+                                          toIndex,
+                                          null,
+                                          maximumScratchLength);
+
+            assertTrue(Arrays.equals(array1, array2));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortBoundedThrowsOnNegativeScratchLength() {
+        AdaptiveMergesort.sortBounded(new Integer[]{ 2, 1 }, -1);
+    }
+
+    @Test
+    public void testComparatorSort() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testComparatorSort(): seed = " + seed);
+
+        Comparator<Entry> comparator = Collections.reverseOrder();
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = MINIMUM_ARRAY_LENGTH + 
+                              random.nextInt(MAXIMUM_ARRAY_LENGTH);
+            int fromIndex = random.nextInt(arrayLength / 2);
+            int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+            Entry[] array1 = getRandomEntryArray(arrayLength, random);
+            Entry[] array2 = array1.clone();
+            Entry[] array3 = array1.clone();
+
+            Arrays.sort(array1, fromIndex, toIndex, comparator);
+            AdaptiveMergesort.sort(array2, fromIndex, toIndex, comparator);
+            AdaptiveMergesort.parallelSort(array3, 
+                                           fromIndex, 
+                                           toIndex, 
+                                           comparator, 
+                                           1);
+
+            assertTrue(Arrays.equals(array1, array2));
+            assertTrue(Arrays.equals(array1, array3));
+        }
+    }
+
+    @Test
+    public void testSortByKey() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSortByKey(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = MINIMUM_ARRAY_LENGTH + 
+                              random.nextInt(MAXIMUM_ARRAY_LENGTH);
+            int fromIndex = random.nextInt(arrayLength / 2);
+            int toIndex = arrayLength - random.nextInt(arrayLength / 2);
+            Entry[] array1 = getRandomEntryArray(arrayLength, random);
+
+            // Plant a descending run:
+            Arrays.sort(array1, 0, arrayLength / 2, 
+                        Collections.reverseOrder());
+
+            Entry[] array2 = array1.clone();
+            Entry[] array3 = array1.clone();
+            Entry[] array4 = array1.clone();
+            int[] extractions = new int[1];
+
+            Arrays.sort(array1, fromIndex, toIndex);
+            AdaptiveMergesort.sortByKey(array2, fromIndex, toIndex, entry -> {
+                ++extractions[0];
+                return entry.key;
+            });
+            AdaptiveMergesort.sortByIntKey(array3, 
+                                           fromIndex, 
+                                           toIndex, 
+                                           entry -> entry.key);
+            AdaptiveMergesort.sortByLongKey(array4, 
+                                            fromIndex, 
+                                            toIndex, 
+                                            entry -> entry.key);
+
+            assertTrue(Arrays.equals(array1, array2));
+            assertTrue(Arrays.equals(array1, array3));
+            assertTrue(Arrays.equals(array1, array4));
+            assertEquals(toIndex - fromIndex, extractions[0]);
+        }
+    }
+
+    @Test
+    public void testSortedView() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSortedView(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH);
+            Entry[] array = getRandomEntryArray(arrayLength, random);
+            Entry[] original = array.clone();
+            Entry[] expected = array.clone();
+            Comparator<Entry> comparator = 
+                    random.nextBoolean() ? null : Collections.reverseOrder();
+
+            Arrays.sort(expected, comparator);
+            SortedView<Entry> view = 
+                    AdaptiveMergesort.sortedView(array, 
+                                                 0, 
+                                                 arrayLength, 
+                                                 comparator);
+
+            assertTrue(Arrays.equals(original, array));
+            assertEquals(arrayLength, view.size());
+            assertTrue(Arrays.equals(expected, view.toArray()));
+            assertTrue(Arrays.equals(expected, view.toArray(new Entry[0])));
+
+            Iterator<Entry> iterator = view.iterator();
+
+            for (int j = 0; j < arrayLength; ++j) {
+                assertSame(expected[j], view.get(j));
+                assertSame(expected[j], iterator.next());
+            }
+
+            assertFalse(iterator.hasNext());
+
+            Entry[] target = new Entry[arrayLength + 2];
+            view.copyTo(target, 1);
+            assertTrue(Arrays.equals(expected, 
+                                     Arrays.copyOfRange(target, 
+                                                        1, 
+                                                        arrayLength + 1)));
+        }
+
+        List<Integer> view = AdaptiveMergesort.sortedView(
+                new Integer[]{ 3, 1, 2 });
+
+        assertEquals(Arrays.asList(1, 2, 3), view);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSortedViewIsReadOnly() {
+        AdaptiveMergesort.sortedView(new Integer[]{ 2, 1 }).set(0, 3);
+    }
+
+    @Test
+    public void testSortedPrefixAndIterator() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSortedPrefixAndIterator(): " + 
+                "seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH);
+            Entry[] array = getRandomEntryArray(arrayLength, random);
+
+            // Plant a descending run:
+            Arrays.sort(array, 0, arrayLength / 2, Collections.reverseOrder());
+
+            Entry[] original = array.clone();
+            Entry[] expected = array.clone();
+            int k = random.nextInt(arrayLength + 2);
+
+            Arrays.sort(expected);
+            Entry[] prefix = AdaptiveMergesort.sortedPrefix(array, k);
+
+            assertTrue(Arrays.equals(original, array));
+            assertTrue(Arrays.equals(
+                    Arrays.copyOf(expected, Math.min(k, arrayLength)), 
+                    prefix));
+
+            Iterator<Entry> iterator = AdaptiveMergesort.sortedIterator(array);
+
+            for (int j = 0; j < arrayLength; ++j) {
+                assertSame(expected[j], iterator.next());
+            }
+
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testResort() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println("AdaptiveMergesortTest.testResort(): seed = " + 
+                           seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH);
+            Entry[] array = getRandomEntryArray(arrayLength, random);
+            Arrays.sort(array);
+
+            BitSet dirty = new BitSet();
+            int modifications = 
+                    arrayLength == 0 ? 0 : random.nextInt(arrayLength);
+
+            for (int j = 0; j < modifications; ++j) {
+                int index = random.nextInt(arrayLength);
+                array[index] = new Entry(MIN_ELEMENT + random.nextInt(
+                                            MAX_ELEMENT - MIN_ELEMENT + 1),
+                                         arrayLength + j);
+                dirty.set(index);
+            }
+
+            // The clean elements followed by the dirty ones in index order, 
+            // sorted stably:
+            List<Entry> expected = new ArrayList<>();
+
+            for (int j = 0; j < arrayLength; ++j) {
+                if (!dirty.get(j)) {
+                    expected.add(array[j]);
+                }
+            }
+
+            for (int j = dirty.nextSetBit(0); 
+                    j >= 0; 
+                    j = dirty.nextSetBit(j + 1)) {
+                expected.add(array[j]);
+            }
+
+            Collections.sort(expected);
+
+            if (random.nextBoolean()) {
+                AdaptiveMergesort.resort(array, dirty);
+            } else {
+                // Pass the indices unordered and with a repetition:
+                List<Integer> indexList = new ArrayList<>();
+                dirty.stream().forEach(indexList::add);
+                indexList.addAll(indexList.subList(0, indexList.size() / 2));
+                Collections.shuffle(indexList, random);
+                int[] indices = new int[indexList.size()];
+
+                for (int j = 0; j < indices.length; ++j) {
+                    indices[j] = indexList.get(j);
+                }
+
+                AdaptiveMergesort.resort(array, indices);
+            }
+
+            assertTrue(Arrays.equals(expected.toArray(), array));
+        }
+    }
+
+    @Test
+    public void testSortRecords() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println("AdaptiveMergesortTest.testSortRecords(): seed = " + 
+                           seed);
+
+        // A record is an int id followed by a little-endian short key:
+        int recordLength = 6;
+        RecordKey key = new RecordKey(4, 2, true, ByteOrder.LITTLE_ENDIAN);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH);
+            Entry[] array = getRandomEntryArray(arrayLength, random);
+            Arrays.sort(array, 0, arrayLength / 2, Collections.reverseOrder());
+
+            // Leave a record of garbage on both sides of the sorted range:
+            ByteBuffer buffer = 
+                    ByteBuffer.allocateDirect((arrayLength + 2) * recordLength)
+                              .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(recordLength);
+
+            for (Entry entry : array) {
+                buffer.putInt(entry.id).putShort((short) entry.key);
+            }
+
+            buffer.limit(buffer.position());
+            buffer.position(recordLength);
+            AdaptiveMergesort.sortRecords(buffer, recordLength, key);
+
+            assertEquals(recordLength, buffer.position());
+            Arrays.sort(array);
+
+            for (Entry entry : array) {
+                assertEquals(entry.id, buffer.getInt());
+                assertEquals(entry.key, buffer.getShort());
+            }
+
+            // A plain comparator reading a little-endian int key followed by
+            // an int id through the buffers it is handed. The keys are
+            // scaled so that decoding them big-endian breaks their order:
+            ByteBuffer intBuffer = 
+                    ByteBuffer.allocate(arrayLength * 2 * Integer.BYTES)
+                              .order(ByteOrder.LITTLE_ENDIAN);
+            Collections.shuffle(Arrays.asList(array), random);
+
+            for (Entry entry : array) {
+                intBuffer.putInt(1000 * entry.key).putInt(entry.id);
+            }
+
+            intBuffer.flip();
+            AdaptiveMergesort.sortRecords(
+                    intBuffer, 
+                    2 * Integer.BYTES, 
+                    (buffer1, offset1, buffer2, offset2) ->
+                            Integer.compare(buffer1.getInt(offset1), 
+                                            buffer2.getInt(offset2)));
+            Arrays.sort(array);
+
+            for (Entry entry : array) {
+                assertEquals(1000 * entry.key, intBuffer.getInt());
+                assertEquals(entry.id, intBuffer.getInt());
+            }
+        }
+    }
+
+    @Test
+    public void testRecordKey() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println("AdaptiveMergesortTest.testRecordKey(): seed = " + 
+                           seed);
+
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            random.nextBytes(buffer.array());
+
+            if (random.nextBoolean()) {
+                // Make the keys share a prefix:
+                buffer.put(16, buffer.get(0));
+            }
+
+            ByteOrder order = random.nextBoolean() ? 
+                              ByteOrder.BIG_ENDIAN : 
+                              ByteOrder.LITTLE_ENDIAN;
+            buffer.order(random.nextBoolean() ? 
+                         ByteOrder.BIG_ENDIAN : 
+                         ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer ordered = buffer.duplicate().order(order);
+
+            assertEquals(
+                    Integer.signum(Short.compare(ordered.getShort(0), 
+                                                 ordered.getShort(16))),
+                    Integer.signum(new RecordKey(0, 2, true, order)
+                                   .compare(buffer, 0, buffer, 16)));
+            assertEquals(
+                    Integer.signum(Integer.compareUnsigned(ordered.getInt(0), 
+                                                           ordered.getInt(16))),
+                    Integer.signum(new RecordKey(0, 4, false, order)
+                                   .compare(buffer, 0, buffer, 16)));
+            assertEquals(
+                    Integer.signum(Long.compare(ordered.getLong(0), 
+                                                ordered.getLong(16))),
+                    Integer.signum(new RecordKey(0, 8, true, order)
+                                   .compare(buffer, 0, buffer, 16)));
+
+            // A 16 byte key compares as its most significant long first:
+            int high = order == ByteOrder.BIG_ENDIAN ? 0 : 8;
+            int low = 8 - high;
+            int expected = Long.compare(ordered.getLong(high), 
+                                        ordered.getLong(16 + high));
+
+            if (expected == 0) {
+                expected = Long.compareUnsigned(ordered.getLong(low), 
+                                                ordered.getLong(16 + low));
+            }
+
+            assertEquals(Integer.signum(expected),
+                         Integer.signum(new RecordKey(0, 16, true, order)
+                                        .compare(buffer, 0, buffer, 16)));
+        }
+    }
+
+    @Test
+    public void testSortedIndices() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSortedIndices(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int arrayLength = random.nextInt(MAXIMUM_ARRAY_LENGTH);
+            Entry[] array = getRandomEntryArray(arrayLength, random);
+            Arrays.sort(array, 0, arrayLength / 2, Collections.reverseOrder());
+
+            Entry[] original = array.clone();
+            Entry[] expected = array.clone();
+            int[] keys = new int[arrayLength];
+            double[] values = new double[arrayLength];
+
+            for (int j = 0; j < arrayLength; ++j) {
+                keys[j] = array[j].key;
+                values[j] = -array[j].key;
+            }
+
+            Arrays.sort(expected);
+            int[] permutation = AdaptiveMergesort.sortedIndices(array);
+
+            assertTrue(Arrays.equals(original, array));
+            assertTrue(Arrays.equals(permutation, 
+                                     AdaptiveMergesort.sortedIndices(keys)));
+
+            AdaptiveMergesort.applyPermutation(permutation, array, keys);
+
+            assertTrue(Arrays.equals(expected, array));
+
+            for (int j = 0; j < arrayLength; ++j) {
+                assertEquals(expected[j].key, keys[j]);
+            }
+
+            // Stable descending order of the keys:
+            AdaptiveMergesort.applyPermutation(
+                    AdaptiveMergesort.sortedIndices(values), 
+                    original);
+            Arrays.sort(expected, Collections.reverseOrder());
+
+            for (int j = 0; j < arrayLength; ++j) {
+                assertEquals(expected[j].key, original[j].key);
+            }
+        }
+    }
+
+    @Test
+    public void testSortedIndicesOfNaNs() {
+        double nan1 = Double.longBitsToDouble(0x7ff8000000000002L);
+        double nan2 = Double.longBitsToDouble(0xfff8000000000001L);
+        double[] values = { nan1, 1.0, nan2, Double.POSITIVE_INFINITY };
+
+        // NaN values are all equal, so their order must be kept:
+        assertTrue(Arrays.equals(new int[]{ 1, 3, 0, 2 },
+                                 AdaptiveMergesort.sortedIndices(values)));
+    }
+
+    @Test
+    public void testApplyPermutationRejectsNonPermutation() {
+        int[] column = { 1, 2, 3 };
+
+        try {
+            AdaptiveMergesort.applyPermutation(new int[]{ 2, 0, 2 }, column);
+            fail();
+        } catch (IllegalArgumentException ex) {
+            assertTrue(Arrays.equals(new int[]{ 1, 2, 3 }, column));
+        }
+    }
+
+    @Test
+    public void testSortByColumns() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testSortByColumns(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int rows = random.nextInt(MAXIMUM_ARRAY_LENGTH);
+            long[] timestamps = new long[rows];
+            int[] userIds = new int[rows];
+            double[] values = new double[rows];
+            Integer[] ids = new Integer[rows];
+
+            for (int row = 0; row < rows; ++row) {
+                timestamps[row] = random.nextInt(10);
+                userIds[row] = random.nextInt(10);
+                values[row] = random.nextInt(10) - 5.0;
+                ids[row] = row;
+            }
+
+            Arrays.sort(timestamps, 0, rows / 2);
+
+            Integer[] expected = ids.clone();
+            long[] originalTimestamps = timestamps.clone();
+            int[] originalUserIds = userIds.clone();
+            double[] originalValues = values.clone();
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    Arrays.sort(expected, 
+                                Comparator.comparingLong(
+                                        row -> originalTimestamps[row]));
+                    AdaptiveMergesort.sortByColumn(timestamps, 
+                                                   userIds, 
+                                                   values, 
+                                                   ids);
+                    break;
+
+                case 1:
+                    Arrays.sort(expected, 
+                                Comparator.comparingDouble(
+                                        row -> originalValues[row]));
+                    AdaptiveMergesort.sortByColumn(values, 
+                                                   timestamps, 
+                                                   userIds, 
+                                                   ids);
+                    break;
+
+                default:
+                    Arrays.sort(expected, 
+                                Comparator.<Integer>comparingInt(
+                                        row -> originalUserIds[row])
+                                          .thenComparingLong(
+                                        row -> originalTimestamps[row]));
+                    AdaptiveMergesort.sortByColumns(
+                            new Object[]{ userIds, timestamps }, 
+                            values, 
+                            ids);
+            }
+
+            assertTrue(Arrays.equals(expected, ids));
+
+            for (int row = 0; row < rows; ++row) {
+                assertEquals(originalTimestamps[ids[row]], timestamps[row]);
+                assertEquals(originalUserIds[ids[row]], userIds[row]);
+                assertEquals(originalValues[ids[row]], values[row], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        SortStatistics statistics = new SortStatistics();
+        SortConfiguration configuration = 
+                SortConfiguration.DEFAULT.withStatistics(statistics);
+        Integer[] array = new Integer[1000];
+
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = array.length - i;
+        }
+
+        // A single descending run is reversed and needs no merging:
+        AdaptiveMergesort.sort(array, configuration);
+
+        assertEquals(1, statistics.getSorts());
+        assertEquals(array.length, statistics.getElements());
+        assertEquals(array.length - 1, statistics.getComparisons());
+        assertEquals(1, statistics.getDescendingRuns());
+        assertEquals(0, statistics.getAscendingRuns());
+        assertEquals(1, statistics.getRuns());
+        assertEquals(0, statistics.getMerges());
+
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveMergesortTest.testStatistics(): seed = " + seed);
+
+        statistics.reset();
+        array = getRandomArray(array.length, random);
+        Integer[] array2 = array.clone();
+        Arrays.sort(array);
+        AdaptiveMergesort.sort(array2, configuration);
+
+        assertTrue(Arrays.equals(array, array2));
+        assertEquals(1, statistics.getSorts());
+        assertEquals(statistics.getRuns() - 1, statistics.getMerges());
+        assertTrue(statistics.getRuns() <= statistics.getAscendingRuns() + 
+                                           statistics.getDescendingRuns() + 
+                                           1);
+        assertTrue(statistics.getMergePasses() > 0);
+        assertTrue(statistics.getSplitIntervals() > 0);
+        assertTrue(statistics.getComparisons() >= array.length - 1);
+
+        // Sorts without statistics record nothing:
+        statistics.reset();
+        AdaptiveMergesort.sort(array2);
+        assertEquals(0, statistics.getSorts());
+        assertEquals(0, statistics.getComparisons());
+    }
+
     @Test(expected = NullPointerException.class)
     public void throwsOnNullArray() {
-        AdaptiveMergesort.sort(null);
+        AdaptiveMergesort.sort((Integer[]) null);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -102,4 +1395,41 @@ public final class AdaptiveMergesortTest {
 
         return array;
     }
+
+    private static Entry[] getRandomEntryArray(int length, Random random) {
+        Entry[] array = new Entry[length];
+
+        for (int i = 0; i < length; ++i) {
+            array[i] = new Entry(MIN_ELEMENT + 
+                                 random.nextInt(MAX_ELEMENT - MIN_ELEMENT + 1),
+                                 i);
+        }
+
+        return array;
+    }
+
+    /**
+     * An element ordered by its key only, so that the sorts leave the equal 
+     * entries in the order of their ids if and only if they are stable.
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        final int key;
+        final int id;
+
+        Entry(int key, int id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Integer.compare(key, other.key);
+        }
+
+        @Override
+        public String toString() {
+            return key + "/" + id;
+        }
+    }
 }
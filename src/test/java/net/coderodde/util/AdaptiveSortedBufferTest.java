@@ -0,0 +1,210 @@
+package net.coderodde.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AdaptiveSortedBufferTest {
+
+    private static final int BRUTE_FORCE_ITERATIONS = 200;
+    private static final int MAXIMUM_BATCHES = 20;
+    private static final int MAXIMUM_BATCH_LENGTH = 100;
+    private static final int MAXIMUM_KEY = 50;
+
+    @Test
+    public void testBruteForce() {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "AdaptiveSortedBufferTest.testBruteForce(): seed = " + seed);
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            AdaptiveSortedBuffer<Entry> buffer = new AdaptiveSortedBuffer<>();
+            List<Entry> expected = new ArrayList<>();
+            int batches = random.nextInt(MAXIMUM_BATCHES);
+
+            for (int batch = 0; batch < batches; ++batch) {
+                Entry[] entries = getRandomBatch(expected.size(), random);
+                expected.addAll(Arrays.asList(entries));
+
+                switch (random.nextInt(4)) {
+                    case 0:
+                        buffer.append(entries);
+                        break;
+
+                    case 1:
+                        buffer.append(Arrays.asList(entries));
+                        break;
+
+                    case 2:
+                        for (Entry entry : entries) {
+                            buffer.add(entry);
+                        }
+
+                        break;
+
+                    default:
+                        AdaptiveSortedBuffer<Entry> other = 
+                                new AdaptiveSortedBuffer<>();
+
+                        for (Entry entry : entries) {
+                            other.add(entry);
+                        }
+
+                        buffer.addAll(other);
+                }
+
+                // The stack invariants keep the number of runs logarithmic:
+                assertTrue(buffer.getRunCount() <=
+                           2 + 2 * (32 - Integer.numberOfLeadingZeros(
+                                            buffer.size())));
+
+                if (random.nextInt(4) == 0) {
+                    checkContents(expected, buffer);
+                }
+            }
+
+            checkContents(expected, buffer);
+        }
+    }
+
+    @Test
+    public void testJoinsRunsInOrder() {
+        AdaptiveSortedBuffer<Integer> buffer = new AdaptiveSortedBuffer<>();
+
+        for (int i = 0; i < 10; ++i) {
+            buffer.append(new Integer[]{ 2 * i, 2 * i + 1 });
+        }
+
+        assertEquals(1, buffer.getRunCount());
+        assertEquals(20, buffer.size());
+        assertEquals(Integer.valueOf(7), buffer.get(7));
+    }
+
+    @Test
+    public void testAddExtendsRuns() {
+        AdaptiveSortedBuffer<Integer> buffer = new AdaptiveSortedBuffer<>();
+
+        for (int i = 0; i < 10; ++i) {
+            buffer.add(i);
+        }
+
+        assertEquals(1, buffer.getRunCount());
+
+        // A descending run is reversed and still continues the first one:
+        for (int i = 19; i >= 10; --i) {
+            buffer.add(i);
+        }
+
+        buffer.add(0);
+        assertEquals(2, buffer.getRunCount());
+
+        AdaptiveSortedBuffer<Integer> other = new AdaptiveSortedBuffer<>();
+        other.add(30);
+        other.add(20);
+        buffer.addAll(buffer);
+        buffer.addAll(other);
+
+        assertEquals(44, buffer.size());
+        assertEquals(Integer.valueOf(0), buffer.get(3));
+        assertEquals(Integer.valueOf(1), buffer.get(4));
+        assertEquals(Integer.valueOf(19), buffer.get(41));
+        assertEquals(Integer.valueOf(30), buffer.get(43));
+    }
+
+    @Test
+    public void testComparator() {
+        AdaptiveSortedBuffer<Integer> buffer =
+                new AdaptiveSortedBuffer<>(Collections.reverseOrder());
+
+        buffer.append(new Integer[]{ 3, 1, 2 });
+        buffer.append(Arrays.asList(5, 4));
+
+        assertTrue(Arrays.equals(new Integer[]{ 5, 4, 3, 2, 1 },
+                                 buffer.toArray(new Integer[0])));
+
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.getRunCount());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testIteratorFailsFast() {
+        AdaptiveSortedBuffer<Integer> buffer = new AdaptiveSortedBuffer<>();
+        buffer.append(new Integer[]{ 2, 1 });
+        Iterator<Integer> iterator = buffer.iterator();
+        buffer.append(new Integer[]{ 0 });
+        iterator.next();
+    }
+
+    private static void checkContents(List<Entry> expected,
+                                      AdaptiveSortedBuffer<Entry> buffer) {
+        List<Entry> sorted = new ArrayList<>(expected);
+        Collections.sort(sorted);
+
+        assertEquals(sorted.size(), buffer.size());
+        assertTrue(Arrays.equals(sorted.toArray(), buffer.toArray()));
+        assertTrue(buffer.getRunCount() <= 1);
+
+        int index = 0;
+
+        for (Entry entry : buffer) {
+            assertSame(sorted.get(index), buffer.get(index));
+            assertSame(sorted.get(index++), entry);
+        }
+    }
+
+    private static Entry[] getRandomBatch(int firstId, Random random) {
+        Entry[] batch = new Entry[random.nextInt(MAXIMUM_BATCH_LENGTH)];
+
+        for (int i = 0; i < batch.length; ++i) {
+            batch[i] = new Entry(random.nextInt(MAXIMUM_KEY), firstId + i);
+        }
+
+        // Make some of the batches partially sorted:
+        switch (random.nextInt(3)) {
+            case 0:
+                Arrays.sort(batch, 0, batch.length / 2);
+                break;
+
+            case 1:
+                Arrays.sort(batch, Collections.reverseOrder());
+                break;
+        }
+
+        return batch;
+    }
+
+    /**
+     * An element ordered by its key only, so that the buffer hands out the
+     * equal entries in the order they were appended if and only if it is 
+     * stable.
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        final int key;
+        final int id;
+
+        Entry(int key, int id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Integer.compare(key, other.key);
+        }
+
+        @Override
+        public String toString() {
+            return key + "/" + id;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package net.coderodde.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class ExternalAdaptiveMergesortTest {
+
+    private static final int BRUTE_FORCE_ITERATIONS = 100;
+    private static final int MAXIMUM_RECORDS = 2000;
+    private static final int MAXIMUM_KEY = 100;
+
+    // An int key followed by a long id:
+    private static final int RECORD_LENGTH = 12;
+
+    private static final RecordComparator KEY_COMPARATOR =
+            (buffer1, offset1, buffer2, offset2) ->
+                    Integer.compare(buffer1.getInt(offset1),
+                                    buffer2.getInt(offset2));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBruteForce() throws IOException {
+        long seed = System.currentTimeMillis();
+        Random random = new Random(seed);
+
+        System.out.println(
+                "ExternalAdaptiveMergesortTest.testBruteForce(): seed = " +
+                seed);
+
+        Path input = folder.newFile().toPath();
+        Path output = folder.newFile().toPath();
+        Path spillDirectory = folder.newFolder().toPath();
+
+        for (int i = 0; i < BRUTE_FORCE_ITERATIONS; ++i) {
+            int[] keys = getRandomKeys(random.nextInt(MAXIMUM_RECORDS),
+                                       random);
+            Files.write(input, toRecords(keys));
+
+            ExternalSortConfiguration configuration =
+                    ExternalSortConfiguration.DEFAULT
+                    .withSpillDirectory(spillDirectory)
+                    .withMemoryLimit(RECORD_LENGTH * (1 + random.nextInt(300)))
+                    .withMaximumFanIn(2 + random.nextInt(8));
+
+            AdaptiveMergesort.sortFile(input,
+                                       output,
+                                       RECORD_LENGTH,
+                                       KEY_COMPARATOR,
+                                       configuration);
+
+            assertTrue(Arrays.equals(toRecords(getSortedIds(keys)),
+                                     Files.readAllBytes(output)));
+
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                assertEquals(0, files.count());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThrowsOnPartialRecord() throws IOException {
+        Path input = folder.newFile().toPath();
+        Files.write(input, new byte[RECORD_LENGTH + 1]);
+        AdaptiveMergesort.sortFile(input,
+                                   folder.newFile().toPath(),
+                                   RECORD_LENGTH,
+                                   KEY_COMPARATOR);
+    }
+
+    private static int[] getRandomKeys(int length, Random random) {
+        int[] keys = new int[length];
+
+        for (int i = 0; i < length; ++i) {
+            keys[i] = random.nextInt(MAXIMUM_KEY);
+        }
+
+        // Plant long runs both ways into some of the inputs:
+        int index = 0;
+
+        while (index < length && random.nextBoolean()) {
+            int runLength = Math.min(length - index, random.nextInt(500));
+
+            if (random.nextBoolean()) {
+                Arrays.sort(keys, index, index + runLength);
+            } else {
+                // A strictly descending run:
+                for (int j = 0; j < runLength; ++j) {
+                    keys[index + j] = runLength - j;
+                }
+            }
+
+            index += runLength;
+        }
+
+        return keys;
+    }
+
+    /**
+     * Returns the records, listed by their ids, in stably sorted order.
+     */
+    private static int[][] getSortedIds(int[] keys) {
+        Integer[] ids = new Integer[keys.length];
+
+        for (int i = 0; i < ids.length; ++i) {
+            ids[i] = i;
+        }
+
+        Arrays.sort(ids, Comparator.comparingInt(id -> keys[id]));
+        int[][] records = new int[][]{ new int[ids.length],
+                                       new int[ids.length] };
+
+        for (int i = 0; i < ids.length; ++i) {
+            records[0][i] = keys[ids[i]];
+            records[1][i] = ids[i];
+        }
+
+        return records;
+    }
+
+    private static byte[] toRecords(int[] keys) {
+        int[] ids = new int[keys.length];
+
+        for (int i = 0; i < ids.length; ++i) {
+            ids[i] = i;
+        }
+
+        return toRecords(new int[][]{ keys, ids });
+    }
+
+    private static byte[] toRecords(int[][] keysAndIds) {
+        ByteBuffer buffer =
+                ByteBuffer.allocate(keysAndIds[0].length * RECORD_LENGTH);
+
+        for (int i = 0; i < keysAndIds[0].length; ++i) {
+            buffer.putInt(keysAndIds[0][i]);
+            buffer.putLong(keysAndIds[1][i]);
+        }
+
+        return buffer.array();
+    }
+}